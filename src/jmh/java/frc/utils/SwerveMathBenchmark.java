@@ -0,0 +1,174 @@
+package frc.utils;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.MathShared;
+import edu.wpi.first.math.MathSharedStore;
+import edu.wpi.first.math.MathUsageId;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Benchmarks for the math on the drive hot path. Run with ./gradlew jmh; the GC profiler
+ * reports the allocation rate of each benchmark next to its time.
+ *
+ * <p>Inputs are drawn from a fixed-seed table so every run sees the same data and the JIT
+ * can't constant-fold them away. {@link SwerveKernel} is checked against WPILib by
+ * SwerveKernelTest, which runs with ./gradlew test.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SwerveMathBenchmark {
+
+    private static final int kInputs = 1024;
+
+    private final double[] m_angles = new double[kInputs];
+    private final double[] m_joystick = new double[kInputs];
+    private final Rotation2d[] m_rotations = new Rotation2d[kInputs];
+    private final ChassisSpeeds[] m_speeds = new ChassisSpeeds[kInputs];
+    private int m_index = 0;
+
+    private PolarSlewRateLimiter m_limiter;
+    private double m_time;
+
+    private final SwerveKernel m_kernel = new SwerveKernel(DriveConstants.kWheelBase, DriveConstants.kTrackWidth);
+    private final double[] m_states = new double[SwerveKernel.kStateSize];
+    private final double[] m_moduleAngles = new double[SwerveKernel.kModules];
+    private final double[] m_chassisSpeeds = new double[3];
+
+    @Setup
+    public void setup() {
+        // Give wpimath a desktop time source, so nothing needs the robot's native libraries
+        MathSharedStore.setMathShared(new MathShared() {
+            @Override
+            public void reportError(String error, StackTraceElement[] stackTrace) {}
+
+            @Override
+            public void reportUsage(MathUsageId id, int count) {}
+
+            @Override
+            public double getTimestamp() {
+                return m_time;
+            }
+        });
+
+        Random random = new Random(1308);
+        for (int i = 0; i < kInputs; i++) {
+            m_angles[i] = (random.nextDouble() - 0.5) * 8 * Math.PI;
+            m_joystick[i] = random.nextDouble() * 2 - 1;
+            m_rotations[i] = new Rotation2d(m_angles[i]);
+            m_speeds[i] = new ChassisSpeeds(
+                m_joystick[i] * DriveConstants.kMaxSpeedMetersPerSecond,
+                random.nextDouble() * DriveConstants.kMaxSpeedMetersPerSecond,
+                random.nextDouble() * DriveConstants.kMaxAngularSpeed);
+        }
+
+        m_time = 0.0;
+        m_limiter = new PolarSlewRateLimiter(
+            DriveConstants.kDirectionSlewRate,
+            DriveConstants.kMagnitudeSlewRate,
+            DriveConstants.kRotationalSlewRate,
+            m_time);
+    }
+
+    private int next() {
+        m_index = (m_index + 1) & (kInputs - 1);
+        return m_index;
+    }
+
+    @Benchmark
+    public double wrapAngle() {
+        return SwerveUtils.WrapAngle(m_angles[next()]);
+    }
+
+    @Benchmark
+    public double angleDifference() {
+        int i = next();
+        return SwerveUtils.AngleDifference(m_angles[i], m_angles[(i + 1) & (kInputs - 1)]);
+    }
+
+    @Benchmark
+    public double stepTowardsCircular() {
+        int i = next();
+        return SwerveUtils.StepTowardsCircular(m_angles[i], m_angles[(i + 1) & (kInputs - 1)], 0.1);
+    }
+
+    @Benchmark
+    public void polarSlewRateLimit(Blackhole blackhole) {
+        int i = next();
+        m_time += 0.02;
+        m_limiter.calculate(m_joystick[i], m_joystick[(i + 1) & (kInputs - 1)], m_joystick[(i + 2) & (kInputs - 1)], m_time);
+        blackhole.consume(m_limiter.getX());
+        blackhole.consume(m_limiter.getY());
+        blackhole.consume(m_limiter.getRotation());
+    }
+
+    @Benchmark
+    public SwerveModuleState optimize() {
+        int i = next();
+        return SwerveModuleState.optimize(
+            new SwerveModuleState(m_joystick[i], m_rotations[i]),
+            m_rotations[(i + 1) & (kInputs - 1)]);
+    }
+
+    @Benchmark
+    public SwerveModuleState[] toSwerveModuleStates() {
+        return DriveConstants.kDriveKinematics.toSwerveModuleStates(m_speeds[next()]);
+    }
+
+    @Benchmark
+    public SwerveModuleState[] toSwerveModuleStatesAndDesaturate() {
+        SwerveModuleState[] states = DriveConstants.kDriveKinematics.toSwerveModuleStates(m_speeds[next()]);
+        SwerveDriveKinematics.desaturateWheelSpeeds(states, DriveConstants.kMaxSpeedMetersPerSecond);
+        return states;
+    }
+
+    @Benchmark
+    public double[] kernelToModuleStatesAndDesaturate() {
+        ChassisSpeeds speeds = m_speeds[next()];
+        m_kernel.toModuleStates(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond, m_states);
+        SwerveKernel.desaturate(m_states, DriveConstants.kMaxSpeedMetersPerSecond);
+        return m_states;
+    }
+
+    @Benchmark
+    public double[] kernelDrivePipeline() {
+        // Everything DriveSubsystem.drive() does after rate limiting
+        int i = next();
+        ChassisSpeeds speeds = m_speeds[i];
+        for (int module = 0; module < SwerveKernel.kModules; module++) {
+            m_moduleAngles[module] = m_angles[(i + module + 1) & (kInputs - 1)];
+        }
+        SwerveKernel.fieldToRobot(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond, m_angles[i], m_chassisSpeeds);
+        m_kernel.toModuleStates(m_chassisSpeeds[0], m_chassisSpeeds[1], m_chassisSpeeds[2], m_states);
+        SwerveKernel.desaturate(m_states, DriveConstants.kMaxSpeedMetersPerSecond);
+        SwerveKernel.optimize(m_states, m_moduleAngles);
+        SwerveKernel.cosineScale(m_states, m_moduleAngles);
+        return m_states;
+    }
+
+    @Benchmark
+    public double[] kernelToChassisSpeeds() {
+        int i = next();
+        for (int module = 0; module < SwerveKernel.kModules; module++) {
+            m_states[2 * module] = m_joystick[(i + module) & (kInputs - 1)] * DriveConstants.kMaxSpeedMetersPerSecond;
+            m_states[2 * module + 1] = m_angles[(i + module) & (kInputs - 1)];
+        }
+        m_kernel.toChassisSpeeds(m_states, m_chassisSpeeds);
+        return m_chassisSpeeds;
+    }
+}
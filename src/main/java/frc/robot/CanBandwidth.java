@@ -0,0 +1,271 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.ctre.phoenix.led.CANdle;
+import com.ctre.phoenix.led.CANdle.CANdleStatusFrame;
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.hardware.ParentDevice;
+import com.revrobotics.CANSparkLowLevel.PeriodicFrame;
+import com.revrobotics.CANSparkMax;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.CanConstants;
+
+/**
+ * CanBandwidth sets every CAN device's status frame rates from the signals the code
+ * actually reads.
+ *
+ * <p>Each IO class registers its devices at construction and declares which signals it
+ * consumes and how often, from whichever thread builds it. Once everything is built,
+ * {@link #apply()} sends each SPARK MAX frame at the fastest rate any of its signals was
+ * asked for, and slows every other frame down to
+ * {@link CanConstants#kSparkUnusedFramePeriodMs}. Phoenix 6 signals are set to their
+ * declared rates, and every undeclared signal on the device is turned off. Reading a
+ * signal that was not declared gives stale data, so declare everything you read.
+ *
+ * <p>The expected bus load is computed from the same declarations and published to
+ * NetworkTables under /CAN, next to what the roboRIO measures.
+ */
+public final class CanBandwidth {
+
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("CAN");
+    private static final DoublePublisher expectedPublisher = table.getDoubleTopic("ExpectedUtilization").publish();
+    private static final DoublePublisher framesPublisher = table.getDoubleTopic("ExpectedFramesPerSecond").publish();
+    private static final DoublePublisher measuredPublisher = table.getDoubleTopic("MeasuredUtilization").publish();
+
+    private static final List<Device> devices = new ArrayList<>();
+    private static int cyclesSincePublish = 0;
+
+    private CanBandwidth() {}
+
+    /** The signals a SPARK MAX reports, and the status frame each one is sent in. */
+    public enum SparkSignal {
+        /** Applied output, faults and sticky faults. */
+        kAppliedOutput(PeriodicFrame.kStatus0),
+        /** Motor velocity, temperature, bus voltage and output current. */
+        kVelocity(PeriodicFrame.kStatus1),
+        /** Motor position. */
+        kPosition(PeriodicFrame.kStatus2),
+        /** Analog sensor voltage, velocity and position. */
+        kAnalogSensor(PeriodicFrame.kStatus3),
+        /** Alternate encoder velocity and position. */
+        kAlternateEncoder(PeriodicFrame.kStatus4),
+        /** Duty cycle absolute encoder position. */
+        kAbsolutePosition(PeriodicFrame.kStatus5),
+        /** Duty cycle absolute encoder velocity. */
+        kAbsoluteVelocity(PeriodicFrame.kStatus6);
+
+        private final PeriodicFrame frame;
+
+        SparkSignal(PeriodicFrame frame) {
+            this.frame = frame;
+        }
+    }
+
+    private abstract static class Device {
+        final String name;
+
+        Device(String name) {
+            this.name = name;
+        }
+
+        abstract void apply();
+
+        /** Frames per second this device and the robot exchange, in both directions. */
+        abstract double framesPerSecond();
+    }
+
+    /** A registered SPARK MAX. */
+    public static final class SparkMaxDevice extends Device {
+        private final CANSparkMax spark;
+        private final double[] frameHz = new double[PeriodicFrame.values().length];
+        private final int[] framePeriodMs = new int[PeriodicFrame.values().length];
+
+        private SparkMaxDevice(String name, CANSparkMax spark) {
+            super(name);
+            this.spark = spark;
+
+            // Faults are always worth hearing about, if slowly
+            uses(SparkSignal.kAppliedOutput, CanConstants.kSparkHealthHz);
+        }
+
+        /**
+         * Declares that the code reads a signal from this SPARK MAX.
+         *
+         * @param signal the signal
+         * @param hz how often a fresh value is needed
+         * @return this device, for chaining
+         */
+        public SparkMaxDevice uses(SparkSignal signal, double hz) {
+            int frame = signal.frame.ordinal();
+            frameHz[frame] = Math.max(frameHz[frame], hz);
+            return this;
+        }
+
+        @Override
+        void apply() {
+            PeriodicFrame[] frames = PeriodicFrame.values();
+            for (int i = 0; i < frames.length; i++) {
+                framePeriodMs[i] = frameHz[i] > 0
+                    ? Math.max(1, (int) Math.round(1000 / frameHz[i]))
+                    : CanConstants.kSparkUnusedFramePeriodMs;
+                spark.setPeriodicFramePeriod(frames[i], framePeriodMs[i]);
+            }
+        }
+
+        @Override
+        double framesPerSecond() {
+            // One control frame per loop, plus each status frame at its period
+            double total = CanConstants.kControlFramesPerSecond;
+            for (int periodMs : framePeriodMs) total += 1000.0 / periodMs;
+            return total;
+        }
+    }
+
+    /** A registered Phoenix 6 device. */
+    public static final class PhoenixDevice extends Device {
+        private final ParentDevice device;
+        private final Map<BaseStatusSignal, Double> signalHz = new IdentityHashMap<>();
+        private final double controlFramesPerSecond;
+
+        private PhoenixDevice(String name, ParentDevice device, double controlFramesPerSecond) {
+            super(name);
+            this.device = device;
+            this.controlFramesPerSecond = controlFramesPerSecond;
+        }
+
+        /**
+         * Declares that the code reads a signal from this device.
+         *
+         * @param signal the signal
+         * @param hz how often a fresh value is needed
+         * @return this device, for chaining
+         */
+        public PhoenixDevice uses(BaseStatusSignal signal, double hz) {
+            signalHz.merge(signal, hz, Math::max);
+            return this;
+        }
+
+        @Override
+        void apply() {
+            for (Map.Entry<BaseStatusSignal, Double> entry : signalHz.entrySet()) {
+                entry.getKey().setUpdateFrequency(entry.getValue());
+            }
+            // Turns off every signal that wasn't given a frequency above
+            device.optimizeBusUtilization();
+        }
+
+        @Override
+        double framesPerSecond() {
+            // Counts one frame per signal. Signals that share a frame make this an overestimate.
+            double total = controlFramesPerSecond;
+            for (double hz : signalHz.values()) total += hz;
+            return total;
+        }
+    }
+
+    /** A registered CANdle. Nothing is read back from it, so its status is slowed right down. */
+    private static final class CANdleDevice extends Device {
+        private final CANdle candle;
+        private final double controlFramesPerSecond;
+
+        private CANdleDevice(String name, CANdle candle, double controlFramesPerSecond) {
+            super(name);
+            this.candle = candle;
+            this.controlFramesPerSecond = controlFramesPerSecond;
+        }
+
+        @Override
+        void apply() {
+            candle.setStatusFramePeriod(CANdleStatusFrame.CANdleStatusFrame_Status_1_General, CanConstants.kPhoenix5MaxFramePeriodMs);
+        }
+
+        @Override
+        double framesPerSecond() {
+            return controlFramesPerSecond + 1000.0 / CanConstants.kPhoenix5MaxFramePeriodMs;
+        }
+    }
+
+    /**
+     * Registers a SPARK MAX. Only its faults are reported until signals are declared with
+     * {@link SparkMaxDevice#uses(SparkSignal, double)}.
+     *
+     * @param name the name to report the device under
+     * @param spark the SPARK MAX
+     * @return the device, to declare signals on
+     */
+    public static synchronized SparkMaxDevice sparkMax(String name, CANSparkMax spark) {
+        SparkMaxDevice device = new SparkMaxDevice(name, spark);
+        devices.add(device);
+        return device;
+    }
+
+    /**
+     * Registers a Phoenix 6 device that is only read from.
+     *
+     * @param name the name to report the device under
+     * @param device the device
+     * @return the device, to declare signals on
+     */
+    public static PhoenixDevice phoenix(String name, ParentDevice device) {
+        return phoenix(name, device, 0);
+    }
+
+    /**
+     * Registers a Phoenix 6 device.
+     *
+     * @param name the name to report the device under
+     * @param device the device
+     * @param controlFramesPerSecond how many control frames the robot sends it per second
+     * @return the device, to declare signals on
+     */
+    public static synchronized PhoenixDevice phoenix(String name, ParentDevice device, double controlFramesPerSecond) {
+        PhoenixDevice registered = new PhoenixDevice(name, device, controlFramesPerSecond);
+        devices.add(registered);
+        return registered;
+    }
+
+    /**
+     * Registers a CANdle.
+     *
+     * @param name the name to report the device under
+     * @param candle the CANdle
+     * @param controlFramesPerSecond the most control frames the robot sends it per second
+     */
+    public static synchronized void candle(String name, CANdle candle, double controlFramesPerSecond) {
+        devices.add(new CANdleDevice(name, candle, controlFramesPerSecond));
+    }
+
+    /**
+     * Sets the status frame rates of every registered device and publishes the expected
+     * bus load. This should be called once, after every subsystem has been built.
+     */
+    public static synchronized void apply() {
+        double totalFrames = 0;
+        for (Device device : devices) {
+            device.apply();
+
+            double frames = device.framesPerSecond();
+            table.getEntry("Devices/" + device.name).setDouble(frames);
+            totalFrames += frames;
+        }
+
+        framesPublisher.set(totalFrames);
+        expectedPublisher.set(100 * totalFrames * CanConstants.kBitsPerFrame / CanConstants.kBusBitsPerSecond);
+    }
+
+    /** Publishes the bus load measured by the roboRIO, once per publish period. */
+    public static void periodic() {
+        if (++cyclesSincePublish < CanConstants.kPublishPeriodCycles) return;
+
+        cyclesSincePublish = 0;
+        measuredPublisher.set(100 * RobotController.getCANStatus().percentBusUtilization);
+    }
+}
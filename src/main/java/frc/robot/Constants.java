@@ -4,14 +4,25 @@
 
 package frc.robot;
 
+import java.util.List;
+
 import com.revrobotics.CANSparkBase.IdleMode;
 
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Rotation3d;
+import edu.wpi.first.math.geometry.Transform3d;
 import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.geometry.Translation3d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.math.trajectory.TrapezoidProfile;
 import edu.wpi.first.math.util.Units;
 import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.subsystems.Drive.MAXSwerveModule.ControlMode;
 import frc.robot.subsystems.LED.*;
+import frc.robot.subsystems.Vision.CameraMount;
 
 /**
  * The Constants class provides a convenient place for teams to hold robot-wide
@@ -70,7 +81,12 @@ public final class Constants {
     public static final int kFrontRightAbsoluteEncoderCanId = 11;
     public static final int kRearRightAbsoluteEncoderCanId = 13;
 
+    public static final int kGyroCanId = 20;
     public static final boolean kGyroReversed = false;
+
+    // Background odometry sampling
+    public static final double kOdometryFrequencyHz = 250.0;
+    public static final int kOdometryQueueCapacity = 64; // samples, must be a power of 2
   }
 
   public static final class ModuleConstants {
@@ -100,6 +116,12 @@ public final class Constants {
     public static final double kTurningEncoderPositionFactor = (2 * Math.PI); // radians
     public static final double kTurningEncoderVelocityFactor = (2 * Math.PI) / 60.0; // radians per second
 
+    // The turning NEO drives the module through a 9424:203 reduction. Its internal encoder is
+    // used by the SPARK MAX onboard turning loop, after being seeded from the CANcoder.
+    public static final double kTurningMotorReduction = 9424.0 / 203.0;
+    public static final double kTurningMotorEncoderPositionFactor = (2 * Math.PI) / kTurningMotorReduction; // radians
+    public static final double kTurningMotorEncoderVelocityFactor = ((2 * Math.PI) / kTurningMotorReduction) / 60.0; // radians per second
+
     public static final double kTurningEncoderPositionPIDMinInput = 0; // radians
     public static final double kTurningEncoderPositionPIDMaxInput = kTurningEncoderPositionFactor; // radians
 
@@ -120,6 +142,17 @@ public final class Constants {
     public static final IdleMode kDrivingMotorIdleMode = IdleMode.kBrake;
     public static final IdleMode kTurningMotorIdleMode = IdleMode.kBrake;
 
+    // Where the module control loops run. kSparkMax runs them onboard at 1 kHz.
+    public static final ControlMode kControlMode = ControlMode.kSparkMax;
+
+    // Re-seed the turning motor encoder from the CANcoder if they disagree while parked.
+    // The module must have been at rest for a number of cycles first, since the turning
+    // NEO's position only arrives at the loop rate and lags the CANcoder while it moves.
+    public static final double kTurningReseedTolerance = 0.05; // radians
+    public static final double kTurningReseedMaxSpeed = 0.05; // meters per second
+    public static final double kTurningReseedMaxTurnRate = 0.1; // radians per second
+    public static final int kTurningReseedRestCycles = 10;
+
     public static final int kDrivingMotorCurrentLimit = 50; // amps
     public static final int kTurningMotorCurrentLimit = 20; // amps
   }
@@ -149,12 +182,19 @@ public final class Constants {
   public static final class OIConstants {
     public static final int kDriverControllerPort = 0;
     public static final double kDriveDeadband = 0.05;
+    // Drive stick response curve: 1 is linear, higher gives finer control near center
+    public static final double kDriveResponseExponent = 1.0;
+    // How far a trigger must be pulled to count as pressed
+    public static final double kTriggerThreshold = 0.5;
   }
 
   public static final class LedConstants {
     public static final int kCANdleId = 17;
     public static final int kNumLeds = 128;
 
+    // Most setLEDs() frames the LED subsystem may put on the CAN bus in one loop
+    public static final int kMaxFramesPerCycle = 8;
+
     // Colors
     public static final CANdleColor kBlack = new CANdleColor(0, 0, 0);
     public static final CANdleColor kRed = new CANdleColor(255, 0, 0);
@@ -246,6 +286,12 @@ public final class Constants {
       k3Yellow, kDoubleBlack, k3Yellow, kDoubleBlack, k3Yellow, kDoubleBlack,
       k3Yellow, kDoubleBlack, k3Yellow
     );
+
+    // Onboard CANdle animations that stand in for the dashed patterns above when the CANdle
+    // can play them. They look alike, not identical.
+    public static final OnboardAnimation kDrivingAnimation = OnboardAnimation.larson(kElectricBlue, 0.5, 7);
+    public static final OnboardAnimation kClimbUpAnimation = OnboardAnimation.colorFlow(kElectricYellow, 0.7, true);
+    public static final OnboardAnimation kClimbDownAnimation = OnboardAnimation.colorFlow(kElectricYellow, 0.7, false);
 }
 
   public static final class AutoConstants {
@@ -254,6 +300,9 @@ public final class Constants {
     public static final double kMaxAngularSpeedRadiansPerSecond = Math.PI;
     public static final double kMaxAngularSpeedRadiansPerSecondSquared = Math.PI;
 
+    // Precompiled autonomous trajectories, in the deploy directory
+    public static final String kTrajectoryCacheFile = "trajectories.bin";
+
     public static final double kPXController = 1;
     public static final double kPYController = 1;
     public static final double kPThetaController = 1;
@@ -263,6 +312,20 @@ public final class Constants {
         kMaxAngularSpeedRadiansPerSecond, kMaxAngularSpeedRadiansPerSecondSquared);
   }
 
+  public static final class AimConstants {
+    // Heading controller used by AutoAim. Output is in radians per second.
+    public static final double kPHeadingController = 4.0;
+    public static final double kDHeadingController = 0.0;
+    public static final TrapezoidProfile.Constraints kHeadingControllerConstraints = new TrapezoidProfile.Constraints(
+        DriveConstants.kMaxAngularSpeed, 4 * Math.PI);
+
+    // How long AutoAim keeps holding the last heading without seeing the tag
+    public static final double kVisionDropoutSeconds = 0.5;
+
+    // How much gyro history to keep for looking up the heading at a frame's capture time
+    public static final double kHeadingHistorySeconds = 1.5;
+  }
+
   public static final class NeoMotorConstants {
     public static final double kFreeSpeedRpm = 5676;
   }
@@ -270,5 +333,134 @@ public final class Constants {
   public static final class VisionConstants {
     public static final String VISION_CAMERA_NAME = "Arducam_OV2311_USB_Camera";
     public static final String FIELD_LAYOUT_PATH = Filesystem.getDeployDirectory().toString() + "/2024-crescendo.json";
+
+    // Frames kept for the robot loop between cycles before the oldest is dropped
+    public static final int kFrameQueueCapacity = 8;
+
+    // Highest AprilTag ID that can be looked up by ID (the 2024 field uses 1 through 16)
+    public static final int kMaxFiducialId = 31;
+
+    // Every camera on the robot, by its PhotonVision name, and where it sits from the center
+    // of the robot at floor level. The first one faces forward and is used for aiming. Each
+    // camera gets its own processing thread, so adding one here is all it takes.
+    // These are estimates and should be measured on the real robot.
+    public static final List<CameraMount> kCameras = List.of(
+        new CameraMount("camera0", new Transform3d(
+            new Translation3d(Units.inchesToMeters(10), 0, Units.inchesToMeters(8)),
+            new Rotation3d(0, Units.degreesToRadians(-20), 0))));
+
+    // Vision measurement standard deviations (x meters, y meters, heading radians) at 0 m.
+    // They grow with the square of the average tag distance.
+    public static final Matrix<N3, N1> kSingleTagStdDevs = VecBuilder.fill(4, 4, 8);
+    public static final Matrix<N3, N1> kMultiTagStdDevs = VecBuilder.fill(0.5, 0.5, 1);
+    public static final double kStdDevDistanceScale = 1.0 / 30.0; // per square meter
+
+    // Single-tag estimates are thrown out past this distance or above this ambiguity
+    public static final double kMaxSingleTagDistanceMeters = 4.0;
+    public static final double kMaxPoseAmbiguity = 0.2;
+  }
+
+  public static final class SimConstants {
+    // Battery voltage the simulated motor controllers scale duty cycle by
+    public static final double kNominalVoltage = 12.0;
+
+    // Estimated moments of inertia of a MAXSwerve wheel and of the module's steering
+    public static final double kDriveMoiKgMetersSquared = 0.025;
+    public static final double kTurnMoiKgMetersSquared = 0.004;
+
+    // Simulated camera. Roughly an Arducam OV2311 with the stock lens.
+    public static final double kCameraHorizontalFovRadians = Math.toRadians(70);
+    public static final double kCameraVerticalFovRadians = Math.toRadians(55);
+    public static final double kCameraMaxRangeMeters = 6.0;
+    public static final double kCameraFramePeriodSeconds = 0.04;
+
+    // Shooter flywheels, one NEO each, direct drive
+    public static final double kShooterMoiKgMetersSquared = 0.002;
+
+    // Climber travel, in motor rotations from the bottom. The limit switches trip at the bottom.
+    public static final double kClimberTravelRotations = 150;
+    public static final double kClimberLimitSwitchRotations = 0.5;
+
+    // The simulation harness fails if the autonomous path is followed worse than this
+    public static final double kMaxAutoTrackingErrorMeters = 0.25;
+  }
+
+  public static final class WarmUpConstants {
+    // Passes over the hot code before it counts as warm. The JIT compiles a method fully
+    // after roughly ten thousand calls, and most methods are called several times per pass.
+    public static final int kIterations = 3000;
+
+    // Time the warm-up may take out of each 20 ms disabled loop
+    public static final double kBudgetSecondsPerCycle = 0.005;
+  }
+
+  public static final class StartupConstants {
+    // Startup phases that may run at once. Most of startup is waiting on the CAN bus.
+    public static final int kThreads = 4;
+
+    // How often the LEDs show startup progress while nothing else is happening
+    public static final double kProgressPeriodSeconds = 0.05;
+    public static final CANdleColor kProgressColor = LedConstants.kElectricYellow;
+  }
+
+  public static final class ConfigConstants {
+    // Motor controllers configured at once at startup
+    public static final int kThreads = 4;
+
+    // Where the fingerprint of each motor controller's burned config is kept, in the deploy directory
+    public static final String kFingerprintFile = "motor-config.properties";
+  }
+
+  public static final class CanConstants {
+    // The roboRIO's CAN bus, and the size of one 8-byte extended frame with typical bit stuffing
+    public static final double kBusBitsPerSecond = 1_000_000;
+    public static final double kBitsPerFrame = 150;
+
+    // SPARK MAX frames nobody reads are sent this slowly. Faults still come in at kSparkHealthHz.
+    public static final int kSparkUnusedFramePeriodMs = 500;
+    public static final double kSparkHealthHz = 10;
+
+    // Phoenix 5 devices can't send a status frame less often than this
+    public static final int kPhoenix5MaxFramePeriodMs = 255;
+
+    // Signals read once per robot loop are asked for at this rate
+    public static final double kLoopRateHz = 50;
+
+    // Every motor controller gets one control frame per robot loop
+    public static final double kControlFramesPerSecond = kLoopRateHz;
+
+    // How often the measured bus load is published
+    public static final int kPublishPeriodCycles = 50;
+  }
+
+  public static final class LoggingConstants {
+    // Records buffered between the robot loop and the log writer. Must be a power of two.
+    public static final int kQueueCapacity = 512;
+
+    // Widest record a channel can hold (LoopProfiler logs one value per section)
+    public static final int kMaxChannelWidth = 64;
+    public static final int kMaxChannels = 32;
+
+    // How long the writer sleeps when it has caught up
+    public static final double kWriterPeriodSeconds = 0.05;
+  }
+
+  public static final class TelemetryConstants {
+    // Signals that want a fresh value every robot loop are asked for at this rate
+    public static final double kLoopRateHz = 50;
+
+    // The fastest each tier is sent, in Hz, as {critical, normal, debug}. 0 turns a tier off.
+    public static final double[] kCompetitionTierHz = {50, 10, 0};
+    public static final double[] kPitTuningTierHz = {50, 50, 50};
+    public static final double[] kDisabledTierHz = {10, 2, 0};
+
+    // Bytes of telemetry sent per loop, at most. The field radio link is capped at a few
+    // Mbit/s, shared with the cameras and the Driver Station.
+    public static final int kCompetitionBytesPerCycle = 1000;
+    public static final int kPitTuningBytesPerCycle = Integer.MAX_VALUE;
+    public static final int kDisabledBytesPerCycle = 500;
+
+    // How often the bytes sent per tier are published
+    public static final int kPublishPeriodCycles = 50;
   }
 }
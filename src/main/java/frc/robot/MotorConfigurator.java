@@ -0,0 +1,190 @@
+package frc.robot;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.REVLibError;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants.ConfigConstants;
+
+/**
+ * The MotorConfigurator configures SPARK MAXes at startup, only when they need it, and
+ * several at a time.
+ *
+ * <p>Each config's fingerprint is saved in a file in the deploy directory once it has been
+ * burned to a device. At the next boot, a device whose fingerprint is unchanged, and whose
+ * settings read back as expected, is left alone: no factory reset and no flash write. Any
+ * other device is factory reset, configured, and burned. The SPARK MAX has nowhere to keep
+ * the fingerprint itself, so the read-back is what catches a controller swapped since.
+ *
+ * <p>Devices are configured on a small thread pool. Whoever needs a device configured
+ * before using it waits with {@link #awaitAll()}, which also reports how long each device
+ * took, on the console and under /Startup/MotorConfig.
+ */
+public final class MotorConfigurator {
+
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("Startup").getSubTable("MotorConfig");
+
+    private static final ExecutorService executor = Executors.newFixedThreadPool(ConfigConstants.kThreads, runnable -> {
+        Thread thread = new Thread(runnable, "MotorConfigurator");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static final File fingerprintFile = new File(Filesystem.getDeployDirectory(), ConfigConstants.kFingerprintFile);
+    private static final Properties fingerprints = loadFingerprints();
+
+    private static final List<Result> pending = new ArrayList<>();
+
+    private MotorConfigurator() {}
+
+    /** What happened to one device. */
+    private static final class Result {
+        final String name;
+        final CompletableFuture<Void> future;
+        volatile String outcome = "pending";
+        volatile double millis = 0;
+
+        Result(String name, CompletableFuture<Void> future) {
+            this.name = name;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Configures a SPARK MAX in the background, unless it already has this config.
+     *
+     * @param name the name to report the device under, unique per device
+     * @param spark the SPARK MAX
+     * @param config the settings it should have
+     * @return a future that completes once the device is configured, to chain work that
+     *     needs the settings on
+     */
+    public static CompletableFuture<Void> configure(String name, CANSparkMax spark, SparkMaxConfig config) {
+        String key = name + "#" + spark.getDeviceId();
+        String fingerprint = Long.toHexString(config.fingerprint());
+
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Result result = new Result(name, future);
+
+        executor.execute(() -> {
+            long startNanos = System.nanoTime();
+            try {
+                if (fingerprint.equals(getFingerprint(key)) && config.matches(spark)) {
+                    result.outcome = "unchanged";
+                } else {
+                    REVLibError error = config.apply(spark);
+                    if (error == REVLibError.kOk) {
+                        setFingerprint(key, fingerprint);
+                        result.outcome = "burned";
+                    } else {
+                        // Leave the fingerprint out, so the next boot tries again
+                        setFingerprint(key, null);
+                        result.outcome = "failed (" + error + ")";
+                    }
+                }
+            } catch (RuntimeException e) {
+                result.outcome = "failed (" + e + ")";
+            }
+            result.millis = (System.nanoTime() - startNanos) / 1e6;
+            future.complete(null);
+        });
+
+        synchronized (pending) {
+            pending.add(result);
+        }
+        return future;
+    }
+
+    /**
+     * Waits for every device submitted so far to be configured, then saves the fingerprints
+     * and reports each device's time and outcome.
+     */
+    public static void awaitAll() {
+        List<Result> results;
+        synchronized (pending) {
+            results = new ArrayList<>(pending);
+            pending.clear();
+        }
+        if (results.isEmpty()) return;
+
+        long startNanos = System.nanoTime();
+        CompletableFuture.allOf(results.stream().map(result -> result.future).toArray(CompletableFuture[]::new)).join();
+        double waitMillis = (System.nanoTime() - startNanos) / 1e6;
+
+        saveFingerprints();
+
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Configured %d motor controllers, waited %.0f ms%n", results.size(), waitMillis));
+        for (Result result : results) {
+            report.append(String.format("  %-20s %-10s %6.1f ms%n", result.name, result.outcome, result.millis));
+            table.getEntry(result.name).setString(String.format("%s, %.1f ms", result.outcome, result.millis));
+            if (result.outcome.startsWith("failed")) {
+                DriverStation.reportError("Could not configure " + result.name + ": " + result.outcome, false);
+            }
+        }
+        System.out.print(report);
+    }
+
+    private static String getFingerprint(String key) {
+        synchronized (fingerprints) {
+            return fingerprints.getProperty(key);
+        }
+    }
+
+    private static void setFingerprint(String key, String fingerprint) {
+        synchronized (fingerprints) {
+            if (fingerprint == null) {
+                fingerprints.remove(key);
+            } else {
+                fingerprints.setProperty(key, fingerprint);
+            }
+        }
+    }
+
+    private static Properties loadFingerprints() {
+        Properties properties = new Properties();
+        if (!fingerprintFile.exists()) return properties;
+
+        try (Reader reader = new FileReader(fingerprintFile)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            // Every device gets configured again, which is slow but safe
+            DriverStation.reportWarning("Could not read " + fingerprintFile + ", configuring every motor controller", false);
+        }
+        return properties;
+    }
+
+    private static void saveFingerprints() {
+        Path path = fingerprintFile.toPath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            synchronized (fingerprints) {
+                try (Writer writer = new FileWriter(temporary.toFile())) {
+                    fingerprints.store(writer, "Fingerprints of the configs burned to each motor controller");
+                }
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            DriverStation.reportError("Could not write " + fingerprintFile, e.getStackTrace());
+        }
+    }
+}
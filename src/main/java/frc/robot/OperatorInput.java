@@ -0,0 +1,174 @@
+package frc.robot;
+
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.XboxController;
+import frc.robot.Constants.OIConstants;
+
+/**
+ * OperatorInput is the state of one Xbox controller, read once per loop.
+ *
+ * <p>{@link #update()} reads every axis, the buttons and the POV from the Driver Station in
+ * one go, at the start of the loop, and the rest of the robot code reads this snapshot
+ * instead of the controller. Every command and trigger sees the same sample in a cycle,
+ * and the controller costs eight Driver Station reads per loop, however many bindings
+ * there are.
+ *
+ * <p>The drive axes are shaped here too: the deadband from {@link OIConstants#kDriveDeadband},
+ * then the response curve from {@link OIConstants#kDriveResponseExponent}, and then the
+ * signs flipped so that forward, left and counterclockwise are positive.
+ */
+public final class OperatorInput {
+
+    private final int port;
+
+    // Raw values, as the Driver Station reported them this loop
+    private double leftX, leftY, rightX, rightY, leftTrigger, rightTrigger;
+    private int buttons;
+    private int pov = -1;
+
+    // Shaped drive commands, from -1 to 1
+    private double forward, strafe, turn;
+
+    /**
+     * @param port the Driver Station port the controller is plugged into
+     */
+    public OperatorInput(int port) {
+        this.port = port;
+    }
+
+    /** Reads the controller. Call this once per loop, before the scheduler runs. */
+    public void update() {
+        leftX = DriverStation.getStickAxis(port, XboxController.Axis.kLeftX.value);
+        leftY = DriverStation.getStickAxis(port, XboxController.Axis.kLeftY.value);
+        rightX = DriverStation.getStickAxis(port, XboxController.Axis.kRightX.value);
+        rightY = DriverStation.getStickAxis(port, XboxController.Axis.kRightY.value);
+        leftTrigger = DriverStation.getStickAxis(port, XboxController.Axis.kLeftTrigger.value);
+        rightTrigger = DriverStation.getStickAxis(port, XboxController.Axis.kRightTrigger.value);
+        buttons = DriverStation.getStickButtons(port);
+        pov = DriverStation.getStickPOV(port, 0);
+
+        // The sticks read negative when pushed forward or to the right
+        forward = -shape(leftY);
+        strafe = -shape(leftX);
+        turn = -shape(rightX);
+    }
+
+    /**
+     * Applies the deadband, then the response curve, keeping the sign.
+     *
+     * @param value the raw axis value, from -1 to 1
+     * @return the shaped value, from -1 to 1
+     */
+    private static double shape(double value) {
+        double deadbanded = MathUtil.applyDeadband(value, OIConstants.kDriveDeadband);
+        return Math.copySign(Math.pow(Math.abs(deadbanded), OIConstants.kDriveResponseExponent), deadbanded);
+    }
+
+    /**
+     * Returns the shaped forward command, from the left stick.
+     *
+     * @return the forward command, from -1 to 1, positive forward
+     */
+    public double getForward() {
+        return forward;
+    }
+
+    /**
+     * Returns the shaped strafe command, from the left stick.
+     *
+     * @return the strafe command, from -1 to 1, positive to the left
+     */
+    public double getStrafe() {
+        return strafe;
+    }
+
+    /**
+     * Returns the shaped turn command, from the right stick.
+     *
+     * @return the turn command, from -1 to 1, positive counterclockwise
+     */
+    public double getTurn() {
+        return turn;
+    }
+
+    // The raw axes, for logging
+
+    public double getLeftX() {
+        return leftX;
+    }
+
+    public double getLeftY() {
+        return leftY;
+    }
+
+    public double getRightX() {
+        return rightX;
+    }
+
+    public double getRightY() {
+        return rightY;
+    }
+
+    public double getLeftTriggerAxis() {
+        return leftTrigger;
+    }
+
+    public double getRightTriggerAxis() {
+        return rightTrigger;
+    }
+
+    /**
+     * Returns every button's state, as the Driver Station packs them.
+     *
+     * @return a bitmask with bit (n - 1) set while button n is held
+     */
+    public int getButtons() {
+        return buttons;
+    }
+
+    /**
+     * Returns the angle of the POV hat.
+     *
+     * @return the angle in degrees, clockwise from up, or -1 when it isn't pressed
+     */
+    public int getPOV() {
+        return pov;
+    }
+
+    /**
+     * A condition for a Trigger, true while a button is held.
+     *
+     * @param button the button
+     * @return the condition
+     */
+    public BooleanSupplier button(XboxController.Button button) {
+        int mask = 1 << (button.value - 1);
+        return () -> (buttons & mask) != 0;
+    }
+
+    /**
+     * A condition for a Trigger, true while a trigger is pulled past
+     * {@link OIConstants#kTriggerThreshold}.
+     *
+     * @param left true for the left trigger, false for the right
+     * @return the condition
+     */
+    public BooleanSupplier trigger(boolean left) {
+        return left
+            ? () -> leftTrigger > OIConstants.kTriggerThreshold
+            : () -> rightTrigger > OIConstants.kTriggerThreshold;
+    }
+
+    /**
+     * A condition for a Trigger, true while the POV hat is pushed to an angle.
+     *
+     * @param angle the angle in degrees, clockwise from up
+     * @return the condition
+     */
+    public BooleanSupplier pov(int angle) {
+        return () -> pov == angle;
+    }
+}
@@ -4,10 +4,16 @@
 
 package frc.robot;
 
+import java.lang.management.ManagementFactory;
+
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.TimedRobot;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import frc.robot.subsystems.LED.LedSubsystem;
+import frc.robot.telemetry.LoopProfiler;
+import frc.robot.telemetry.MatchLogger;
+import frc.robot.telemetry.Telemetry;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -20,6 +26,13 @@ public class Robot extends TimedRobot {
 
   private RobotContainer m_robotContainer;
   private LedSubsystem m_robotLEDs;
+  private WarmUp m_warmUp;
+
+  private final LoopProfiler.Section m_modeInitSection = LoopProfiler.section("Robot/ModeInit");
+  private final LoopProfiler.Section m_warmUpSection = LoopProfiler.section("Robot/WarmUp");
+
+  private final MatchLogger.Channel m_controllerLog = MatchLogger.channel("Driver/Controller", 8,
+      "left x, left y, right x, right y, left trigger, right trigger, button bitmask, POV");
 
   /**
    * This function is run when the robot is first started up and should be used for any
@@ -27,13 +40,25 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotInit() {
-    // Instantiate our RobotContainer.  This will perform all our button bindings, and put our
-    // autonomous chooser on the dashboard.
+    // Start recording the match to disk before anything else is constructed
+    MatchLogger.start();
+
+    // Instantiate our RobotContainer. Loading it builds the subsystems (and loads the
+    // precompiled autonomous trajectories) in parallel, then this performs all our button
+    // bindings and puts our autonomous chooser on the dashboard.
     m_robotContainer = new RobotContainer();
     m_robotLEDs = RobotContainer.m_robotLEDs;
 
+    // Every device is built now, so slow down the CAN status frames nobody reads
+    CanBandwidth.apply();
+
+    // Runs the hot code paths while disabled so they are compiled before the match starts
+    m_warmUp = new WarmUp();
+
     // Set the LEDs to red for disabled
     m_robotLEDs.setSolidColor(Constants.LedConstants.kRed);
+
+    StartupGraph.reportReady(ManagementFactory.getRuntimeMXBean().getStartTime());
   }
 
   /**
@@ -45,26 +70,110 @@ public class Robot extends TimedRobot {
    */
   @Override
   public void robotPeriodic() {
+    // Apply any tunable values that changed on the dashboard since the last loop
+    Tunables.update();
+
+    // Read the driver's controller once, for everything that runs this cycle
+    RobotContainer.m_driverInput.update();
+    logControllerInputs();
+
     // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
     // block in order for anything in the Command-based framework to work.
     CommandScheduler.getInstance().run();
+
+    // Send the NetworkTables telemetry that is due this cycle
+    Telemetry.periodic();
+
+    CanBandwidth.periodic();
+  }
+
+  /**
+   * Runs one iteration of the robot loop. The whole iteration is timed, so the mode
+   * init and periodic functions count toward the cycle and its overrun attribution, not
+   * just robotPeriodic().
+   */
+  @Override
+  protected void loopFunc() {
+    LoopProfiler.beginCycle();
+    super.loopFunc();
+    LoopProfiler.endCycle();
+  }
+
+  /**
+   * Runs one iteration of the robot loop, the same as TimedRobot does every 20 ms. Log
+   * replay and the simulation harness step the loop with this instead of waiting on the clock.
+   */
+  public void runCycle() {
+    loopFunc();
+  }
+
+  /**
+   * Returns the robot container built in robotInit().
+   *
+   * @return the robot container
+   */
+  public RobotContainer getRobotContainer() {
+    return m_robotContainer;
+  }
+
+  /**
+   * Returns the command scheduled by the last autonomousInit().
+   *
+   * @return the autonomous command, or null if autonomous has not started
+   */
+  public Command getAutonomousCommand() {
+    return m_autonomousCommand;
+  }
+
+  /** Records the driver's controller as the scheduler is about to see it this cycle. */
+  private void logControllerInputs() {
+    OperatorInput input = RobotContainer.m_driverInput;
+    double[] values = m_controllerLog.values();
+    values[0] = input.getLeftX();
+    values[1] = input.getLeftY();
+    values[2] = input.getRightX();
+    values[3] = input.getRightY();
+    values[4] = input.getLeftTriggerAxis();
+    values[5] = input.getRightTriggerAxis();
+    values[6] = input.getButtons();
+    values[7] = input.getPOV();
+    m_controllerLog.append();
+  }
+
+  /** Sends less telemetry on the field, where the radio link is shared, than in the pit. */
+  private void setEnabledTelemetryProfile() {
+    Telemetry.setProfile(DriverStation.isFMSAttached() ? Telemetry.Profile.kCompetition : Telemetry.Profile.kPitTuning);
   }
 
   /** This function is called once each time the robot enters Disabled mode. */
   @Override
   public void disabledInit() {
+    m_modeInitSection.start();
+
+    Telemetry.setProfile(Telemetry.Profile.kDisabled);
+
     // Set the LEDs to red for disabled
     m_robotLEDs.setSolidColor(Constants.LedConstants.kRed);
+
+    m_modeInitSection.stop();
   }
 
   @Override
-  public void disabledPeriodic() {}
+  public void disabledPeriodic() {
+    m_warmUpSection.start();
+    m_warmUp.run();
+    m_warmUpSection.stop();
+  }
 
   /** This autonomous runs the autonomous command selected by your {@link RobotContainer} class. */
   @Override
   public void autonomousInit() {
+    m_modeInitSection.start();
+
+    setEnabledTelemetryProfile();
+
     m_autonomousCommand = m_robotContainer.getAutonomousCommand();
 
     /*
@@ -78,6 +187,8 @@ public class Robot extends TimedRobot {
     if (m_autonomousCommand != null) {
       m_autonomousCommand.schedule();
     }
+
+    m_modeInitSection.stop();
   }
 
   /** This function is called periodically during autonomous. */
@@ -86,6 +197,10 @@ public class Robot extends TimedRobot {
 
   @Override
   public void teleopInit() {
+    m_modeInitSection.start();
+
+    setEnabledTelemetryProfile();
+
     // This makes sure that the autonomous stops running when
     // teleop starts running. If you want the autonomous to
     // continue until interrupted by another command, remove
@@ -93,6 +208,8 @@ public class Robot extends TimedRobot {
     if (m_autonomousCommand != null) {
       m_autonomousCommand.cancel();
     }
+
+    m_modeInitSection.stop();
   }
 
   /** This function is called periodically during operator control. */
@@ -101,8 +218,14 @@ public class Robot extends TimedRobot {
 
   @Override
   public void testInit() {
+    m_modeInitSection.start();
+
+    setEnabledTelemetryProfile();
+
     // Cancels all running commands at the start of test mode.
     CommandScheduler.getInstance().cancelAll();
+
+    m_modeInitSection.stop();
   }
 
   /** This function is called periodically during test mode. */
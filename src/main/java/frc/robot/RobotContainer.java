@@ -4,37 +4,31 @@
 
 package frc.robot;
 
-import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.controller.ProfiledPIDController;
-import edu.wpi.first.math.geometry.Pose2d;
-import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.trajectory.Trajectory;
-import edu.wpi.first.math.trajectory.TrajectoryConfig;
-import edu.wpi.first.math.trajectory.TrajectoryGenerator;
 import edu.wpi.first.wpilibj.XboxController;
-import edu.wpi.first.wpilibj.XboxController.Button;
 import frc.robot.Constants.AutoConstants;
 import frc.robot.Constants.DriveConstants;
 import frc.robot.Constants.OIConstants;
+import frc.robot.auto.AutoTrajectories;
+import frc.robot.auto.TrajectoryCache;
 import frc.robot.commands.AutoAim;
 import frc.robot.subsystems.ClimbingSubsystem;
 import frc.robot.subsystems.IntakeSubsystem;
 import frc.robot.subsystems.ShootingSubsystem;
-import frc.robot.subsystems.VisionSubsystem;
+import frc.robot.subsystems.Vision.VisionSubsystem;
 import frc.robot.subsystems.Drive.DriveSubsystem;
+import frc.robot.subsystems.Drive.SwerveDriveSim;
 import frc.robot.subsystems.LED.Animate;
 import frc.robot.subsystems.LED.CANdleColor;
 import frc.robot.subsystems.LED.LedSubsystem;
+import frc.robot.telemetry.LoopProfiler;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.RunCommand;
 import edu.wpi.first.wpilibj2.command.SwerveControllerCommand;
-import edu.wpi.first.wpilibj2.command.button.JoystickButton;
 import edu.wpi.first.wpilibj2.command.button.Trigger;
 
-import java.util.List;
-
 /*
  * This class is where the bulk of the robot should be declared.  Since Command-based is a
  * "declarative" paradigm, very little robot logic should actually be handled in the {@link Robot}
@@ -42,16 +36,36 @@ import java.util.List;
  * (including subsystems, commands, and button mappings) should be declared here.
  */
 public class RobotContainer {
-  // The robot's subsystems
-  public static final DriveSubsystem m_robotDrive = new DriveSubsystem();
-  protected static final LedSubsystem m_robotLEDs = new LedSubsystem(); // protected so it can be used by robot.java
-  private static final ShootingSubsystem m_robotShooter = new ShootingSubsystem();
-  private static final IntakeSubsystem m_robotIntake = new IntakeSubsystem();
-  private static final ClimbingSubsystem m_robotClimbers = new ClimbingSubsystem();
-  public static final VisionSubsystem m_robotVision = new VisionSubsystem();
+  // The physics model of the drivetrain, when not running on the robot
+  public static final SwerveDriveSim m_driveSim;
+
+  // The robot's subsystems, on real hardware or on simulated hardware
+  public static final DriveSubsystem m_robotDrive;
+  protected static final LedSubsystem m_robotLEDs; // protected so it can be used by robot.java
+  private static final ShootingSubsystem m_robotShooter;
+  private static final IntakeSubsystem m_robotIntake;
+  private static final ClimbingSubsystem m_robotClimbers;
+  public static final VisionSubsystem m_robotVision;
+
+  static {
+    // Build the subsystems, with their hardware coming up in parallel (see RobotStartup)
+    RobotStartup startup = new RobotStartup();
+    startup.run();
+
+    m_driveSim = startup.driveSim.get();
+    m_robotDrive = startup.drive.get();
+    m_robotLEDs = startup.leds.get();
+    m_robotShooter = startup.shooter.get();
+    m_robotIntake = startup.intake.get();
+    m_robotClimbers = startup.climbers.get();
+    m_robotVision = startup.vision.get();
+  }
+
+  // The driver's controller, read once per loop by Robot
+  public static final OperatorInput m_driverInput = new OperatorInput(OIConstants.kDriverControllerPort);
 
-  // The driver's controller
-  public static final XboxController m_driverController = new XboxController(OIConstants.kDriverControllerPort);
+  // The LED color currently selected on the dashboard
+  private CANdleColor m_dashboardColor;
 
   /**
    * The container for the robot. Contains subsystems, OI devices, and commands.
@@ -62,42 +76,49 @@ public class RobotContainer {
     configureOtherTriggers();
 
     // Configure default commands
-    m_robotDrive.setDefaultCommand(
+    m_robotDrive.setDefaultCommand(LoopProfiler.timed("DriveWithJoysticks",
         // The left stick controls translation of the robot.
         // Turning is controlled by the X axis of the right stick.
         new RunCommand(
             () -> m_robotDrive.drive(
-                -MathUtil.applyDeadband(m_driverController.getLeftY(), OIConstants.kDriveDeadband),
-                -MathUtil.applyDeadband(m_driverController.getLeftX(), OIConstants.kDriveDeadband),
-                -MathUtil.applyDeadband(m_driverController.getRightX(), OIConstants.kDriveDeadband),
+                m_driverInput.getForward(),
+                m_driverInput.getStrafe(),
+                m_driverInput.getTurn(),
                 true, true),
-            m_robotDrive));
+            m_robotDrive)));
 
     // Defaults for shooter, intake, and climbers are to do nothing
-    m_robotIntake.setDefaultCommand(
+    m_robotIntake.setDefaultCommand(LoopProfiler.timed("IntakeIdle",
     new RunCommand(
         () -> m_robotIntake.deactivateIntake(),
         m_robotIntake)
-    );
-    m_robotShooter.setDefaultCommand(
+    ));
+    m_robotShooter.setDefaultCommand(LoopProfiler.timed("ShooterIdle",
         new RunCommand(
             () -> m_robotShooter.deactivateShooter(),
             m_robotShooter
         )
-    );
-    m_robotClimbers.setDefaultCommand(
+    ));
+    m_robotClimbers.setDefaultCommand(LoopProfiler.timed("ClimbersIdle",
         new RunCommand(
             () -> m_robotClimbers.stopClimbers(),
             m_robotClimbers
         )
-    );
+    ));
 
-    m_robotLEDs.setDefaultCommand(
+    // Rebuild the dashboard LED color only when one of the sliders moves
+    Tunables.onChange(
+        () -> m_dashboardColor = new CANdleColor(
+            Tunables.MainTab.r.getAsInt(), Tunables.MainTab.g.getAsInt(),
+            Tunables.MainTab.b.getAsInt(), Tunables.MainTab.w.getAsInt()),
+        Tunables.MainTab.r, Tunables.MainTab.g, Tunables.MainTab.b, Tunables.MainTab.w);
+
+    m_robotLEDs.setDefaultCommand(LoopProfiler.timed("DashboardColor",
         new RunCommand(
-            () -> m_robotLEDs.setSolidColor(new CANdleColor((int) Dashboard.MainTab.rEntry.getInteger(0), (int) Dashboard.MainTab.gEntry.getInteger(0), (int) Dashboard.MainTab.bEntry.getInteger(0), (int) Dashboard.MainTab.wEntry.getInteger(0))),
+            () -> m_robotLEDs.setSolidColor(m_dashboardColor),
             m_robotLEDs
         )
-    );
+    ));
   }
 
 
@@ -108,54 +129,60 @@ public class RobotContainer {
    * subclasses ({@link
    * edu.wpi.first.wpilibj.Joystick} or {@link XboxController}), and then calling
    * passing it to a
-   * {@link JoystickButton}.
+   * {@link edu.wpi.first.wpilibj2.command.button.JoystickButton}.
+   *
+   * <p>Conditions read {@link #m_driverInput}, the controller snapshot taken at the start
+   * of the loop, so every binding sees the same sample; the Triggers do the edge detection.
+   *
+   * <p>Every condition and command is wrapped in {@link LoopProfiler#timed}, so each
+   * one shows up under its own name in the loop timing report.
    */
   private void configureButtonBindings() {
     // Automatically aim the robot towards the aprilTag with ID 1, if visible
-    new JoystickButton(m_driverController, Button.kRightBumper.value)
-        .whileTrue(new AutoAim(1, .5));
+    new Trigger(LoopProfiler.timed("RightBumper", m_driverInput.button(XboxController.Button.kRightBumper)))
+        .whileTrue(LoopProfiler.timed("AutoAim", new AutoAim(1, .5)));
 
     // Reverse shooter and intake while left bumper is engaged
-    new JoystickButton(m_driverController, Button.kLeftBumper.value)
-        .whileTrue(new RunCommand(
+    new Trigger(LoopProfiler.timed("LeftBumper", m_driverInput.button(XboxController.Button.kLeftBumper)))
+        .whileTrue(LoopProfiler.timed("Reverse", new RunCommand(
             () -> {m_robotIntake.reverseIntake(); m_robotShooter.reverseShooter();},
             m_robotIntake, m_robotShooter
-        ));
+        )));
 
     // Reset gyro by pressing right stick
-    new JoystickButton(m_driverController, Button.kRightStick.value)
-        .onTrue(new RunCommand(
+    new Trigger(LoopProfiler.timed("RightStick", m_driverInput.button(XboxController.Button.kRightStick)))
+        .onTrue(LoopProfiler.timed("ZeroHeading", new RunCommand(
             () -> m_robotDrive.zeroHeading(),
-            m_robotDrive));
+            m_robotDrive)));
 
     // Left trigger activates intake, right trigger: intake and shooter
     // For some reason, JoystickButton doesn't recognize the triggers axes,
     // so we have to bind the triggers differently
-    new Trigger(() -> m_driverController.getLeftTriggerAxis() > .5)
-        .whileTrue(new RunCommand(
+    new Trigger(LoopProfiler.timed("LeftTrigger", m_driverInput.trigger(true)))
+        .whileTrue(LoopProfiler.timed("Intake", new RunCommand(
             () -> m_robotIntake.activateIntake(),
             m_robotIntake
-        ));
+        )));
     
-    new Trigger(() -> m_driverController.getRightTriggerAxis() > .5)
-        .whileTrue(new RunCommand(
+    new Trigger(LoopProfiler.timed("RightTrigger", m_driverInput.trigger(false)))
+        .whileTrue(LoopProfiler.timed("Shoot", new RunCommand(
             () -> {m_robotShooter.activateShooter(); m_robotIntake.activateIntake();} ,
             m_robotShooter, m_robotIntake
-        ));
+        )));
 
     // Up on the POV raises the climbers
-    new Trigger(() -> m_driverController.getPOV() == 0)
-        .whileTrue(new RunCommand(
+    new Trigger(LoopProfiler.timed("PovUp", m_driverInput.pov(0)))
+        .whileTrue(LoopProfiler.timed("RaiseClimbers", new RunCommand(
             () -> m_robotClimbers.raiseClimbers(),
             m_robotClimbers
-        ));
+        )));
     
     // Down on the POV lowers the climbers
-    new Trigger(() -> m_driverController.getPOV() == 180)
-        .whileTrue(new RunCommand(
+    new Trigger(LoopProfiler.timed("PovDown", m_driverInput.pov(180)))
+        .whileTrue(LoopProfiler.timed("LowerClimbers", new RunCommand(
             () -> m_robotClimbers.lowerClimbers(),
             m_robotClimbers
-        ));
+        )));
 
   }
 
@@ -166,16 +193,16 @@ public class RobotContainer {
   private void configureOtherTriggers() {
 
     // If the robot moves, set the LEDs to a dashed electric blue pattern
-    new Trigger(() -> m_robotDrive.getModuleSpeed() > 0)
-        .whileTrue(new Animate(m_robotLEDs, Constants.LedConstants.kEBlueDashed1, Constants.LedConstants.kEBlueDashed2));
+    new Trigger(LoopProfiler.timed("Moving", () -> m_robotDrive.getModuleSpeed() > 0))
+        .whileTrue(LoopProfiler.timed("MovingLeds", new Animate(m_robotLEDs, Constants.LedConstants.kDrivingAnimation, Constants.LedConstants.kEBlueDashed1, Constants.LedConstants.kEBlueDashed2)));
 
     // If the robot is raising its climbers, set the LEDs to a yellow dashed "up" pattern
-    new Trigger(() -> m_robotClimbers.getMovement() == 1)
-        .whileTrue(new Animate(m_robotLEDs, Constants.LedConstants.kYellowDashed5, Constants.LedConstants.kYellowDashed4, Constants.LedConstants.kYellowDashed3, Constants.LedConstants.kYellowDashed2, Constants.LedConstants.kYellowDashed1));
+    new Trigger(LoopProfiler.timed("ClimbersRaising", () -> m_robotClimbers.getMovement() == 1))
+        .whileTrue(LoopProfiler.timed("ClimbUpLeds", new Animate(m_robotLEDs, Constants.LedConstants.kClimbUpAnimation, Constants.LedConstants.kYellowDashed5, Constants.LedConstants.kYellowDashed4, Constants.LedConstants.kYellowDashed3, Constants.LedConstants.kYellowDashed2, Constants.LedConstants.kYellowDashed1)));
 
     // If the robot is lowering its climbers, set the LEDs to a yellow dashed "down" pattern
-    new Trigger(() -> m_robotClimbers.getMovement() == -1)
-        .whileTrue(new Animate(m_robotLEDs, Constants.LedConstants.kYellowDashed1, Constants.LedConstants.kYellowDashed2, Constants.LedConstants.kYellowDashed3, Constants.LedConstants.kYellowDashed4, Constants.LedConstants.kYellowDashed5));
+    new Trigger(LoopProfiler.timed("ClimbersLowering", () -> m_robotClimbers.getMovement() == -1))
+        .whileTrue(LoopProfiler.timed("ClimbDownLeds", new Animate(m_robotLEDs, Constants.LedConstants.kClimbDownAnimation, Constants.LedConstants.kYellowDashed1, Constants.LedConstants.kYellowDashed2, Constants.LedConstants.kYellowDashed3, Constants.LedConstants.kYellowDashed4, Constants.LedConstants.kYellowDashed5)));
   }
 
 
@@ -185,22 +212,7 @@ public class RobotContainer {
    * @return the command to run in autonomous
    */
   public Command getAutonomousCommand() {
-    // Create config for trajectory
-    TrajectoryConfig config = new TrajectoryConfig(
-        AutoConstants.kMaxSpeedMetersPerSecond,
-        AutoConstants.kMaxAccelerationMetersPerSecondSquared)
-        // Add kinematics to ensure max speed is actually obeyed
-        .setKinematics(DriveConstants.kDriveKinematics);
-
-    // An example trajectory to follow. All units in meters.
-    Trajectory exampleTrajectory = TrajectoryGenerator.generateTrajectory(
-        // Start at the origin facing the +X direction
-        new Pose2d(0, 0, new Rotation2d(0)),
-        // Pass through these two interior waypoints, making an 's' curve path
-        List.of(new Translation2d(1, 1), new Translation2d(2, -1)),
-        // End 3 meters straight ahead of where we started, facing forward
-        new Pose2d(3, 0, new Rotation2d(0)),
-        config);
+    Trajectory exampleTrajectory = getAutonomousTrajectory();
 
     var thetaController = new ProfiledPIDController(
         AutoConstants.kPThetaController, 0, 0, AutoConstants.kThetaControllerConstraints);
@@ -224,4 +236,13 @@ public class RobotContainer {
     // Run path following command, then stop at the end.
     return swerveControllerCommand.andThen(() -> m_robotDrive.drive(0, 0, 0, false, false));
   }
+
+  /**
+   * Returns the trajectory the autonomous command follows, from the precompiled cache.
+   *
+   * @return the autonomous trajectory
+   */
+  public Trajectory getAutonomousTrajectory() {
+    return TrajectoryCache.get(AutoTrajectories.kSCurve);
+  }
 }
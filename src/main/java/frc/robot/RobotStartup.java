@@ -0,0 +1,124 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.LedConstants;
+import frc.robot.Constants.StartupConstants;
+import frc.robot.Constants.VisionConstants;
+import frc.robot.StartupGraph.Phase;
+import frc.robot.auto.TrajectoryCache;
+import frc.robot.subsystems.ClimberIO;
+import frc.robot.subsystems.ClimberIOSim;
+import frc.robot.subsystems.ClimberIOSparkMax;
+import frc.robot.subsystems.ClimbingSubsystem;
+import frc.robot.subsystems.IntakeIO;
+import frc.robot.subsystems.IntakeIOPWM;
+import frc.robot.subsystems.IntakeIOSim;
+import frc.robot.subsystems.IntakeSubsystem;
+import frc.robot.subsystems.ShooterIO;
+import frc.robot.subsystems.ShooterIOSim;
+import frc.robot.subsystems.ShooterIOSparkMax;
+import frc.robot.subsystems.ShootingSubsystem;
+import frc.robot.subsystems.Drive.DriveSubsystem;
+import frc.robot.subsystems.Drive.GyroIO;
+import frc.robot.subsystems.Drive.GyroIOPigeon2;
+import frc.robot.subsystems.Drive.ModuleIO;
+import frc.robot.subsystems.Drive.SwerveDriveSim;
+import frc.robot.subsystems.LED.LedIO;
+import frc.robot.subsystems.LED.LedIOCANdle;
+import frc.robot.subsystems.LED.LedIOSim;
+import frc.robot.subsystems.LED.LedSubsystem;
+import frc.robot.subsystems.Vision.CameraIO;
+import frc.robot.subsystems.Vision.CameraIOSim;
+import frc.robot.subsystems.Vision.CameraIngest;
+import frc.robot.subsystems.Vision.CameraMount;
+import frc.robot.subsystems.Vision.VisionSubsystem;
+
+/**
+ * The startup graph of the robot's subsystems, run once by {@link RobotContainer}.
+ *
+ * <p>Each subsystem's hardware is built in the background, alongside the others, and the
+ * subsystem itself is built on the main thread once its hardware is ready. The LEDs come
+ * first, and show startup progress as a bar along the strip while the rest comes up.
+ *
+ * <p>This lives outside RobotContainer on purpose: the graph runs inside RobotContainer's
+ * static initializer, so background phases must not touch RobotContainer at all.
+ */
+final class RobotStartup {
+
+    private final StartupGraph graph = new StartupGraph();
+
+    final Phase<LedSubsystem> leds;
+    final Phase<SwerveDriveSim> driveSim;
+    final Phase<DriveSubsystem> drive;
+    final Phase<ShootingSubsystem> shooter;
+    final Phase<IntakeSubsystem> intake;
+    final Phase<ClimbingSubsystem> climbers;
+    final Phase<VisionSubsystem> vision;
+
+    RobotStartup() {
+        boolean real = RobotBase.isReal();
+
+        Phase<LedIO> ledIO = graph.background("LedIO", () -> real ? new LedIOCANdle() : new LedIOSim());
+        leds = graph.onMainThread("LEDs", () -> new LedSubsystem(ledIO.get()), ledIO);
+
+        // The Shuffleboard layout is built when Tunables is first loaded
+        Phase<Object> dashboard = graph.background("Dashboard", () -> Tunables.MainTab.maxSpeed);
+        graph.background("Trajectories", () -> {
+            TrajectoryCache.load();
+            return null;
+        });
+
+        // The physics model of the drivetrain, when not running on the robot
+        driveSim = graph.background("DriveSim", () -> real ? null : new SwerveDriveSim());
+        Phase<ModuleIO[]> modules = graph.background("DriveModules", () -> real
+            ? DriveSubsystem.createRealModules()
+            : new ModuleIO[] {driveSim.get().getModule(0), driveSim.get().getModule(1), driveSim.get().getModule(2), driveSim.get().getModule(3)},
+            driveSim);
+        Phase<GyroIO> gyro = graph.background("Gyro", () -> real ? new GyroIOPigeon2(DriveConstants.kGyroCanId) : driveSim.get().getGyro(), driveSim);
+        drive = graph.onMainThread("Drive", () -> real
+            ? new DriveSubsystem(gyro.get(), modules.get()[0], modules.get()[1], modules.get()[2], modules.get()[3])
+            : new DriveSubsystem(driveSim.get()),
+            modules, gyro, dashboard);
+
+        Phase<ShooterIO> shooterIO = graph.background("ShooterIO", () -> real ? new ShooterIOSparkMax() : new ShooterIOSim());
+        shooter = graph.onMainThread("Shooter", () -> new ShootingSubsystem(shooterIO.get()), shooterIO, dashboard);
+
+        Phase<IntakeIO> intakeIO = graph.background("IntakeIO", () -> real ? new IntakeIOPWM() : new IntakeIOSim());
+        intake = graph.onMainThread("Intake", () -> new IntakeSubsystem(intakeIO.get()), intakeIO);
+
+        Phase<ClimberIO> climberIO = graph.background("ClimberIO", () -> real ? new ClimberIOSparkMax() : new ClimberIOSim());
+        climbers = graph.onMainThread("Climbers", () -> new ClimbingSubsystem(climberIO.get()), climberIO, dashboard);
+
+        Phase<List<CameraIO>> cameraIO = graph.background("CameraIO", () -> {
+            List<CameraIO> cameras = new ArrayList<>();
+            for (CameraMount mount : VisionConstants.kCameras) {
+                cameras.add(real ? new CameraIngest(mount) : new CameraIOSim(mount, driveSim.get()::getPose));
+            }
+            return cameras;
+        }, driveSim);
+        // On the robot each camera is processed on its own thread, in simulation in the loop
+        vision = graph.onMainThread("Vision", () -> new VisionSubsystem(cameraIO.get(), drive.get()::addVisionMeasurement), cameraIO, drive);
+    }
+
+    /** Builds everything, and waits until it's done. */
+    void run() {
+        graph.run(this::showProgress);
+    }
+
+    /** Lights the part of the strip that matches the fraction of startup that is done. */
+    private void showProgress(double fraction) {
+        if (!leds.isDone()) return;
+
+        LedSubsystem strip = leds.get();
+        int lit = (int) Math.round(fraction * LedConstants.kNumLeds);
+        strip.setColor(StartupConstants.kProgressColor, 0, lit);
+        strip.setColor(LedConstants.kBlack, lit, LedConstants.kNumLeds - lit);
+
+        // The scheduler isn't running yet, so send the frame by hand
+        strip.periodic();
+    }
+}
@@ -0,0 +1,188 @@
+package frc.robot;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.revrobotics.CANSparkBase.IdleMode;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.REVLibError;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+
+/**
+ * The settings a SPARK MAX should have, using its built-in encoder as the feedback device.
+ * Every setting here is saved to the SPARK MAX's flash by {@link #apply(CANSparkMax)}.
+ *
+ * <p>Settings are chained, e.g. {@code new SparkMaxConfig().inverted(true).idleMode(IdleMode.kBrake)}.
+ * Anything not set keeps its factory default. A config should not be changed once it has
+ * been handed to {@link MotorConfigurator}.
+ */
+public final class SparkMaxConfig {
+
+    // Bump this when apply() changes, so every device is configured again
+    private static final int kVersion = 1;
+
+    private boolean inverted = false;
+    private IdleMode idleMode = IdleMode.kCoast;
+    private int smartCurrentLimit = 80;
+    private double positionConversionFactor = 1;
+    private double velocityConversionFactor = 1;
+    private double p = 0, i = 0, d = 0, ff = 0;
+    private double minOutput = -1, maxOutput = 1;
+    private boolean positionWrapping = false;
+    private double positionWrappingMin = 0, positionWrappingMax = 0;
+
+    public SparkMaxConfig inverted(boolean inverted) {
+        this.inverted = inverted;
+        return this;
+    }
+
+    public SparkMaxConfig idleMode(IdleMode idleMode) {
+        this.idleMode = idleMode;
+        return this;
+    }
+
+    /**
+     * @param amps the smart current limit (A)
+     * @return this config, for chaining
+     */
+    public SparkMaxConfig smartCurrentLimit(int amps) {
+        this.smartCurrentLimit = amps;
+        return this;
+    }
+
+    /**
+     * @param position the encoder position factor, from rotations
+     * @param velocity the encoder velocity factor, from RPM
+     * @return this config, for chaining
+     */
+    public SparkMaxConfig encoderConversion(double position, double velocity) {
+        this.positionConversionFactor = position;
+        this.velocityConversionFactor = velocity;
+        return this;
+    }
+
+    public SparkMaxConfig pidf(double p, double i, double d, double ff) {
+        this.p = p;
+        this.i = i;
+        this.d = d;
+        this.ff = ff;
+        return this;
+    }
+
+    public SparkMaxConfig outputRange(double min, double max) {
+        this.minOutput = min;
+        this.maxOutput = max;
+        return this;
+    }
+
+    /**
+     * Lets the onboard position loop go through the wrap point, e.g. from 350 degrees to
+     * 10 degrees through 0.
+     *
+     * @param min the lowest position, in converted units
+     * @param max the highest position, in converted units
+     * @return this config, for chaining
+     */
+    public SparkMaxConfig positionWrapping(double min, double max) {
+        this.positionWrapping = true;
+        this.positionWrappingMin = min;
+        this.positionWrappingMax = max;
+        return this;
+    }
+
+    /**
+     * Factory resets the SPARK MAX, applies every setting, and burns them to flash.
+     *
+     * @param spark the SPARK MAX
+     * @return the result of the burn, which fails if any setting didn't take
+     */
+    REVLibError apply(CANSparkMax spark) {
+        // Factory reset, so we get the SPARK MAX to a known state before configuring
+        // it. This is useful in case a SPARK MAX is swapped out.
+        spark.restoreFactoryDefaults();
+
+        spark.setInverted(inverted);
+        spark.setIdleMode(idleMode);
+        spark.setSmartCurrentLimit(smartCurrentLimit);
+
+        RelativeEncoder encoder = spark.getEncoder();
+        encoder.setPositionConversionFactor(positionConversionFactor);
+        encoder.setVelocityConversionFactor(velocityConversionFactor);
+
+        SparkPIDController pid = spark.getPIDController();
+        pid.setFeedbackDevice(encoder);
+        pid.setP(p);
+        pid.setI(i);
+        pid.setD(d);
+        pid.setFF(ff);
+        pid.setOutputRange(minOutput, maxOutput);
+        pid.setPositionPIDWrappingEnabled(positionWrapping);
+        if (positionWrapping) {
+            pid.setPositionPIDWrappingMinInput(positionWrappingMin);
+            pid.setPositionPIDWrappingMaxInput(positionWrappingMax);
+        }
+
+        // Save the configuration. If the SPARK MAX browns out during operation, it will
+        // maintain the above configuration.
+        return spark.burnFlash();
+    }
+
+    /**
+     * Reads a few settings back from the SPARK MAX and checks them against this config.
+     * This catches a controller that was swapped or factory reset since it was last
+     * configured, without reading every parameter.
+     *
+     * @param spark the SPARK MAX
+     * @return true if the settings read back match
+     */
+    boolean matches(CANSparkMax spark) {
+        RelativeEncoder encoder = spark.getEncoder();
+        SparkPIDController pid = spark.getPIDController();
+
+        // The SPARK MAX stores its parameters as floats
+        return spark.getInverted() == inverted
+            && spark.getIdleMode() == idleMode
+            && (float) encoder.getPositionConversionFactor() == (float) positionConversionFactor
+            && (float) encoder.getVelocityConversionFactor() == (float) velocityConversionFactor
+            && (float) pid.getP() == (float) p
+            && (float) pid.getFF() == (float) ff
+            && pid.getPositionPIDWrappingEnabled() == positionWrapping;
+    }
+
+    /**
+     * Hashes every setting, so a device can be checked against the config that is running.
+     *
+     * @return the fingerprint of this config
+     */
+    long fingerprint() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(kVersion);
+                out.writeBoolean(inverted);
+                out.writeUTF(idleMode.name());
+                out.writeInt(smartCurrentLimit);
+                out.writeDouble(positionConversionFactor);
+                out.writeDouble(velocityConversionFactor);
+                out.writeDouble(p);
+                out.writeDouble(i);
+                out.writeDouble(d);
+                out.writeDouble(ff);
+                out.writeDouble(minOutput);
+                out.writeDouble(maxOutput);
+                out.writeBoolean(positionWrapping);
+                out.writeDouble(positionWrappingMin);
+                out.writeDouble(positionWrappingMax);
+            }
+            return ByteBuffer.wrap(digest.digest(bytes.toByteArray())).getLong();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Could not hash the SPARK MAX config", e);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.DoubleConsumer;
+
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import frc.robot.Constants.StartupConstants;
+
+/**
+ * A StartupGraph builds the robot in phases, running independent phases at the same time.
+ *
+ * <p>Each phase names the phases it needs, and starts as soon as they have all finished.
+ * Background phases run on a small thread pool. They are meant for the slow part of startup:
+ * constructing and configuring hardware, which mostly waits on the CAN bus. Main-thread
+ * phases run on the thread that called {@link #run(DoubleConsumer)}. Anything that isn't
+ * thread safe, like constructing a subsystem (which registers it with the
+ * CommandScheduler), belongs there.
+ *
+ * <p>Background phases must not touch a class whose static initializer is what is running
+ * the graph; the JVM would block them until it finishes, which it never does.
+ *
+ * <p>When the graph is done, every phase's start and end time is printed and published to
+ * NetworkTables under /Startup/Timeline, as [start, end] in milliseconds.
+ */
+public final class StartupGraph {
+
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("Startup");
+
+    private final List<Phase<?>> phases = new ArrayList<>();
+    private final LinkedBlockingQueue<Phase<?>> mainThreadQueue = new LinkedBlockingQueue<>();
+    private long startNanos;
+
+    /**
+     * One step of startup.
+     *
+     * @param <T> what the phase builds
+     */
+    public static final class Phase<T> {
+        private final String name;
+        private final Callable<T> work;
+        private final boolean onMainThread;
+        private final Phase<?>[] dependencies;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        private volatile long beginNanos;
+        private volatile long endNanos;
+        private volatile String threadName;
+
+        private Phase(String name, Callable<T> work, boolean onMainThread, Phase<?>[] dependencies) {
+            this.name = name;
+            this.work = work;
+            this.onMainThread = onMainThread;
+            this.dependencies = dependencies;
+        }
+
+        private void execute() {
+            threadName = Thread.currentThread().getName();
+            beginNanos = System.nanoTime();
+            T value;
+            try {
+                value = work.call();
+            } catch (Throwable e) {
+                endNanos = System.nanoTime();
+                result.completeExceptionally(new IllegalStateException("Startup phase " + name + " failed", e));
+                return;
+            }
+            // Timed before completing, so the report never sees a finished phase without an end
+            endNanos = System.nanoTime();
+            result.complete(value);
+        }
+
+        /**
+         * Returns what the phase built. Only call this from a phase that depends on this
+         * one, or once the graph has run.
+         *
+         * @return the phase's result
+         */
+        public T get() {
+            return result.join();
+        }
+
+        /**
+         * Returns whether the phase has finished, successfully or not.
+         *
+         * @return true if the phase is done
+         */
+        public boolean isDone() {
+            return result.isDone();
+        }
+    }
+
+    /**
+     * Adds a phase that runs on the startup thread pool.
+     *
+     * @param name the name to report the phase under
+     * @param work builds the phase's result
+     * @param dependencies the phases that must finish first
+     * @return the phase
+     */
+    public <T> Phase<T> background(String name, Callable<T> work, Phase<?>... dependencies) {
+        return add(new Phase<>(name, work, false, dependencies));
+    }
+
+    /**
+     * Adds a phase that runs on the thread that runs the graph.
+     *
+     * @param name the name to report the phase under
+     * @param work builds the phase's result
+     * @param dependencies the phases that must finish first
+     * @return the phase
+     */
+    public <T> Phase<T> onMainThread(String name, Callable<T> work, Phase<?>... dependencies) {
+        return add(new Phase<>(name, work, true, dependencies));
+    }
+
+    private <T> Phase<T> add(Phase<T> phase) {
+        phases.add(phase);
+        return phase;
+    }
+
+    /**
+     * Runs every phase and waits for all of them. Phases start in the order they were added
+     * once their dependencies are done, so add the ones that should come up first, first.
+     *
+     * @param progress called on this thread with the fraction of phases done, after each
+     *     main-thread phase and at least every {@link StartupConstants#kProgressPeriodSeconds}
+     * @throws IllegalStateException if a phase failed
+     */
+    public void run(DoubleConsumer progress) {
+        startNanos = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(StartupConstants.kThreads, runnable -> {
+            Thread thread = new Thread(runnable, "Startup");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        for (Phase<?> phase : phases) {
+            CompletableFuture<?>[] dependencies = new CompletableFuture<?>[phase.dependencies.length];
+            for (int i = 0; i < dependencies.length; i++) dependencies[i] = phase.dependencies[i].result;
+
+            CompletableFuture.allOf(dependencies).whenComplete((ignored, error) -> {
+                if (error != null) {
+                    // Don't build on a phase that failed
+                    phase.result.completeExceptionally(error);
+                } else if (phase.onMainThread) {
+                    mainThreadQueue.add(phase);
+                } else {
+                    executor.execute(phase::execute);
+                }
+            });
+        }
+
+        long periodMillis = (long) (StartupConstants.kProgressPeriodSeconds * 1000);
+        int done;
+        while ((done = countDone()) < phases.size()) {
+            progress.accept((double) done / phases.size());
+            try {
+                Phase<?> phase = mainThreadQueue.poll(periodMillis, TimeUnit.MILLISECONDS);
+                if (phase != null) phase.execute();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while starting the robot", e);
+            }
+        }
+        progress.accept(1.0);
+        executor.shutdown();
+
+        report();
+
+        for (Phase<?> phase : phases) {
+            try {
+                phase.result.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException cause ? cause : e;
+            }
+        }
+    }
+
+    private int countDone() {
+        int done = 0;
+        for (Phase<?> phase : phases) {
+            if (phase.isDone()) done++;
+        }
+        return done;
+    }
+
+    /** Prints and publishes when each phase ran. */
+    private void report() {
+        NetworkTable timeline = table.getSubTable("Timeline");
+        List<Phase<?>> ran = new ArrayList<>();
+        for (Phase<?> phase : phases) {
+            if (phase.threadName != null) ran.add(phase);
+        }
+        ran.sort(Comparator.comparingLong(phase -> phase.beginNanos));
+
+        double totalMillis = (System.nanoTime() - startNanos) / 1e6;
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("Built the robot in %.0f ms%n", totalMillis));
+        for (Phase<?> phase : ran) {
+            double begin = (phase.beginNanos - startNanos) / 1e6;
+            double end = (phase.endNanos - startNanos) / 1e6;
+            report.append(String.format("  %-14s %7.1f -> %7.1f ms  (%s)%n", phase.name, begin, end, phase.threadName));
+            timeline.getEntry(phase.name).setDoubleArray(new double[] {begin, end});
+        }
+        table.getEntry("GraphMs").setDouble(totalMillis);
+        System.out.print(report);
+    }
+
+    /**
+     * Publishes how long robot code took to be ready, from JVM start.
+     *
+     * @param jvmStartMillis when the JVM started, in milliseconds since the epoch
+     */
+    public static void reportReady(long jvmStartMillis) {
+        double readyMillis = System.currentTimeMillis() - jvmStartMillis;
+        table.getEntry("ReadyMs").setDouble(readyMillis);
+        System.out.printf("Robot code ready %.0f ms after the JVM started%n", readyMillis);
+    }
+}
@@ -0,0 +1,163 @@
+package frc.robot;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import edu.wpi.first.networktables.GenericEntry;
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+import frc.robot.Constants.*;
+
+/**
+ * This class caches the tunable values from the {@link Dashboard} so the robot code
+ * does not have to poll NetworkTables every loop. It is arranged like the Dashboard class,
+ * with nested classes for each tab. To read a value, simply call
+ * <b>Tunables.[tabname].[itemname].get()</b>, which returns a plain cached double.
+ *
+ * <p>Each tunable is backed by a NetworkTables listener that updates the cached value
+ * when the entry changes. Code that needs to react to a change (e.g. pushing new PID gains
+ * to the motor controllers) registers with {@link #onChange(Runnable, TunableDouble...)}.
+ * Those callbacks are run on the main robot thread by {@link #update()}, and only when at
+ * least one of their values actually changed.
+ */
+public final class Tunables {
+
+    private static final List<TunableDouble> tunables = new ArrayList<>();
+    private static final List<ChangeListener> listeners = new ArrayList<>();
+
+    private Tunables() {}
+
+    /**
+     * A double-valued tunable parameter backed by a dashboard entry.
+     */
+    public static final class TunableDouble {
+        private volatile double value;
+
+        // Set by the NetworkTables listener thread, consumed by update() on the main thread
+        private final AtomicBoolean dirty = new AtomicBoolean(false);
+        private boolean changed = false;
+
+        private TunableDouble(GenericEntry entry, double defaultValue) {
+            value = toDouble(entry.get(), defaultValue);
+
+            NetworkTableInstance.getDefault().addListener(
+                entry,
+                EnumSet.of(NetworkTableEvent.Kind.kValueAll),
+                event -> {
+                    double newValue = toDouble(event.valueData.value, value);
+                    if (newValue != value) {
+                        value = newValue;
+                        dirty.set(true);
+                    }
+                });
+
+            tunables.add(this);
+        }
+
+        /**
+         * Returns the cached value of the parameter.
+         *
+         * @return the current value
+         */
+        public double get() {
+            return value;
+        }
+
+        /**
+         * Returns the cached value of the parameter, truncated to an int.
+         *
+         * @return the current value as an int
+         */
+        public int getAsInt() {
+            return (int) value;
+        }
+    }
+
+    private static final class ChangeListener {
+        private final Runnable action;
+        private final TunableDouble[] tunables;
+
+        private ChangeListener(Runnable action, TunableDouble[] tunables) {
+            this.action = action;
+            this.tunables = tunables;
+        }
+    }
+
+    public static final class MainTab {
+        public static final TunableDouble maxSpeed = new TunableDouble(Dashboard.MainTab.maxSpeedEntry, DriveConstants.kMaxSpeedMetersPerSecond);
+
+        public static final TunableDouble driveP = new TunableDouble(Dashboard.MainTab.drivePEntry, ModuleConstants.kDrivingP);
+        public static final TunableDouble driveI = new TunableDouble(Dashboard.MainTab.driveIEntry, ModuleConstants.kDrivingI);
+        public static final TunableDouble driveD = new TunableDouble(Dashboard.MainTab.driveDEntry, ModuleConstants.kDrivingD);
+
+        public static final TunableDouble turnP = new TunableDouble(Dashboard.MainTab.turnPEntry, ModuleConstants.kTurningP);
+        public static final TunableDouble turnI = new TunableDouble(Dashboard.MainTab.turnIEntry, ModuleConstants.kTurningI);
+        public static final TunableDouble turnD = new TunableDouble(Dashboard.MainTab.turnDEntry, ModuleConstants.kTurningD);
+
+        public static final TunableDouble shootingSpeed = new TunableDouble(Dashboard.MainTab.shootingSpeedEntry, ShootingConstants.kDefaultShootSpeed);
+        public static final TunableDouble climbingSpeed = new TunableDouble(Dashboard.MainTab.climbingSpeedEntry, ClimbConstants.kDefaultClimbSpeed);
+
+        public static final TunableDouble r = new TunableDouble(Dashboard.MainTab.rEntry, LedConstants.kElectricBlue.getr());
+        public static final TunableDouble g = new TunableDouble(Dashboard.MainTab.gEntry, LedConstants.kElectricBlue.getg());
+        public static final TunableDouble b = new TunableDouble(Dashboard.MainTab.bEntry, LedConstants.kElectricBlue.getb());
+        public static final TunableDouble w = new TunableDouble(Dashboard.MainTab.wEntry, LedConstants.kElectricBlue.getw());
+    }
+
+    /**
+     * Registers an action to run whenever any of the given tunables changes. The action
+     * is run once immediately, so whatever it configures starts out in sync with the dashboard.
+     *
+     * @param action the action to run on the main robot thread
+     * @param tunables the tunables to watch
+     */
+    public static void onChange(Runnable action, TunableDouble... tunables) {
+        listeners.add(new ChangeListener(action, tunables));
+        action.run();
+    }
+
+    /**
+     * Runs the change callbacks for every tunable that changed since the last call.
+     * This should be called once per loop from the robot's periodic block, before the
+     * command scheduler runs.
+     */
+    public static void update() {
+        boolean anyChanged = false;
+        for (int i = 0; i < tunables.size(); i++) {
+            TunableDouble tunable = tunables.get(i);
+            tunable.changed = tunable.dirty.getAndSet(false);
+            anyChanged |= tunable.changed;
+        }
+
+        // Nothing changed, which is nearly every loop
+        if (!anyChanged) return;
+
+        for (int i = 0; i < listeners.size(); i++) {
+            ChangeListener listener = listeners.get(i);
+            for (TunableDouble tunable : listener.tunables) {
+                if (tunable.changed) {
+                    listener.action.run();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Converts a NetworkTables value to a double, whatever numeric type the dashboard wrote.
+     */
+    private static double toDouble(NetworkTableValue value, double defaultValue) {
+        switch (value.getType()) {
+            case kDouble:
+                return value.getDouble();
+            case kFloat:
+                return value.getFloat();
+            case kInteger:
+                return value.getInteger();
+            default:
+                return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package frc.robot;
+
+import org.photonvision.PhotonPoseEstimator;
+import org.photonvision.PhotonPoseEstimator.PoseStrategy;
+import org.photonvision.targeting.PhotonPipelineResult;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Transform2d;
+import edu.wpi.first.math.interpolation.TimeInterpolatableBuffer;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.networktables.BooleanPublisher;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.IntegerPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
+import edu.wpi.first.wpilibj2.command.SwerveControllerCommand;
+import frc.robot.Constants.AimConstants;
+import frc.robot.Constants.AutoConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.LedConstants;
+import frc.robot.Constants.VisionConstants;
+import frc.robot.Constants.WarmUpConstants;
+import frc.robot.auto.AutoTrajectories;
+import frc.robot.auto.TrajectoryCache;
+import frc.robot.replay.Replay;
+import frc.robot.subsystems.Drive.MAXSwerveModule;
+import frc.robot.subsystems.Drive.ModuleIOSim;
+import frc.robot.subsystems.Drive.ModuleSetpoints;
+import frc.robot.subsystems.LED.Animate;
+import frc.robot.subsystems.LED.LedIOSim;
+import frc.robot.subsystems.LED.LedSubsystem;
+import frc.robot.subsystems.Vision.CameraIOSim;
+import frc.robot.subsystems.Vision.VisionFrame;
+import frc.robot.telemetry.LoopProfiler;
+import frc.utils.PolarSlewRateLimiter;
+
+/**
+ * The WarmUp runs the robot's hot code paths while the robot is disabled, so that by the
+ * time it is enabled their classes are loaded and the JIT has compiled them. Without it,
+ * the first cycles of autonomous run interpreted and overrun the loop.
+ *
+ * <p>Nothing here touches the robot's hardware or its subsystems. The warm-up drives its
+ * own shadow copies of the code: four MAXSwerveModules on simulated modules driven through
+ * the drive's ModuleSetpoints, its slew rate limiter and pose estimator, the autonomous path
+ * follower on the cached trajectory, AutoAim's heading controller, a PhotonVision result
+ * serialized and decoded the way CameraIngest decodes it and then solved for a pose, and
+ * an LED subsystem on a simulated strip.
+ *
+ * <p>Each disabled loop gets a small time budget. The time of the first pass (cold) and a
+ * running average of recent passes (warm) are published under WarmUp in NetworkTables.
+ */
+public class WarmUp {
+
+    private static final double kDt = TimedRobot.kDefaultPeriod;
+
+    private final NetworkTable table = NetworkTableInstance.getDefault().getTable("WarmUp");
+    private final IntegerPublisher iterationsPublisher = table.getIntegerTopic("Iterations").publish();
+    private final DoublePublisher coldPublisher = table.getDoubleTopic("ColdIterationMs").publish();
+    private final DoublePublisher warmPublisher = table.getDoubleTopic("WarmIterationMs").publish();
+    private final DoublePublisher totalPublisher = table.getDoubleTopic("TotalSeconds").publish();
+    private final BooleanPublisher donePublisher = table.getBooleanTopic("Done").publish();
+
+    // Built on the first run, and dropped once warm so it can be garbage collected
+    private Shadow shadow;
+
+    private int iterations = 0;
+    private double coldMillis = 0.0;
+    private double warmMillis = 0.0;
+    private double totalSeconds = 0.0;
+    private boolean done = false;
+
+    /**
+     * Runs warm-up passes until this loop's budget is spent. Call this from
+     * disabledPeriodic().
+     */
+    public void run() {
+        // Replay runs disabled cycles back to back and doesn't care about the JIT
+        if (done || Replay.isActive()) return;
+
+        long deadline = System.nanoTime() + (long) (WarmUpConstants.kBudgetSecondsPerCycle * 1e9);
+        if (shadow == null) shadow = new Shadow();
+
+        do {
+            long start = System.nanoTime();
+            shadow.iterate(iterations);
+            double millis = (System.nanoTime() - start) / 1e6;
+
+            if (iterations == 0) {
+                coldMillis = millis;
+                warmMillis = millis;
+            } else {
+                warmMillis += 0.02 * (millis - warmMillis);
+            }
+            totalSeconds += millis / 1e3;
+            iterations++;
+        } while (System.nanoTime() < deadline && iterations < WarmUpConstants.kIterations);
+
+        if (iterations >= WarmUpConstants.kIterations) {
+            done = true;
+            shadow = null;
+            System.out.printf("Warm-up done after %d passes and %.2f s: first pass %.2f ms, now %.3f ms (%.0fx faster)%n",
+                iterations, totalSeconds, coldMillis, warmMillis, coldMillis / Math.max(warmMillis, 1e-6));
+        }
+
+        iterationsPublisher.set(iterations);
+        coldPublisher.set(coldMillis);
+        warmPublisher.set(warmMillis);
+        totalPublisher.set(totalSeconds);
+        donePublisher.set(done);
+    }
+
+    /**
+     * Returns whether the hot code has been run enough to be compiled.
+     *
+     * @return true once the warm-up is done
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /** The code the warm-up exercises, on objects of its own. */
+    private static final class Shadow {
+        private final ModuleIOSim[] moduleIO = new ModuleIOSim[] {
+            new ModuleIOSim(), new ModuleIOSim(), new ModuleIOSim(), new ModuleIOSim()
+        };
+        private final MAXSwerveModule[] modules = new MAXSwerveModule[moduleIO.length];
+        private final SwerveModulePosition[] positions = new SwerveModulePosition[moduleIO.length];
+        private final ModuleSetpoints setpoints;
+
+        private final PolarSlewRateLimiter inputLimiter = new PolarSlewRateLimiter(
+            DriveConstants.kDirectionSlewRate, DriveConstants.kMagnitudeSlewRate, DriveConstants.kRotationalSlewRate, 0);
+        private final SwerveDrivePoseEstimator poseEstimator;
+        private final TimeInterpolatableBuffer<Rotation2d> headingHistory =
+            TimeInterpolatableBuffer.createBuffer(AimConstants.kHeadingHistorySeconds);
+        private final ProfiledPIDController headingController = new ProfiledPIDController(
+            AimConstants.kPHeadingController, 0, AimConstants.kDHeadingController, AimConstants.kHeadingControllerConstraints);
+        private Command pathFollower;
+
+        private final CameraIOSim camera = new CameraIOSim(VisionConstants.kCameras.get(0), Pose2d::new);
+        private final PhotonPoseEstimator photonPoseEstimator;
+        private final Pose2d visionPose;
+
+        // Unregistered, so the copy's times don't land on the real LEDs' LoopProfiler stats
+        private final LedSubsystem leds = new LedSubsystem(new LedIOSim(), LoopProfiler.unregistered());
+        private final Animate animate = new Animate(leds, LedConstants.kEBlueDashed1, LedConstants.kEBlueDashed2);
+
+        Shadow() {
+            for (int i = 0; i < modules.length; i++) {
+                modules[i] = new MAXSwerveModule(moduleIO[i]);
+                positions[i] = modules[i].getPosition();
+            }
+            setpoints = new ModuleSetpoints(modules);
+            poseEstimator = new SwerveDrivePoseEstimator(
+                DriveConstants.kDriveKinematics, new Rotation2d(), positions, new Pose2d());
+            headingController.enableContinuousInput(-Math.PI, Math.PI);
+
+            photonPoseEstimator = new PhotonPoseEstimator(
+                camera.getFieldLayout(), PoseStrategy.MULTI_TAG_PNP_ON_COPROCESSOR, camera.getMount().getRobotToCamera());
+            photonPoseEstimator.setMultiTagFallbackStrategy(PoseStrategy.LOWEST_AMBIGUITY);
+
+            // Two and a half meters in front of the speaker tag, facing it, so the camera sees tags
+            Pose2d tag = camera.getFieldLayout().getTagPose(7).orElse(new Pose3d()).toPose2d();
+            visionPose = tag.transformBy(new Transform2d(2.5, 0, Rotation2d.fromDegrees(180)));
+
+            // The scheduler must never run this copy
+            CommandScheduler.getInstance().unregisterSubsystem(leds);
+        }
+
+        void iterate(int i) {
+            double t = (i + 1) * kDt;
+            double phase = i * 0.05;
+
+            // A sweeping stick input through the same code as DriveSubsystem.drive(),
+            // alternating field and robot relative
+            inputLimiter.calculate(Math.sin(phase), Math.cos(phase), 0.5 * Math.sin(2 * phase), t);
+            double heading = phase % (2 * Math.PI);
+            double x = inputLimiter.getX() * DriveConstants.kMaxSpeedMetersPerSecond;
+            double y = inputLimiter.getY() * DriveConstants.kMaxSpeedMetersPerSecond;
+            double omega = inputLimiter.getRotation() * DriveConstants.kMaxAngularSpeed;
+            if (i % 2 == 0) {
+                setpoints.fieldRelative(x, y, omega, heading, DriveConstants.kMaxSpeedMetersPerSecond);
+            } else {
+                setpoints.robotRelative(x, y, omega, DriveConstants.kMaxSpeedMetersPerSecond);
+            }
+
+            for (int m = 0; m < modules.length; m++) {
+                moduleIO[m].update(kDt);
+                modules[m].updateInputs();
+                modules[m].getState();
+                modules[m].getPosition();
+            }
+
+            Rotation2d gyroAngle = new Rotation2d(heading);
+            poseEstimator.updateWithTime(t, gyroAngle, positions);
+            headingHistory.addSample(t, gyroAngle);
+
+            // AutoAim
+            headingHistory.getSample(t - 2 * kDt);
+            headingController.calculate(heading, Math.sin(phase));
+
+            // The autonomous path follower, once the trajectory is available
+            if (pathFollower == null) {
+                Trajectory trajectory = TrajectoryCache.getIfReady(AutoTrajectories.kSCurve);
+                if (trajectory != null) {
+                    pathFollower = new SwerveControllerCommand(
+                        trajectory,
+                        poseEstimator::getEstimatedPosition,
+                        DriveConstants.kDriveKinematics,
+                        new PIDController(AutoConstants.kPXController, 0, 0),
+                        new PIDController(AutoConstants.kPYController, 0, 0),
+                        new ProfiledPIDController(AutoConstants.kPThetaController, 0, 0, AutoConstants.kThetaControllerConstraints),
+                        this::setModuleStates)
+                        .andThen(() -> {});
+                    pathFollower.initialize();
+                }
+            }
+            if (pathFollower != null) {
+                if (pathFollower.isFinished()) pathFollower.initialize();
+                pathFollower.execute();
+            }
+
+            // A frame through the same decoding as CameraIngest and the match log, then the pose solve
+            VisionFrame frame = VisionFrame.fromLogRecord(camera.capture(visionPose, t).toLogRecord());
+            PhotonPipelineResult decoded = frame.getResult();
+            frame.getTarget(7);
+            photonPoseEstimator.update(decoded).ifPresent(estimate -> poseEstimator.addVisionMeasurement(
+                estimate.estimatedPose.toPose2d(), t, VisionConstants.kSingleTagStdDevs));
+
+            // LEDs
+            leds.setPattern(i % 2 == 0 ? LedConstants.kEBlueDashed1 : LedConstants.kYellowDashed1);
+            leds.setSolidColor(LedConstants.kRed);
+            leds.periodic();
+            if (i == 0) animate.initialize();
+            animate.execute();
+        }
+
+        // The same as DriveSubsystem.setModuleStates(), which the path follower drives through
+        private void setModuleStates(SwerveModuleState[] states) {
+            SwerveDriveKinematics.desaturateWheelSpeeds(states, DriveConstants.kMaxSpeedMetersPerSecond);
+            for (int m = 0; m < modules.length; m++) {
+                modules[m].setDesiredState(states[m]);
+            }
+        }
+    }
+}
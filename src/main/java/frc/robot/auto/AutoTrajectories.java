@@ -0,0 +1,31 @@
+package frc.robot.auto;
+
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import frc.robot.Constants.AutoConstants;
+
+/**
+ * Every trajectory the autonomous routines can follow. Anything listed in {@link #kAll}
+ * is precompiled into the {@link TrajectoryCache}.
+ */
+public final class AutoTrajectories {
+
+    // An example trajectory to follow. All units in meters.
+    public static final TrajectorySpec kSCurve = new TrajectorySpec(
+        "SCurve",
+        // Start at the origin facing the +X direction
+        new Pose2d(0, 0, new Rotation2d(0)),
+        // Pass through these two interior waypoints, making an 's' curve path
+        List.of(new Translation2d(1, 1), new Translation2d(2, -1)),
+        // End 3 meters straight ahead of where we started, facing forward
+        new Pose2d(3, 0, new Rotation2d(0)),
+        AutoConstants.kMaxSpeedMetersPerSecond,
+        AutoConstants.kMaxAccelerationMetersPerSecondSquared);
+
+    public static final List<TrajectorySpec> kAll = List.of(kSCurve);
+
+    private AutoTrajectories() {}
+}
@@ -0,0 +1,234 @@
+package frc.robot.auto;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import frc.robot.Constants.AutoConstants;
+
+/**
+ * The TrajectoryCache holds every autonomous trajectory, generated ahead of time, so that
+ * starting autonomous is a map lookup instead of tens of milliseconds of spline
+ * parameterization.
+ *
+ * <p>The trajectories are precompiled at build time (./gradlew generateTrajectories, which
+ * the jar task runs) into a compact binary file in the deploy directory. At startup the
+ * file is memory-mapped and decoded, but only if its content hash matches the hash of the
+ * current {@link AutoTrajectories}; a stale or missing file is ignored. In that case the
+ * trajectories are generated on a low-priority background thread while the robot sits
+ * disabled, and written back to the deploy directory for the next boot.
+ *
+ * <p>File layout, big-endian: magic, format version, content hash (long), trajectory
+ * count; then per trajectory its name (UTF-8, length-prefixed), state count, and per
+ * state: time, velocity, acceleration, x, y, heading, curvature.
+ */
+public final class TrajectoryCache {
+
+    private static final int kMagic = 0x5452414A; // "TRAJ"
+    private static final int kVersion = 1;
+    private static final int kStateFields = 7;
+
+    private static final Map<String, Trajectory> trajectories = new ConcurrentHashMap<>();
+
+    private TrajectoryCache() {}
+
+    /**
+     * Loads the precompiled trajectories, or starts generating them in the background if
+     * the file is missing or out of date. Call this once from robotInit().
+     */
+    public static void load() {
+        File file = new File(Filesystem.getDeployDirectory(), AutoConstants.kTrajectoryCacheFile);
+        long hash = contentHash(AutoTrajectories.kAll);
+
+        try {
+            if (file.exists() && read(file.toPath(), hash)) return;
+            DriverStation.reportWarning("Trajectory cache " + file + " is missing or out of date, generating it in the background", false);
+        } catch (IOException e) {
+            DriverStation.reportError("Could not read the trajectory cache " + file, e.getStackTrace());
+        }
+
+        Thread generator = new Thread(() -> {
+            for (TrajectorySpec spec : AutoTrajectories.kAll) {
+                trajectories.computeIfAbsent(spec.getName(), name -> spec.generate());
+            }
+            try {
+                write(file.toPath(), AutoTrajectories.kAll);
+            } catch (IOException e) {
+                DriverStation.reportError("Could not write the trajectory cache " + file, e.getStackTrace());
+            }
+        }, "TrajectoryCache");
+        generator.setDaemon(true);
+        generator.setPriority(Thread.MIN_PRIORITY);
+        generator.start();
+    }
+
+    /**
+     * Returns the trajectory for the given spec. If it hasn't been loaded or generated yet,
+     * it is generated on the calling thread, which is slow.
+     *
+     * @param spec the trajectory to look up
+     * @return the trajectory
+     */
+    public static Trajectory get(TrajectorySpec spec) {
+        Trajectory trajectory = trajectories.get(spec.getName());
+        if (trajectory != null) return trajectory;
+
+        DriverStation.reportWarning("Trajectory " + spec.getName() + " was not precompiled, generating it now", false);
+        return trajectories.computeIfAbsent(spec.getName(), name -> spec.generate());
+    }
+
+    /**
+     * Returns the trajectory for the given spec if it has been loaded or generated, without
+     * ever generating it.
+     *
+     * @param spec the trajectory to look up
+     * @return the trajectory, or null if it isn't ready yet
+     */
+    public static Trajectory getIfReady(TrajectorySpec spec) {
+        return trajectories.get(spec.getName());
+    }
+
+    /**
+     * Reads the cache file into memory if its hash matches.
+     *
+     * @return true if the file was current and was loaded
+     */
+    private static boolean read(Path path, long expectedHash) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (buffer.getInt() != kMagic || buffer.getInt() != kVersion || buffer.getLong() != expectedHash) {
+                return false;
+            }
+
+            int count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+
+                int stateCount = buffer.getInt();
+                List<Trajectory.State> states = new ArrayList<>(stateCount);
+                for (int j = 0; j < stateCount; j++) {
+                    double time = buffer.getDouble();
+                    double velocity = buffer.getDouble();
+                    double acceleration = buffer.getDouble();
+                    double x = buffer.getDouble();
+                    double y = buffer.getDouble();
+                    double heading = buffer.getDouble();
+                    double curvature = buffer.getDouble();
+                    states.add(new Trajectory.State(
+                        time, velocity, acceleration, new Pose2d(x, y, new Rotation2d(heading)), curvature));
+                }
+                trajectories.put(new String(name, StandardCharsets.UTF_8), new Trajectory(states));
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Generates the given trajectories and writes them to a cache file. The file is written
+     * to a temporary file first and moved into place, so a reader never sees half of it.
+     *
+     * @param path the file to write
+     * @param specs the trajectories to generate
+     * @throws IOException if the file can't be written
+     */
+    static void write(Path path, List<TrajectorySpec> specs) throws IOException {
+        List<byte[]> names = new ArrayList<>();
+        List<Trajectory> generated = new ArrayList<>();
+        int size = 4 + 4 + 8 + 4;
+        for (TrajectorySpec spec : specs) {
+            Trajectory trajectory = trajectories.computeIfAbsent(spec.getName(), name -> spec.generate());
+            byte[] name = spec.getName().getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            generated.add(trajectory);
+            size += 2 + name.length + 4 + trajectory.getStates().size() * kStateFields * Double.BYTES;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(kMagic);
+        buffer.putInt(kVersion);
+        buffer.putLong(contentHash(specs));
+        buffer.putInt(specs.size());
+        for (int i = 0; i < specs.size(); i++) {
+            buffer.putShort((short) names.get(i).length);
+            buffer.put(names.get(i));
+
+            List<Trajectory.State> states = generated.get(i).getStates();
+            buffer.putInt(states.size());
+            for (Trajectory.State state : states) {
+                buffer.putDouble(state.timeSeconds);
+                buffer.putDouble(state.velocityMetersPerSecond);
+                buffer.putDouble(state.accelerationMetersPerSecondSq);
+                buffer.putDouble(state.poseMeters.getX());
+                buffer.putDouble(state.poseMeters.getY());
+                buffer.putDouble(state.poseMeters.getRotation().getRadians());
+                buffer.putDouble(state.curvatureRadPerMeter);
+            }
+        }
+
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(temporary, buffer.array());
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Hashes every input of the given trajectories, so the cache file can be checked
+     * against the code that is running.
+     */
+    static long contentHash(List<TrajectorySpec> specs) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeInt(kVersion);
+                for (TrajectorySpec spec : specs) {
+                    spec.writeHashInput(out);
+                }
+            }
+            return ByteBuffer.wrap(digest.digest(bytes.toByteArray())).getLong();
+        } catch (NoSuchAlgorithmException | IOException e) {
+            throw new IllegalStateException("Could not hash the trajectories", e);
+        }
+    }
+
+    /**
+     * Precompiles every autonomous trajectory into a cache file. The build runs this with
+     * the path of the file in the deploy directory.
+     *
+     * @param args the path of the file to write
+     * @throws IOException if the file can't be written
+     */
+    public static void main(String... args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: generateTrajectories <output file>");
+            System.exit(1);
+        }
+
+        long startNanos = System.nanoTime();
+        Path path = Path.of(args[0]);
+        write(path, AutoTrajectories.kAll);
+        System.out.printf("Wrote %d trajectories to %s in %.1f ms%n",
+            AutoTrajectories.kAll.size(), path, (System.nanoTime() - startNanos) / 1e6);
+    }
+}
@@ -0,0 +1,95 @@
+package frc.robot.auto;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.math.trajectory.TrajectoryConfig;
+import edu.wpi.first.math.trajectory.TrajectoryGenerator;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Everything needed to generate one autonomous trajectory. The trajectory itself is
+ * generated ahead of time and loaded from the {@link TrajectoryCache}.
+ */
+public final class TrajectorySpec {
+
+    private final String name;
+    private final Pose2d start;
+    private final List<Translation2d> interiorWaypoints;
+    private final Pose2d end;
+    private final double maxVelocityMetersPerSecond;
+    private final double maxAccelerationMetersPerSecondSquared;
+
+    /**
+     * Creates a new TrajectorySpec for a clamped cubic spline through the given waypoints,
+     * limited by the swerve kinematics.
+     *
+     * @param name the trajectory's unique name
+     * @param start the starting pose
+     * @param interiorWaypoints the points to pass through
+     * @param end the ending pose
+     * @param maxVelocityMetersPerSecond the maximum speed (m/s)
+     * @param maxAccelerationMetersPerSecondSquared the maximum acceleration (m/s^2)
+     */
+    public TrajectorySpec(String name, Pose2d start, List<Translation2d> interiorWaypoints, Pose2d end,
+            double maxVelocityMetersPerSecond, double maxAccelerationMetersPerSecondSquared) {
+        this.name = name;
+        this.start = start;
+        this.interiorWaypoints = List.copyOf(interiorWaypoints);
+        this.end = end;
+        this.maxVelocityMetersPerSecond = maxVelocityMetersPerSecond;
+        this.maxAccelerationMetersPerSecondSquared = maxAccelerationMetersPerSecondSquared;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Generates the trajectory. This parameterizes the spline and can take tens of
+     * milliseconds, so it should not be called from the robot loop.
+     *
+     * @return the trajectory
+     */
+    public Trajectory generate() {
+        TrajectoryConfig config = new TrajectoryConfig(maxVelocityMetersPerSecond, maxAccelerationMetersPerSecondSquared)
+            // Add kinematics to ensure max speed is actually obeyed
+            .setKinematics(DriveConstants.kDriveKinematics);
+
+        return TrajectoryGenerator.generateTrajectory(start, interiorWaypoints, end, config);
+    }
+
+    /**
+     * Writes every input of {@link #generate()} to the given stream, so a change to any of
+     * them changes the cache's content hash.
+     *
+     * @param out the stream the hash is computed over
+     * @throws IOException if the stream can't be written
+     */
+    void writeHashInput(DataOutputStream out) throws IOException {
+        out.writeUTF(name);
+        writePose(out, start);
+        out.writeInt(interiorWaypoints.size());
+        for (Translation2d waypoint : interiorWaypoints) {
+            out.writeDouble(waypoint.getX());
+            out.writeDouble(waypoint.getY());
+        }
+        writePose(out, end);
+        out.writeDouble(maxVelocityMetersPerSecond);
+        out.writeDouble(maxAccelerationMetersPerSecondSquared);
+
+        // The kinematics constraint depends on the module locations
+        out.writeDouble(DriveConstants.kTrackWidth);
+        out.writeDouble(DriveConstants.kWheelBase);
+    }
+
+    private static void writePose(DataOutputStream out, Pose2d pose) throws IOException {
+        out.writeDouble(pose.getX());
+        out.writeDouble(pose.getY());
+        out.writeDouble(pose.getRotation().getRadians());
+    }
+}
@@ -3,71 +3,107 @@ package frc.robot.commands;
 import org.photonvision.targeting.PhotonTrackedTarget;
 
 import edu.wpi.first.math.MathUtil;
-import edu.wpi.first.wpilibj.XboxController;
+import edu.wpi.first.math.controller.ProfiledPIDController;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
-import frc.robot.Constants;
-import frc.robot.Constants.OIConstants;
+import frc.robot.Constants.AimConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.OperatorInput;
 import frc.robot.RobotContainer;
-import frc.robot.subsystems.VisionSubsystem;
+import frc.robot.subsystems.Vision.VisionFrame;
+import frc.robot.subsystems.Vision.VisionSubsystem;
 import frc.robot.subsystems.Drive.DriveSubsystem;
 
+/**
+ * Turns the robot to face an AprilTag while the driver keeps control of translation.
+ *
+ * <p>Each new camera frame that contains the tag is turned into a field heading, using the
+ * gyro heading from the moment the frame was captured. Between frames, the heading is held
+ * with a profiled controller on the gyro at the full loop rate, so the robot settles quickly
+ * and keeps aiming through short vision dropouts.
+ */
 public class AutoAim extends Command {
 
-    private final XboxController m_driverController = RobotContainer.m_driverController;
+    private final OperatorInput m_driverInput = RobotContainer.m_driverInput;
     private final DriveSubsystem m_robotDrive = RobotContainer.m_robotDrive;
     private final VisionSubsystem m_robotVision = RobotContainer.m_robotVision;
     private final int aprilTagId;
 
-    private final double yawTolerance;
-    private double forward, strafe, turn, targetYaw;
-    private boolean targetVisible;
+    private final ProfiledPIDController m_headingController = new ProfiledPIDController(
+        AimConstants.kPHeadingController, 0, AimConstants.kDHeadingController, AimConstants.kHeadingControllerConstraints);
+
+    private double lastFrameTimestamp, lastSeenTime;
+    private boolean hasGoal;
 
     /**
      * Constructs a new AutoAim command.
-     * 
+     *
      * @param aprilTagId the ID of the aprilTag to recognize and aim at. This command will *only* work for this tag.
-     * @param yawTolerance the maximum error (in degrees, we think), to tolerate being off by. Otherwise, the robot will correct itself.
+     * @param yawTolerance the maximum error (in degrees) to tolerate being off by. Otherwise, the robot will correct itself.
      */
     public AutoAim(int aprilTagId, double yawTolerance) {
         addRequirements(RobotContainer.m_robotDrive, RobotContainer.m_robotVision);
         this.aprilTagId = aprilTagId;
-        this.yawTolerance = yawTolerance;
+
+        m_headingController.enableContinuousInput(-Math.PI, Math.PI);
+        m_headingController.setTolerance(Math.toRadians(yawTolerance));
+    }
+
+    @Override
+    public void initialize() {
+        // Start the profile from where the robot is pointing and how fast it is turning.
+        // getTurnRate() is clockwise positive, the heading is counterclockwise positive.
+        m_headingController.reset(getHeadingRadians(), -Math.toRadians(m_robotDrive.getTurnRate()));
+
+        // Only frames captured after the button was pressed count
+        lastFrameTimestamp = m_robotVision.getLatestFrame().getTimestampSeconds();
+        lastSeenTime = Timer.getFPGATimestamp();
+        hasGoal = false;
     }
 
     @Override
     public void execute() {
         // Calculate drivetrain commands from Joystick values
-        forward = -MathUtil.applyDeadband(m_driverController.getLeftY(), OIConstants.kDriveDeadband);
-        strafe = -MathUtil.applyDeadband(m_driverController.getLeftX(), OIConstants.kDriveDeadband);
-        turn = -MathUtil.applyDeadband(m_driverController.getRightX(), OIConstants.kDriveDeadband);
-        targetYaw = 0.0;
-
-        // Read relevant data from VisionSubsystem
-        if (m_robotVision.aprilTagsVisible()) {
-            // At least one aprilTag was seen by the camera
-            for (PhotonTrackedTarget aprilTag : m_robotVision.getAprilTags()) {
-                if (aprilTag.getFiducialId() == aprilTagId) {
-                    // Found target tag, record its information
-                    targetYaw = aprilTag.getYaw();
-                    targetVisible = true;
-                }
+        double forward = m_driverInput.getForward();
+        double strafe = m_driverInput.getStrafe();
+        double turn = m_driverInput.getTurn();
+
+        // Update the heading goal once per new frame that contains our tag
+        VisionFrame frame = m_robotVision.getLatestFrame();
+        if (frame.getTimestampSeconds() > lastFrameTimestamp) {
+            lastFrameTimestamp = frame.getTimestampSeconds();
+
+            PhotonTrackedTarget aprilTag = frame.getTarget(aprilTagId);
+            if (aprilTag != null) {
+                // Yaw is positive to the right, the heading is positive to the left
+                double headingAtCapture = m_robotDrive.getHeadingAt(frame.getTimestampSeconds())
+                    .map(rotation -> rotation.getRadians())
+                    .orElse(getHeadingRadians());
+                m_headingController.setGoal(MathUtil.angleModulus(headingAtCapture - Math.toRadians(aprilTag.getYaw())));
+
+                hasGoal = true;
+                lastSeenTime = Timer.getFPGATimestamp();
             }
-        } else {targetVisible = false;}
+        }
 
-        // If target aprilTag is seen
-        if (targetVisible && Math.abs(targetYaw) > yawTolerance) {
-            // Auto-align to target
-            turn = targetYaw * Constants.ModuleConstants.kTurningP * Constants.AutoConstants.kMaxAngularSpeedRadiansPerSecond;
-            m_robotDrive.drive(forward, strafe, turn, true, false);
+        // Hold the goal on the gyro every loop, even between frames
+        if (hasGoal) {
+            turn = m_headingController.calculate(getHeadingRadians()) / DriveConstants.kMaxAngularSpeed;
         }
+
+        m_robotDrive.drive(forward, strafe, MathUtil.clamp(turn, -1, 1), true, false);
     }
 
     @Override
     public boolean isFinished() {
-        if (!targetVisible || Math.abs(targetYaw) < yawTolerance) {
+        // Done once we are facing the tag, or give up if it has been out of view too long
+        if (hasGoal && m_headingController.atGoal()) {
             return true;
-        } else {
-            return false;
         }
+        return Timer.getFPGATimestamp() - lastSeenTime > AimConstants.kVisionDropoutSeconds;
+    }
+
+    private double getHeadingRadians() {
+        return Math.toRadians(m_robotDrive.getHeading());
     }
 }
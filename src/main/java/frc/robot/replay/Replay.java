@@ -0,0 +1,133 @@
+package frc.robot.replay;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.photonvision.targeting.PhotonPipelineResult;
+import org.photonvision.targeting.PhotonTrackedTarget;
+import org.photonvision.targeting.TargetCorner;
+
+import edu.wpi.first.math.geometry.Transform3d;
+import frc.robot.subsystems.Vision.VisionFrame;
+
+/**
+ * Where subsystems get their sensor inputs from while a match log is being replayed.
+ *
+ * <p>When replay is active, subsystems read the current {@link ReplayLog.Cycle} from here
+ * instead of from their hardware, and don't start any background threads. Outside of
+ * replay, {@link #isActive()} is false and nothing else in this class should be called.
+ */
+public final class Replay {
+
+    private static boolean active = false;
+    private static boolean hasVisionPackets = false;
+    private static ReplayLog.Cycle cycle;
+    private static int nextOdometrySample;
+
+    private Replay() {}
+
+    /**
+     * Returns whether the robot code is being driven by a match log.
+     *
+     * @return true during replay
+     */
+    public static boolean isActive() {
+        return active;
+    }
+
+    static void activate(ReplayLog log) {
+        active = true;
+        hasVisionPackets = log.hasVisionPackets();
+    }
+
+    static void setCycle(ReplayLog.Cycle current) {
+        cycle = current;
+        nextOdometrySample = 0;
+    }
+
+    /**
+     * Returns this cycle's Drive/Inputs record.
+     *
+     * @return the drive inputs, or null if there are none for this cycle
+     */
+    public static double[] getDriveInputs() {
+        return cycle == null ? null : cycle.driveInputs;
+    }
+
+    /**
+     * Copies this cycle's next odometry sample, the same way OdometryThread.poll() does.
+     *
+     * @param sample the array to copy into
+     * @return true if a sample was copied, false if there are no more this cycle
+     */
+    public static boolean pollOdometrySample(double[] sample) {
+        if (cycle == null || nextOdometrySample >= cycle.odometrySamples.size()) return false;
+
+        double[] recorded = cycle.odometrySamples.get(nextOdometrySample++);
+        System.arraycopy(recorded, 0, sample, 0, Math.min(recorded.length, sample.length));
+        return true;
+    }
+
+    /**
+     * Returns whether the log has the raw camera packets, so vision can process the frames
+     * again instead of replaying the logged measurements.
+     *
+     * @return true if the log has camera packets
+     */
+    public static boolean hasVisionPackets() {
+        return hasVisionPackets;
+    }
+
+    /**
+     * Returns the camera packet records the robot loop took in this cycle from one camera.
+     * Each one decodes with {@link VisionFrame#fromLogRecord(byte[])}.
+     *
+     * @param camera the camera's name
+     * @return the records, in the order they were taken in
+     */
+    public static List<byte[]> getVisionPackets(String camera) {
+        return cycle == null ? Collections.emptyList() : cycle.visionPackets.getOrDefault(camera, Collections.emptyList());
+    }
+
+    /**
+     * Returns this cycle's Vision/Frames records.
+     *
+     * @return the frames, oldest first
+     */
+    public static List<double[]> getVisionFrames() {
+        return cycle == null ? Collections.emptyList() : cycle.visionFrames;
+    }
+
+    /**
+     * Returns this cycle's Vision/Measurements records. These are only replayed for logs
+     * without camera packets.
+     *
+     * @return the measurements, oldest first
+     */
+    public static List<double[]> getVisionMeasurements() {
+        return cycle == null ? Collections.emptyList() : cycle.visionMeasurements;
+    }
+
+    /**
+     * Rebuilds a camera frame from a Vision/Frames record, for logs without camera packets.
+     * Only what was logged comes back:
+     * the target IDs and their yaw, pitch, area, skew and ambiguity. Camera-to-target
+     * transforms and corners are left empty.
+     *
+     * @param values the logged record
+     * @return the frame
+     */
+    public static VisionFrame toVisionFrame(double[] values) {
+        List<PhotonTrackedTarget> targets = new ArrayList<>();
+        for (int offset = 2; offset + 5 < values.length; offset += 6) {
+            List<TargetCorner> corners = List.of(
+                new TargetCorner(0, 0), new TargetCorner(0, 0), new TargetCorner(0, 0), new TargetCorner(0, 0));
+            targets.add(new PhotonTrackedTarget(
+                values[offset + 1], values[offset + 2], values[offset + 3], values[offset + 4],
+                (int) values[offset], new Transform3d(), new Transform3d(), values[offset + 5],
+                corners, corners));
+        }
+        return new VisionFrame(new PhotonPipelineResult(0, targets), values[0]);
+    }
+}
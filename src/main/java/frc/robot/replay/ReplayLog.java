@@ -0,0 +1,200 @@
+package frc.robot.replay;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+
+/**
+ * A match log written by {@link frc.robot.telemetry.MatchLogger}, split back up into robot
+ * loop cycles.
+ *
+ * <p>Every cycle starts with a Driver/Controller record, which Robot logs right before
+ * running the scheduler. Every sensor record after it, up to the next Driver/Controller
+ * record, belongs to that cycle. Driver station mode records come from another thread and
+ * are not written in loop order, so they are matched to cycles by timestamp instead. So are
+ * the raw camera packets under Vision/Packets/, which skip the logger's queue.
+ */
+public final class ReplayLog {
+
+    /**
+     * Everything the robot read from the outside world in one loop cycle.
+     */
+    public static final class Cycle {
+        /** FPGA time at which the cycle started (us). */
+        public final long timestampMicros;
+        /** The Driver/Controller record. */
+        public final double[] controller;
+
+        public boolean enabled;
+        public boolean autonomous;
+        public boolean test;
+
+        /** The Drive/Inputs record, or null if the drive did not run this cycle. */
+        public double[] driveInputs;
+        public final List<double[]> odometrySamples = new ArrayList<>();
+        public final List<double[]> visionFrames = new ArrayList<>();
+        public final List<double[]> visionMeasurements = new ArrayList<>();
+        /** The Vision/Packets/ records the robot loop took in this cycle, by camera name. */
+        public final Map<String, List<byte[]>> visionPackets = new HashMap<>();
+
+        private Cycle(long timestampMicros, double[] controller) {
+            this.timestampMicros = timestampMicros;
+            this.controller = controller;
+        }
+    }
+
+    private static final String kVisionPacketPrefix = "Vision/Packets/";
+
+    /** A raw camera packet record, before it is matched to a cycle. */
+    private static final class PacketRecord {
+        final long timestampMicros;
+        final String camera;
+        final byte[] data;
+
+        PacketRecord(long timestampMicros, String camera, byte[] data) {
+            this.timestampMicros = timestampMicros;
+            this.camera = camera;
+            this.data = data;
+        }
+    }
+
+    private final List<Cycle> cycles = new ArrayList<>();
+    private boolean hasVisionPackets = false;
+
+    /**
+     * Reads and splits a match log.
+     *
+     * @param filename the .wpilog file to read
+     * @throws IOException if the file cannot be read or is not a DataLog
+     */
+    public ReplayLog(String filename) throws IOException {
+        DataLogReader reader = new DataLogReader(filename);
+        if (!reader.isValid()) {
+            throw new IOException(filename + " is not a valid DataLog");
+        }
+
+        Map<Integer, String> entryNames = new HashMap<>();
+        List<long[]> modeChanges = new ArrayList<>(); // {timestamp, mode, value}
+        List<PacketRecord> packets = new ArrayList<>();
+        Cycle cycle = null;
+
+        for (DataLogRecord record : reader) {
+            if (record.isStart()) {
+                DataLogRecord.StartRecordData start = record.getStartData();
+                entryNames.put(start.entry, start.name);
+                continue;
+            }
+            if (record.isControl()) continue;
+
+            String name = entryNames.get(record.getEntry());
+            if (name == null) continue;
+
+            switch (name) {
+                case "Driver/Controller":
+                    cycle = new Cycle(record.getTimestamp(), record.getDoubleArray());
+                    cycles.add(cycle);
+                    break;
+                case "DS:enabled":
+                    modeChanges.add(new long[] {record.getTimestamp(), 0, record.getBoolean() ? 1 : 0});
+                    break;
+                case "DS:autonomous":
+                    modeChanges.add(new long[] {record.getTimestamp(), 1, record.getBoolean() ? 1 : 0});
+                    break;
+                case "DS:test":
+                    modeChanges.add(new long[] {record.getTimestamp(), 2, record.getBoolean() ? 1 : 0});
+                    break;
+                default:
+                    if (name.startsWith(kVisionPacketPrefix)) {
+                        packets.add(new PacketRecord(record.getTimestamp(), name.substring(kVisionPacketPrefix.length()), record.getRaw()));
+                    } else if (cycle != null) {
+                        // Records logged before the first cycle (during robotInit) have no cycle to go to
+                        addSensorRecord(cycle, name, record);
+                    }
+                    break;
+            }
+        }
+
+        applyModeChanges(modeChanges);
+        applyVisionPackets(packets);
+    }
+
+    private static void addSensorRecord(Cycle cycle, String name, DataLogRecord record) {
+        switch (name) {
+            case "Drive/Inputs":
+                cycle.driveInputs = record.getDoubleArray();
+                break;
+            case "Drive/OdometrySamples":
+                cycle.odometrySamples.add(record.getDoubleArray());
+                break;
+            case "Vision/Frames":
+                cycle.visionFrames.add(record.getDoubleArray());
+                break;
+            case "Vision/Measurements":
+                cycle.visionMeasurements.add(record.getDoubleArray());
+                break;
+            default:
+                // Outputs, not needed to drive the replay
+                break;
+        }
+    }
+
+    private void applyModeChanges(List<long[]> modeChanges) {
+        modeChanges.sort((a, b) -> Long.compare(a[0], b[0]));
+
+        boolean[] mode = new boolean[3];
+        int next = 0;
+        for (Cycle cycle : cycles) {
+            while (next < modeChanges.size() && modeChanges.get(next)[0] <= cycle.timestampMicros) {
+                long[] change = modeChanges.get(next++);
+                mode[(int) change[1]] = change[2] != 0;
+            }
+            cycle.enabled = mode[0];
+            cycle.autonomous = mode[1];
+            cycle.test = mode[2];
+        }
+    }
+
+    /**
+     * Puts each packet in the last cycle that started at or before it was logged, which is
+     * the cycle whose loop took it in.
+     */
+    private void applyVisionPackets(List<PacketRecord> packets) {
+        hasVisionPackets = !packets.isEmpty();
+        packets.sort((a, b) -> Long.compare(a.timestampMicros, b.timestampMicros));
+
+        int next = 0;
+        for (int i = 0; i < cycles.size(); i++) {
+            long end = i + 1 < cycles.size() ? cycles.get(i + 1).timestampMicros : Long.MAX_VALUE;
+            while (next < packets.size() && packets.get(next).timestampMicros < end) {
+                PacketRecord packet = packets.get(next++);
+                // Packets logged before the first cycle have no cycle to go to
+                if (packet.timestampMicros < cycles.get(i).timestampMicros) continue;
+                cycles.get(i).visionPackets.computeIfAbsent(packet.camera, camera -> new ArrayList<>()).add(packet.data);
+            }
+        }
+    }
+
+    /**
+     * Returns whether the log has raw camera packets. Logs written before packets were
+     * recorded only have the vision measurements.
+     *
+     * @return true if the camera frames can be processed again
+     */
+    public boolean hasVisionPackets() {
+        return hasVisionPackets;
+    }
+
+    /**
+     * Returns the cycles in the order they ran.
+     *
+     * @return the cycles
+     */
+    public List<Cycle> getCycles() {
+        return cycles;
+    }
+}
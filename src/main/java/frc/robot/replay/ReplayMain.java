@@ -0,0 +1,111 @@
+package frc.robot.replay;
+
+import java.io.File;
+import java.io.IOException;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.hal.simulation.SimulatorJNI;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.wpilibj.RobotController;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj.simulation.XboxControllerSim;
+import frc.robot.Constants.OIConstants;
+import frc.robot.Robot;
+import frc.robot.telemetry.MatchLogger;
+
+/**
+ * Runs the robot code against a recorded match log, headless and as fast as the CPU allows.
+ *
+ * <p>The robot is built in simulation, but the drive and vision read their inputs from the
+ * log (see {@link Replay}) and the driver's controller is played back through the simulated
+ * driver station. The simulated clock is paused and stepped to each recorded cycle's start
+ * time, and the loop is run by hand, so nothing depends on wall-clock time. Background
+ * threads (odometry, the log writer) are not started.
+ *
+ * <p>Everything the robot logs is written to a new log next to the input, so replaying the
+ * same log twice gives byte-identical output. The LoopProfiler's section times are left out
+ * of it, since they are wall-clock times. Tunable values are not in the log; they take their
+ * defaults.
+ *
+ * <p>Run with: ./gradlew replay --args="path/to/match.wpilog [path/to/output.wpilog]"
+ */
+public final class ReplayMain {
+
+    private ReplayMain() {}
+
+    public static void main(String... args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: replay <input.wpilog> [output.wpilog]");
+            System.exit(1);
+        }
+
+        File input = new File(args[0]);
+        File output = args.length > 1
+            ? new File(args[1])
+            : new File(input.getAbsoluteFile().getParentFile(), input.getName().replace(".wpilog", "") + "-replay.wpilog");
+
+        ReplayLog replayLog = new ReplayLog(input.getPath());
+        System.out.println("Replaying " + replayLog.getCycles().size() + " cycles from " + input);
+
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize the HAL");
+        }
+        SimHooks.pauseTiming();
+        SimHooks.restartTiming();
+        DriverStationSim.setDsAttached(true);
+
+        DataLog outputLog = new DataLog(output.getAbsoluteFile().getParent(), output.getName());
+        MatchLogger.startReplay(outputLog);
+        Replay.activate(replayLog);
+
+        XboxControllerSim controller = new XboxControllerSim(OIConstants.kDriverControllerPort);
+
+        Robot robot = new Robot();
+        robot.robotInit();
+        MatchLogger.flush();
+
+        long startNanos = System.nanoTime();
+        for (ReplayLog.Cycle cycle : replayLog.getCycles()) {
+            // Step the paused clock to when the cycle started on the robot
+            long now = RobotController.getFPGATime();
+            if (cycle.timestampMicros > now) {
+                SimulatorJNI.stepTiming(cycle.timestampMicros - now);
+            }
+
+            playController(controller, cycle);
+            DriverStationSim.setEnabled(cycle.enabled);
+            DriverStationSim.setAutonomous(cycle.autonomous);
+            DriverStationSim.setTest(cycle.test);
+            DriverStationSim.notifyNewData();
+
+            Replay.setCycle(cycle);
+            robot.runCycle();
+            MatchLogger.flush();
+        }
+        double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        outputLog.close();
+
+        int cycles = replayLog.getCycles().size();
+        double matchSeconds = cycles == 0 ? 0 : (replayLog.getCycles().get(cycles - 1).timestampMicros
+            - replayLog.getCycles().get(0).timestampMicros) / 1e6;
+        System.out.printf("Replayed %.1f s of robot time in %.1f s (%.1fx real time), wrote %s%n",
+            matchSeconds, wallSeconds, matchSeconds / Math.max(wallSeconds, 1e-9), output);
+
+        // NetworkTables and vendor threads would otherwise keep the JVM alive
+        System.exit(0);
+    }
+
+    private static void playController(XboxControllerSim controller, ReplayLog.Cycle cycle) {
+        double[] values = cycle.controller;
+        controller.setLeftX(values[0]);
+        controller.setLeftY(values[1]);
+        controller.setRightX(values[2]);
+        controller.setRightY(values[3]);
+        controller.setLeftTriggerAxis(values[4]);
+        controller.setRightTriggerAxis(values[5]);
+        DriverStationSim.setJoystickButtons(OIConstants.kDriverControllerPort, (int) values[6]);
+        controller.setPOV((int) values[7]);
+    }
+}
@@ -0,0 +1,198 @@
+package frc.robot.sim;
+
+import java.io.File;
+import java.util.List;
+import java.util.function.Consumer;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.trajectory.Trajectory;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj.simulation.DriverStationSim;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import edu.wpi.first.wpilibj.simulation.XboxControllerSim;
+import edu.wpi.first.wpilibj2.command.Command;
+import frc.robot.Constants.OIConstants;
+import frc.robot.Constants.SimConstants;
+import frc.robot.Robot;
+import frc.robot.RobotContainer;
+import frc.robot.telemetry.MatchLogger;
+
+/**
+ * Runs a whole simulated match, autonomous and then a scripted teleop, as fast as the CPU
+ * allows, and reports how well the autonomous path was followed.
+ *
+ * <p>The robot is built on the simulated hardware (see {@link RobotContainer#m_driveSim}).
+ * The simulated clock is paused, and the harness steps it by one loop period and runs the
+ * loop by hand, so a 15 s autonomous takes only as long as the code needs to run 750 loops.
+ * Path-tracking error is measured between the drivetrain's true simulated pose and the
+ * autonomous trajectory sampled at the same time.
+ *
+ * <p>The process exits with status 1 if the autonomous command doesn't finish within the
+ * autonomous period or the largest tracking error is over the limit, so this can gate CI.
+ * Everything the robot logs is written to build/sim/simulation.wpilog.
+ *
+ * <p>Run with: ./gradlew simulateMatch [--args="max tracking error in meters"]
+ */
+public final class SimHarness {
+
+    private static final double kAutonomousSeconds = 15.0;
+
+    /** One step of the scripted teleop: hold the controller in a state for some time. */
+    private static final class Step {
+        final String name;
+        final double seconds;
+        final Consumer<XboxControllerSim> controller;
+
+        Step(String name, double seconds, Consumer<XboxControllerSim> controller) {
+            this.name = name;
+            this.seconds = seconds;
+            this.controller = controller;
+        }
+    }
+
+    // Exercises every teleop binding at least once
+    private static final List<Step> kTeleopScript = List.of(
+        new Step("Drive forward", 2.0, c -> c.setLeftY(-0.8)),
+        new Step("Strafe left", 1.0, c -> c.setLeftX(-0.6)),
+        new Step("Spin", 1.5, c -> c.setRightX(0.7)),
+        new Step("Intake", 1.0, c -> c.setLeftTriggerAxis(1.0)),
+        new Step("Shoot", 1.0, c -> c.setRightTriggerAxis(1.0)),
+        new Step("Reverse", 0.5, c -> c.setLeftBumper(true)),
+        new Step("Auto aim", 1.0, c -> c.setRightBumper(true)),
+        new Step("Raise climbers", 2.0, c -> c.setPOV(0)),
+        new Step("Lower climbers", 2.5, c -> c.setPOV(180)),
+        // Zeroing the heading keeps the drive until something else needs it, so it goes last
+        new Step("Zero heading", 0.1, c -> c.setRightStickButton(true)),
+        new Step("Idle", 0.5, c -> {}));
+
+    private SimHarness() {}
+
+    public static void main(String... args) {
+        double maxErrorLimit = args.length > 0 ? Double.parseDouble(args[0]) : SimConstants.kMaxAutoTrackingErrorMeters;
+
+        if (!HAL.initialize(500, 0)) {
+            throw new IllegalStateException("Failed to initialize the HAL");
+        }
+        SimHooks.pauseTiming();
+        SimHooks.restartTiming();
+        DriverStationSim.setDsAttached(true);
+        DriverStationSim.setEnabled(false);
+        DriverStationSim.notifyNewData();
+
+        File logDir = new File("build/sim");
+        logDir.mkdirs();
+        DataLog log = new DataLog(logDir.getPath(), "simulation.wpilog");
+        MatchLogger.startReplay(log);
+
+        XboxControllerSim controller = new XboxControllerSim(OIConstants.kDriverControllerPort);
+        release(controller);
+
+        long initNanos = System.nanoTime();
+        Robot robot = new Robot();
+        robot.robotInit();
+        runCycle(robot);
+        double initSeconds = (System.nanoTime() - initNanos) / 1e9;
+
+        // Autonomous, from the start of the trajectory
+        long startNanos = System.nanoTime();
+        Trajectory trajectory = robot.getRobotContainer().getAutonomousTrajectory();
+        RobotContainer.m_driveSim.setPose(trajectory.getInitialPose());
+
+        DriverStationSim.setAutonomous(true);
+        DriverStationSim.setEnabled(true);
+        DriverStationSim.notifyNewData();
+
+        double autoStart = Timer.getFPGATimestamp();
+        double finishTime = Double.NaN;
+        double sumSquaredError = 0;
+        double maxError = 0;
+        int samples = 0;
+
+        while (Timer.getFPGATimestamp() - autoStart < kAutonomousSeconds) {
+            double t = Timer.getFPGATimestamp() - autoStart;
+            runCycle(robot);
+
+            if (!Double.isNaN(finishTime)) continue;
+
+            Command autonomous = robot.getAutonomousCommand();
+            if (autonomous != null && !autonomous.isScheduled()) {
+                finishTime = t;
+                continue;
+            }
+
+            Pose2d reference = trajectory.sample(t).poseMeters;
+            double error = RobotContainer.m_driveSim.getPose().getTranslation().getDistance(reference.getTranslation());
+            sumSquaredError += error * error;
+            maxError = Math.max(maxError, error);
+            samples++;
+        }
+        double finalError = RobotContainer.m_driveSim.getPose().getTranslation()
+            .getDistance(trajectory.getStates().get(trajectory.getStates().size() - 1).poseMeters.getTranslation());
+
+        // Scripted teleop
+        DriverStationSim.setAutonomous(false);
+        DriverStationSim.notifyNewData();
+
+        double teleopSeconds = 0;
+        for (Step step : kTeleopScript) {
+            release(controller);
+            step.controller.accept(controller);
+            DriverStationSim.notifyNewData();
+
+            double stepEnd = Timer.getFPGATimestamp() + step.seconds;
+            while (Timer.getFPGATimestamp() < stepEnd) {
+                runCycle(robot);
+            }
+            teleopSeconds += step.seconds;
+            System.out.printf("  %-16s ended at %s%n", step.name, RobotContainer.m_driveSim.getPose());
+        }
+        double wallSeconds = (System.nanoTime() - startNanos) / 1e9;
+
+        DriverStationSim.setEnabled(false);
+        DriverStationSim.notifyNewData();
+        runCycle(robot);
+        log.close();
+
+        boolean finished = !Double.isNaN(finishTime);
+        System.out.printf("Autonomous: %s (trajectory %.2f s), tracking error rms %.3f m, max %.3f m, final %.3f m%n",
+            finished ? String.format("finished in %.2f s", finishTime) : "did not finish",
+            trajectory.getTotalTimeSeconds(),
+            samples == 0 ? 0 : Math.sqrt(sumSquaredError / samples), maxError, finalError);
+        System.out.printf("Teleop: %.1f s scripted%n", teleopSeconds);
+        System.out.printf("Simulated %.1f s of robot time in %.3f s (%.0fx real time), plus %.3f s of robot init; log in %s%n",
+            kAutonomousSeconds + teleopSeconds, wallSeconds, (kAutonomousSeconds + teleopSeconds) / Math.max(wallSeconds, 1e-9),
+            initSeconds, new File(logDir, "simulation.wpilog"));
+
+        boolean passed = finished && maxError <= maxErrorLimit;
+        if (!passed) {
+            System.out.printf("FAILED: autonomous must finish with tracking error under %.3f m%n", maxErrorLimit);
+        }
+
+        // NetworkTables and vendor threads would otherwise keep the JVM alive
+        System.exit(passed ? 0 : 1);
+    }
+
+    /** Runs one robot loop, then moves the clock forward by one loop period. */
+    private static void runCycle(Robot robot) {
+        robot.runCycle();
+        MatchLogger.flush();
+        SimHooks.stepTiming(TimedRobot.kDefaultPeriod);
+    }
+
+    /** Centers the sticks and releases every button. */
+    private static void release(XboxControllerSim controller) {
+        controller.setLeftX(0);
+        controller.setLeftY(0);
+        controller.setRightX(0);
+        controller.setRightY(0);
+        controller.setLeftTriggerAxis(0);
+        controller.setRightTriggerAxis(0);
+        controller.setLeftBumper(false);
+        controller.setRightBumper(false);
+        controller.setRightStickButton(false);
+        controller.setPOV(-1);
+    }
+}
@@ -0,0 +1,32 @@
+package frc.robot.subsystems;
+
+/**
+ * The two climber motors and the limit switches at the bottom of their travel.
+ */
+public interface ClimberIO {
+
+    /**
+     * Sensor values of the climber, updated in place every cycle.
+     */
+    class ClimberIOInputs {
+        // Like DigitalInput.get(), true while the hook is clear of the switch
+        public boolean leftLimitSwitch = true;
+        public boolean rightLimitSwitch = true;
+    }
+
+    /**
+     * Reads the climber sensors into the given inputs.
+     *
+     * @param inputs the inputs to update
+     */
+    void updateInputs(ClimberIOInputs inputs);
+
+    /**
+     * Runs the climber motors open loop. The left motor is mounted inverted, so raising
+     * takes a negative left output and a positive right output.
+     *
+     * @param left the left motor duty cycle [-1, 1]
+     * @param right the right motor duty cycle [-1, 1]
+     */
+    void setDutyCycle(double left, double right);
+}
@@ -0,0 +1,42 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.TimedRobot;
+import frc.robot.Constants.NeoMotorConstants;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * Simulated climbers. Each side moves at the NEO's free speed times its output, between
+ * the bottom and the top of its travel, and its limit switch trips near the bottom. The
+ * climbers start fully lowered. They are stepped forward one robot loop every time the
+ * inputs are read.
+ */
+public class ClimberIOSim implements ClimberIO {
+
+    private static final double kFreeSpeedRps = NeoMotorConstants.kFreeSpeedRpm / 60;
+
+    // Motor rotations above the bottom of the travel
+    private double leftPosition = 0.0;
+    private double rightPosition = 0.0;
+
+    private double leftOutput = 0.0;
+    private double rightOutput = 0.0;
+
+    @Override
+    public void updateInputs(ClimberIOInputs inputs) {
+        double dt = TimedRobot.kDefaultPeriod;
+
+        // The left motor is inverted, so a negative output raises it
+        leftPosition = MathUtil.clamp(leftPosition - leftOutput * kFreeSpeedRps * dt, 0, SimConstants.kClimberTravelRotations);
+        rightPosition = MathUtil.clamp(rightPosition + rightOutput * kFreeSpeedRps * dt, 0, SimConstants.kClimberTravelRotations);
+
+        inputs.leftLimitSwitch = leftPosition > SimConstants.kClimberLimitSwitchRotations;
+        inputs.rightLimitSwitch = rightPosition > SimConstants.kClimberLimitSwitchRotations;
+    }
+
+    @Override
+    public void setDutyCycle(double left, double right) {
+        leftOutput = MathUtil.clamp(left, -1, 1);
+        rightOutput = MathUtil.clamp(right, -1, 1);
+    }
+}
@@ -0,0 +1,38 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkLowLevel.MotorType;
+
+import edu.wpi.first.wpilibj.DigitalInput;
+import frc.robot.CanBandwidth;
+import frc.robot.Constants.ClimbConstants;
+
+/**
+ * The climbers, each driven by a NEO on a SPARK MAX, with a limit switch at the bottom.
+ */
+public class ClimberIOSparkMax implements ClimberIO {
+
+    private final CANSparkMax m_rightClimber = new CANSparkMax(ClimbConstants.kRightClimbMotorCanId, MotorType.kBrushless);
+    private final CANSparkMax m_leftClimber = new CANSparkMax(ClimbConstants.kLeftClimbMotorCanId, MotorType.kBrushless);
+
+    private final DigitalInput m_rightLimitSwitch = new DigitalInput(ClimbConstants.kRightLimitSwitchPWMPort);
+    private final DigitalInput m_leftLimitSwitch = new DigitalInput(ClimbConstants.kLeftLimitSwitchPWMPort);
+
+    public ClimberIOSparkMax() {
+        // Nothing is read from the climber motors; the limit switches are on the roboRIO
+        CanBandwidth.sparkMax("Climber/Right", m_rightClimber);
+        CanBandwidth.sparkMax("Climber/Left", m_leftClimber);
+    }
+
+    @Override
+    public void updateInputs(ClimberIOInputs inputs) {
+        inputs.leftLimitSwitch = m_leftLimitSwitch.get();
+        inputs.rightLimitSwitch = m_rightLimitSwitch.get();
+    }
+
+    @Override
+    public void setDutyCycle(double left, double right) {
+        m_leftClimber.set(left);
+        m_rightClimber.set(right);
+    }
+}
@@ -1,43 +1,70 @@
 package frc.robot.subsystems;
 
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.CANSparkLowLevel.MotorType;
-
-import edu.wpi.first.wpilibj.DigitalInput;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Dashboard;
-import frc.robot.Constants.ClimbConstants;
+import frc.robot.Tunables;
+import frc.robot.subsystems.ClimberIO.ClimberIOInputs;
+import frc.robot.telemetry.LoopProfiler;
+import frc.robot.telemetry.MatchLogger;
 
 public class ClimbingSubsystem extends SubsystemBase {
 
-    private final CANSparkMax m_rightClimber = new CANSparkMax(ClimbConstants.kRightClimbMotorCanId, MotorType.kBrushless);
-    private final CANSparkMax m_leftClimber = new CANSparkMax(ClimbConstants.kLeftClimbMotorCanId, MotorType.kBrushless);
+    private final ClimberIO m_io;
+    private final ClimberIOInputs m_inputs = new ClimberIOInputs();
 
-    private final DigitalInput m_rightLimitSwitch = new DigitalInput(ClimbConstants.kRightLimitSwitchPWMPort);
-    private final DigitalInput m_leftLimitSwitch = new DigitalInput(ClimbConstants.kLeftLimitSwitchPWMPort);
+    // Last outputs sent to the motors
+    private double m_leftOutput = 0.0;
+    private double m_rightOutput = 0.0;
 
     private int raiseLowerFlag = 0;
 
+    private final LoopProfiler.Section profilerSection = LoopProfiler.section("Subsystems/Climbing");
+
+    private final MatchLogger.Channel outputLog = MatchLogger.channel("Climber/Outputs", 5,
+        "left, right duty cycle, left limit switch, right limit switch, movement");
+
+    /**
+     * Creates a new ClimbingSubsystem.
+     *
+     * @param io the climber hardware, real or simulated
+     */
+    public ClimbingSubsystem(ClimberIO io) {
+        m_io = io;
+    }
+
+    @Override
+    public void periodic() {
+        profilerSection.start();
+
+        m_io.updateInputs(m_inputs);
+
+        double[] values = outputLog.values();
+        values[0] = m_leftOutput;
+        values[1] = m_rightOutput;
+        values[2] = m_inputs.leftLimitSwitch ? 1 : 0;
+        values[3] = m_inputs.rightLimitSwitch ? 1 : 0;
+        values[4] = raiseLowerFlag;
+        outputLog.append();
+
+        profilerSection.stop();
+    }
+
     public void raiseClimbers() {
-        m_leftClimber.set(-Dashboard.MainTab.climbingSpeedEntry.getDouble(ClimbConstants.kDefaultClimbSpeed)); // left climber is inverted
-        m_rightClimber.set(Dashboard.MainTab.climbingSpeedEntry.getDouble(ClimbConstants.kDefaultClimbSpeed));
+        setOutputs(-Tunables.MainTab.climbingSpeed.get(), Tunables.MainTab.climbingSpeed.get()); // left climber is inverted
 
         raiseLowerFlag = 1;
     }
 
     public void stopClimbers() {
-        m_leftClimber.set(0);
-        m_rightClimber.set(0);
+        setOutputs(0, 0);
 
         raiseLowerFlag = 0;
     }
 
     public void lowerClimbers() {
         // as long as the hooks remain clear of the limit switches, they still have room to go down.
-        if (m_leftLimitSwitch.get()) m_leftClimber.set(Dashboard.MainTab.climbingSpeedEntry.getDouble(ClimbConstants.kDefaultClimbSpeed)); 
-            else m_leftClimber.set(0);
-        if (m_rightLimitSwitch.get()) m_rightClimber.set(-Dashboard.MainTab.climbingSpeedEntry.getDouble(ClimbConstants.kDefaultClimbSpeed)); 
-            else m_rightClimber.set(0);
+        double left = m_inputs.leftLimitSwitch ? Tunables.MainTab.climbingSpeed.get() : 0;
+        double right = m_inputs.rightLimitSwitch ? -Tunables.MainTab.climbingSpeed.get() : 0;
+        setOutputs(left, right);
 
         raiseLowerFlag = -1;
     }
@@ -51,4 +78,10 @@ public class ClimbingSubsystem extends SubsystemBase {
     public int getMovement() {
         return raiseLowerFlag;
     }
+
+    private void setOutputs(double left, double right) {
+        m_leftOutput = left;
+        m_rightOutput = right;
+        m_io.setDutyCycle(left, right);
+    }
 }
@@ -4,132 +4,429 @@
 
 package frc.robot.subsystems.Drive;
 
-import com.ctre.phoenix6.hardware.Pigeon2;
+import com.ctre.phoenix6.BaseStatusSignal;
 
-import edu.wpi.first.math.filter.SlewRateLimiter;
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
-import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.interpolation.TimeInterpolatableBuffer;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
-import edu.wpi.first.math.kinematics.SwerveDriveOdometry;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.networktables.NetworkTableInstance;
-import edu.wpi.first.networktables.StructArrayPublisher;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
 import edu.wpi.first.util.WPIUtilJNI;
-import frc.robot.Dashboard;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.MotorConfigurator;
+import frc.robot.Tunables;
+import frc.robot.Constants.AimConstants;
+import frc.robot.telemetry.LoopProfiler;
+import frc.robot.telemetry.MatchLogger;
+import frc.robot.telemetry.Telemetry;
+import frc.robot.telemetry.Telemetry.Tier;
 import frc.robot.Constants.DriveConstants;
-import frc.robot.Constants.ModuleConstants;
-import frc.utils.SwerveUtils;
+import frc.robot.Constants.TelemetryConstants;
+import frc.robot.replay.Replay;
+import frc.utils.PolarSlewRateLimiter;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
+import java.util.Optional;
+
 public class DriveSubsystem extends SubsystemBase {
-  // Create MAXSwerveModules
-  private final MAXSwerveModule m_frontLeft = new MAXSwerveModule(
-      DriveConstants.kFrontLeftDrivingCanId,
-      DriveConstants.kFrontLeftTurningCanId,
-      DriveConstants.kFrontLeftAbsoluteEncoderCanId,
-      DriveConstants.kFrontLeftChassisAngularOffset);
-
-  private final MAXSwerveModule m_frontRight = new MAXSwerveModule(
-      DriveConstants.kFrontRightDrivingCanId,
-      DriveConstants.kFrontRightTurningCanId,
-      DriveConstants.kFrontRightAbsoluteEncoderCanId,
-      DriveConstants.kFrontRightChassisAngularOffset);
-
-  private final MAXSwerveModule m_rearLeft = new MAXSwerveModule(
-      DriveConstants.kRearLeftDrivingCanId,
-      DriveConstants.kRearLeftTurningCanId,
-      DriveConstants.kRearLeftAbsoluteEncoderCanId,
-      DriveConstants.kBackLeftChassisAngularOffset);
-
-  private final MAXSwerveModule m_rearRight = new MAXSwerveModule(
-      DriveConstants.kRearRightDrivingCanId,
-      DriveConstants.kRearRightTurningCanId,
-      DriveConstants.kRearRightAbsoluteEncoderCanId,
-      DriveConstants.kBackRightChassisAngularOffset);
-
-  // The gyro sensor
-  private final Pigeon2 m_gyro = new Pigeon2(20);
-
-  // MAXSwerve NetworkTables publishers for AdvantageScope
-  private final StructArrayPublisher<SwerveModuleState> setPointsPublisher;
-  private final StructArrayPublisher<SwerveModuleState> actualValuesPublisher;
-  private final StructArrayPublisher<Rotation2d> gyroAnglePublisher;
-
-  // Slew rate filter variables for controlling lateral acceleration
-  private double m_currentRotation = 0.0;
-  private double m_currentTranslationDir = 0.0;
-  private double m_currentTranslationMag = 0.0;
-
-  private SlewRateLimiter m_magLimiter = new SlewRateLimiter(DriveConstants.kMagnitudeSlewRate);
-  private SlewRateLimiter m_rotLimiter = new SlewRateLimiter(DriveConstants.kRotationalSlewRate);
-  private double m_prevTime = WPIUtilJNI.now() * 1e-6;
-
-  // Odometry class for tracking robot pose
-  SwerveDriveOdometry m_odometry = new SwerveDriveOdometry(
-      DriveConstants.kDriveKinematics,
-      Rotation2d.fromDegrees(getHeading()),
-      new SwerveModulePosition[] {
-          m_frontLeft.getPosition(),
-          m_frontRight.getPosition(),
-          m_rearLeft.getPosition(),
-          m_rearRight.getPosition()
-      });
-
-  /** Creates a new DriveSubsystem. */
-  public DriveSubsystem() {
-
-    // Start publishing various values to NetworkTables. These are used for visualizing
-    // the swerve module states in AdvantageScope.
-    setPointsPublisher = NetworkTableInstance.getDefault()
-      .getStructArrayTopic("/SwerveStates/SetPoints", SwerveModuleState.struct).publish();
-    actualValuesPublisher = NetworkTableInstance.getDefault()
-      .getStructArrayTopic("/SwerveStates/ActualValues", SwerveModuleState.struct).publish();
-    gyroAnglePublisher = NetworkTableInstance.getDefault()
-      .getStructArrayTopic("/GyroAngle", Rotation2d.struct).publish();
+  // The swerve modules and gyro, on real or simulated hardware
+  private final MAXSwerveModule m_frontLeft;
+  private final MAXSwerveModule m_frontRight;
+  private final MAXSwerveModule m_rearLeft;
+  private final MAXSwerveModule m_rearRight;
+  private final GyroIO m_gyroIO;
+  private final GyroIO.GyroIOInputs m_gyroInputs = new GyroIO.GyroIOInputs();
+
+  // Every Phoenix 6 signal the drive reads, refreshed together once per loop. Empty
+  // when the hardware isn't CTRE's.
+  private final BaseStatusSignal[] m_signals;
+
+  // The physics model behind simulated hardware, stepped once per loop. Null on the robot.
+  private final SwerveDriveSim m_simulation;
+
+  // Gyro part of the per-cycle sensor snapshot (the module parts live in each module)
+  private double m_gyroAngleDegrees = 0.0; // clockwise positive, like Pigeon2.getAngle()
+  private double m_gyroRateDegreesPerSecond = 0.0; // clockwise positive, like Pigeon2.getRate()
+  private double m_inputTimestamp = 0.0;
+
+
+  // Preallocated module buffers. The modules update their positions and states in
+  // place, so these arrays are built once and reused every cycle.
+  private final SwerveModulePosition[] m_modulePositions;
+  private final SwerveModuleState[] m_desiredStates;
+  private final SwerveModuleState[] m_actualStates;
+  private final Rotation2d[] m_gyroAngles = new Rotation2d[] {new Rotation2d()};
+
+  // The heading is cached and only reallocated when the gyro reading changes
+  private Rotation2d m_heading = new Rotation2d();
+  private double m_headingDegrees = 0.0;
+
+  // Turns drive()'s chassis speed into module setpoints, without allocating
+  private final ModuleSetpoints m_setpoints;
+
+  private final LoopProfiler.Section m_profilerSection = LoopProfiler.section("Subsystems/Drive");
+
+  // Match log channels. Drive/Inputs and Drive/OdometrySamples together are everything
+  // the drive reads from its sensors, in the order it read them.
+  private final MatchLogger.Channel m_inputsLog = MatchLogger.channel("Drive/Inputs", 15,
+      "per module (FL, FR, RL, RR): drive position m, drive velocity m/s, angle rad; then gyro angle deg cw, gyro rate deg/s cw, snapshot timestamp s");
+  private final MatchLogger.Channel m_odometryLog = MatchLogger.channel("Drive/OdometrySamples", OdometryThread.kSampleSize,
+      "timestamp s, gyro angle deg cw, drive positions m (FL, FR, RL, RR), angles rad (FL, FR, RL, RR)");
+  private final MatchLogger.Channel m_setPointsLog = MatchLogger.channel("Drive/SetPoints", 8,
+      "per module (FL, FR, RL, RR): speed m/s, angle rad");
+  private final MatchLogger.Channel m_actualStatesLog = MatchLogger.channel("Drive/ActualStates", 8,
+      "per module (FL, FR, RL, RR): speed m/s, angle rad");
+  private final MatchLogger.Channel m_poseLog = MatchLogger.channel("Drive/Pose", 3, "x m, y m, heading rad");
+
+  // Slew rate filter for controlling lateral acceleration
+  private final PolarSlewRateLimiter m_inputLimiter = new PolarSlewRateLimiter(
+      DriveConstants.kDirectionSlewRate,
+      DriveConstants.kMagnitudeSlewRate,
+      DriveConstants.kRotationalSlewRate,
+      WPIUtilJNI.now() * 1e-6);
+
+  // Pose estimator for tracking robot pose. It fuses wheel odometry with
+  // timestamped vision measurements.
+  SwerveDrivePoseEstimator m_poseEstimator;
+
+  // High-rate odometry samples, drained into m_poseEstimator every cycle
+  private final OdometryThread m_odometryThread;
+  private final double[] m_odometrySample = m_odometryLog.values();
+  private final SwerveModulePosition[] m_sampledPositions = new SwerveModulePosition[] {
+      new SwerveModulePosition(), new SwerveModulePosition(),
+      new SwerveModulePosition(), new SwerveModulePosition()
+  };
+  private double m_lastOdometrySampleTime = 0.0;
+
+  // Recent gyro headings, so vision can look up where the robot pointed when a frame was captured
+  private final TimeInterpolatableBuffer<Rotation2d> m_headingHistory =
+      TimeInterpolatableBuffer.createBuffer(AimConstants.kHeadingHistorySeconds);
+
+  /**
+   * Builds the robot's MAXSwerve modules, in kinematics order, and waits for their SPARKS MAX
+   * to be configured. The eight SPARKS MAX configure in parallel. The modules seed their
+   * turning encoders when the subsystem is built, so the conversion factors must be in
+   * place first.
+   *
+   * @return the front left, front right, rear left and rear right modules
+   */
+  public static ModuleIO[] createRealModules() {
+    ModuleIO[] modules = new ModuleIO[] {
+        new ModuleIOSparkMax(
+            DriveConstants.kFrontLeftDrivingCanId,
+            DriveConstants.kFrontLeftTurningCanId,
+            DriveConstants.kFrontLeftAbsoluteEncoderCanId,
+            DriveConstants.kFrontLeftChassisAngularOffset),
+        new ModuleIOSparkMax(
+            DriveConstants.kFrontRightDrivingCanId,
+            DriveConstants.kFrontRightTurningCanId,
+            DriveConstants.kFrontRightAbsoluteEncoderCanId,
+            DriveConstants.kFrontRightChassisAngularOffset),
+        new ModuleIOSparkMax(
+            DriveConstants.kRearLeftDrivingCanId,
+            DriveConstants.kRearLeftTurningCanId,
+            DriveConstants.kRearLeftAbsoluteEncoderCanId,
+            DriveConstants.kBackLeftChassisAngularOffset),
+        new ModuleIOSparkMax(
+            DriveConstants.kRearRightDrivingCanId,
+            DriveConstants.kRearRightTurningCanId,
+            DriveConstants.kRearRightAbsoluteEncoderCanId,
+            DriveConstants.kBackRightChassisAngularOffset)
+    };
+
+    MotorConfigurator.awaitAll();
+    return modules;
+  }
+
+  /**
+   * Creates a new DriveSubsystem on a simulated drivetrain. The simulation is stepped
+   * once per loop by this subsystem.
+   *
+   * @param simulation the drivetrain physics model
+   */
+  public DriveSubsystem(SwerveDriveSim simulation) {
+    this(simulation, simulation.getGyro(),
+        simulation.getModule(0), simulation.getModule(1), simulation.getModule(2), simulation.getModule(3));
+  }
+
+  /**
+   * Creates a new DriveSubsystem on the given hardware.
+   *
+   * @param gyroIO the gyro
+   * @param frontLeftIO the front left module
+   * @param frontRightIO the front right module
+   * @param rearLeftIO the rear left module
+   * @param rearRightIO the rear right module
+   */
+  public DriveSubsystem(GyroIO gyroIO, ModuleIO frontLeftIO, ModuleIO frontRightIO, ModuleIO rearLeftIO, ModuleIO rearRightIO) {
+    this(null, gyroIO, frontLeftIO, frontRightIO, rearLeftIO, rearRightIO);
+  }
+
+  private DriveSubsystem(SwerveDriveSim simulation, GyroIO gyroIO,
+      ModuleIO frontLeftIO, ModuleIO frontRightIO, ModuleIO rearLeftIO, ModuleIO rearRightIO) {
+    m_simulation = simulation;
+    m_gyroIO = gyroIO;
+
+    // On CTRE hardware, the CANcoders and the Pigeon2 are refreshed in one batched call, and
+    // sampled at a high rate by the odometry thread. During log replay the recorded odometry
+    // samples are used instead of the thread.
+    if (gyroIO instanceof GyroIOPigeon2 pigeon
+        && frontLeftIO instanceof ModuleIOSparkMax frontLeftSpark
+        && frontRightIO instanceof ModuleIOSparkMax frontRightSpark
+        && rearLeftIO instanceof ModuleIOSparkMax rearLeftSpark
+        && rearRightIO instanceof ModuleIOSparkMax rearRightSpark) {
+      m_signals = new BaseStatusSignal[] {
+          frontLeftSpark.getTurningPositionSignal(),
+          frontRightSpark.getTurningPositionSignal(),
+          rearLeftSpark.getTurningPositionSignal(),
+          rearRightSpark.getTurningPositionSignal(),
+          pigeon.getYawSignal(),
+          pigeon.getYawRateSignal()
+      };
+      m_odometryThread = new OdometryThread(pigeon, frontLeftSpark, frontRightSpark, rearLeftSpark, rearRightSpark);
+    } else {
+      m_signals = new BaseStatusSignal[0];
+      m_odometryThread = null;
+    }
+
+    m_frontLeft = new MAXSwerveModule(frontLeftIO);
+    m_frontRight = new MAXSwerveModule(frontRightIO);
+    m_rearLeft = new MAXSwerveModule(rearLeftIO);
+    m_rearRight = new MAXSwerveModule(rearRightIO);
+    m_setpoints = new ModuleSetpoints(m_frontLeft, m_frontRight, m_rearLeft, m_rearRight);
+
+    m_modulePositions = new SwerveModulePosition[] {
+        m_frontLeft.getPosition(),
+        m_frontRight.getPosition(),
+        m_rearLeft.getPosition(),
+        m_rearRight.getPosition()
+    };
+    m_desiredStates = new SwerveModuleState[] {
+        m_frontLeft.getDesiredState(),
+        m_frontRight.getDesiredState(),
+        m_rearLeft.getDesiredState(),
+        m_rearRight.getDesiredState()
+    };
+    m_actualStates = new SwerveModuleState[] {
+        m_frontLeft.getState(),
+        m_frontRight.getState(),
+        m_rearLeft.getState(),
+        m_rearRight.getState()
+    };
+
+    // Take a first sensor snapshot so the odometry starts from real readings
+    refreshInputs();
+    m_poseEstimator = new SwerveDrivePoseEstimator(
+        DriveConstants.kDriveKinematics,
+        getRotation2d(),
+        updateModulePositions(),
+        new Pose2d());
+
+    if (m_odometryThread != null && !Replay.isActive()) {
+      m_odometryThread.start();
+    }
+
+    // Update MAXSwerveModule PID values from Shuffleboard, only when they change
+    Tunables.onChange(
+      () -> setDrivingPIDValues(Tunables.MainTab.driveP.get(), Tunables.MainTab.driveI.get(), Tunables.MainTab.driveD.get()),
+      Tunables.MainTab.driveP, Tunables.MainTab.driveI, Tunables.MainTab.driveD);
+    Tunables.onChange(
+      () -> setTurningPIDValues(Tunables.MainTab.turnP.get(), Tunables.MainTab.turnI.get(), Tunables.MainTab.turnD.get()),
+      Tunables.MainTab.turnP, Tunables.MainTab.turnI, Tunables.MainTab.turnD);
+
+    // Publish various values to NetworkTables, at the rates the telemetry profile allows.
+    // These are used for visualizing the swerve module states in AdvantageScope.
+    Telemetry.structArray("/SwerveStates/SetPoints", SwerveModuleState.struct, Tier.kDebug, TelemetryConstants.kLoopRateHz, () -> m_desiredStates);
+    Telemetry.structArray("/SwerveStates/ActualValues", SwerveModuleState.struct, Tier.kNormal, TelemetryConstants.kLoopRateHz, () -> m_actualStates);
+    Telemetry.structArray("/GyroAngle", Rotation2d.struct, Tier.kCritical, TelemetryConstants.kLoopRateHz, () -> m_gyroAngles);
   }
 
   @Override
   public void periodic() {
-    // Update the odometry in the periodic block
-    m_odometry.update(
-        Rotation2d.fromDegrees(getHeading()),
-        new SwerveModulePosition[] {
-            m_frontLeft.getPosition(),
-            m_frontRight.getPosition(),
-            m_rearLeft.getPosition(),
-            m_rearRight.getPosition()
-        });
-
-    // Update MAXSwerveModule states for AdvantageScope
-    setPointsPublisher.set(new SwerveModuleState[] {
-      m_frontLeft.getDesiredState(),
-      m_frontRight.getDesiredState(),
-      m_rearLeft.getDesiredState(),
-      m_rearRight.getDesiredState()
-    });
-    actualValuesPublisher.set(new SwerveModuleState[] {
-      m_frontLeft.getState(),
-      m_frontRight.getState(),
-      m_rearLeft.getState(),
-      m_rearRight.getState()
-    });
-    gyroAnglePublisher.set(new Rotation2d[] {
-      Rotation2d.fromDegrees(getHeading())
-    });
-
-    // Update MAXSwerveModule PID values from Shuffleboard
-    setDrivingPIDValues(new double[] {
-      Dashboard.MainTab.drivePEntry.getDouble(ModuleConstants.kDrivingP),
-      Dashboard.MainTab.driveIEntry.getDouble(ModuleConstants.kDrivingI),
-      Dashboard.MainTab.driveDEntry.getDouble(ModuleConstants.kDrivingD)
-    });
-    setTurningPIDValues(new double[] {
-      Dashboard.MainTab.turnPEntry.getDouble(ModuleConstants.kTurningP),
-      Dashboard.MainTab.turnIEntry.getDouble(ModuleConstants.kTurningI),
-      Dashboard.MainTab.turnDEntry.getDouble(ModuleConstants.kTurningD)
-    });
+    m_profilerSection.start();
+
+    // Sample every drive sensor once. Everything else this cycle (odometry, publishers,
+    // drive(), commands) reads from this snapshot.
+    refreshInputs();
+
+    // Update the pose estimator in the periodic block
+    updateOdometry();
+
+    logOutputs();
+
+    m_profilerSection.stop();
+
+  }
+
+  /**
+   * Updates the module states and heading Telemetry sends, and logs the setpoints, the
+   * actual states and the pose. Package-private, like refreshInputs() and
+   * updateOdometry(), so DriveAllocationTest can measure each step of periodic() apart.
+   */
+  void logOutputs() {
+    // Update MAXSwerveModule states for AdvantageScope. The module state objects
+    // are updated in place, so Telemetry sends the same arrays every time.
+    m_frontLeft.getState();
+    m_frontRight.getState();
+    m_rearLeft.getState();
+    m_rearRight.getState();
+    m_gyroAngles[0] = getRotation2d();
+
+    logStates(m_setPointsLog, m_desiredStates);
+    logStates(m_actualStatesLog, m_actualStates);
+
+    Pose2d pose = getPose();
+    double[] poseValues = m_poseLog.values();
+    poseValues[0] = pose.getX();
+    poseValues[1] = pose.getY();
+    poseValues[2] = pose.getRotation().getRadians();
+    m_poseLog.append();
+  }
+
+  @Override
+  public void simulationPeriodic() {
+    if (m_simulation != null) {
+      m_simulation.update(TimedRobot.kDefaultPeriod);
+    }
+  }
+
+  /**
+   * Applies every sample the odometry thread has collected since the last cycle, in
+   * order, each with its own timestamp so vision measurements can be fused at the right time. If the thread has stopped producing samples (e.g. a device is unplugged),
+   * falls back to the main loop's sensor snapshot so the pose keeps updating.
+   */
+  void updateOdometry() {
+    while (pollOdometrySample()) {
+      m_odometryLog.append();
+
+      for (int i = 0; i < m_sampledPositions.length; i++) {
+        SwerveModulePosition position = m_sampledPositions[i];
+        double angle = m_odometrySample[OdometryThread.kTurnAngle + i];
+
+        position.distanceMeters = m_odometrySample[OdometryThread.kDrivePosition + i];
+        if (angle != position.angle.getRadians()) {
+          position.angle = new Rotation2d(angle);
+        }
+      }
+
+      Rotation2d gyroAngle = Rotation2d.fromDegrees(-m_odometrySample[OdometryThread.kGyroAngle]);
+      m_poseEstimator.updateWithTime(m_odometrySample[OdometryThread.kTimestamp], gyroAngle, m_sampledPositions);
+      m_headingHistory.addSample(m_odometrySample[OdometryThread.kTimestamp], gyroAngle);
+      m_lastOdometrySampleTime = m_odometrySample[OdometryThread.kTimestamp];
+    }
+
+    if (m_inputTimestamp - m_lastOdometrySampleTime > 5 / DriveConstants.kOdometryFrequencyHz) {
+      m_poseEstimator.updateWithTime(m_inputTimestamp, getRotation2d(), updateModulePositions());
+      m_headingHistory.addSample(m_inputTimestamp, getRotation2d());
+    }
+  }
+
+  private boolean pollOdometrySample() {
+    if (Replay.isActive()) return Replay.pollOdometrySample(m_odometrySample);
+    return m_odometryThread != null && m_odometryThread.poll(m_odometrySample);
+  }
+
+  /**
+   * Refreshes all CANcoder and Pigeon2 signals in a single batched call, then
+   * copies them and the SPARK MAX encoder readings into the per-cycle snapshot.
+   * In simulation there are no signals to refresh and the snapshot comes from the
+   * physics model. During log replay, the snapshot is taken from the log instead.
+   */
+  void refreshInputs() {
+    if (Replay.isActive()) {
+      replayInputs();
+    } else {
+      if (m_signals.length > 0) {
+        BaseStatusSignal.refreshAll(m_signals);
+      }
+
+      m_frontLeft.updateInputs();
+      m_frontRight.updateInputs();
+      m_rearLeft.updateInputs();
+      m_rearRight.updateInputs();
+
+      m_gyroIO.updateInputs(m_gyroInputs);
+      m_gyroAngleDegrees = m_gyroInputs.angleDegrees;
+      m_gyroRateDegreesPerSecond = m_gyroInputs.rateDegreesPerSecond;
+      m_inputTimestamp = Timer.getFPGATimestamp();
+    }
+
+    double[] inputs = m_inputsLog.values();
+    logModuleInputs(inputs, 0, m_frontLeft);
+    logModuleInputs(inputs, 3, m_frontRight);
+    logModuleInputs(inputs, 6, m_rearLeft);
+    logModuleInputs(inputs, 9, m_rearRight);
+    inputs[12] = m_gyroAngleDegrees;
+    inputs[13] = m_gyroRateDegreesPerSecond;
+    inputs[14] = m_inputTimestamp;
+    m_inputsLog.append();
+  }
+
+  /** Loads the sensor snapshot from the current replay cycle's Drive/Inputs record. */
+  private void replayInputs() {
+    double[] inputs = Replay.getDriveInputs();
+    if (inputs == null) return;
+
+    m_frontLeft.setInputs(inputs[0], inputs[1], inputs[2]);
+    m_frontRight.setInputs(inputs[3], inputs[4], inputs[5]);
+    m_rearLeft.setInputs(inputs[6], inputs[7], inputs[8]);
+    m_rearRight.setInputs(inputs[9], inputs[10], inputs[11]);
+    m_gyroAngleDegrees = inputs[12];
+    m_gyroRateDegreesPerSecond = inputs[13];
+    m_inputTimestamp = inputs[14];
+  }
+
+  private static void logModuleInputs(double[] inputs, int offset, MAXSwerveModule module) {
+    inputs[offset] = module.getPosition().distanceMeters;
+    inputs[offset + 1] = module.getState().speedMetersPerSecond;
+    inputs[offset + 2] = module.getAngleRadians();
+  }
+
+  private static void logStates(MatchLogger.Channel channel, SwerveModuleState[] states) {
+    double[] values = channel.values();
+    for (int i = 0; i < states.length; i++) {
+      values[2 * i] = states[i].speedMetersPerSecond;
+      values[2 * i + 1] = states[i].angle.getRadians();
+    }
+    channel.append();
+  }
+
+  /**
+   * Returns the number of odometry samples dropped because the main loop fell behind.
+   *
+   * @return the dropped sample count
+   */
+  public long getDroppedOdometrySamples() {
+    return m_odometryThread == null ? 0 : m_odometryThread.getDroppedSamples();
+  }
+
+  /**
+   * Returns the FPGA timestamp at which the current sensor snapshot was taken.
+   *
+   * @return the snapshot timestamp (s)
+   */
+  public double getInputTimestamp() {
+    return m_inputTimestamp;
+  }
+
+  /**
+   * Refreshes the module positions in place and returns the shared buffer.
+   *
+   * @return the module positions, in kinematics order
+   */
+  private SwerveModulePosition[] updateModulePositions() {
+    m_frontLeft.getPosition();
+    m_frontRight.getPosition();
+    m_rearLeft.getPosition();
+    m_rearRight.getPosition();
+    return m_modulePositions;
   }
 
   /**
@@ -138,7 +435,19 @@ public class DriveSubsystem extends SubsystemBase {
    * @return The pose.
    */
   public Pose2d getPose() {
-    return m_odometry.getPoseMeters();
+    return m_poseEstimator.getEstimatedPosition();
+  }
+
+  /**
+   * Fuses a vision pose measurement into the pose estimate. The estimator rewinds to
+   * the capture time, applies the correction there and replays the odometry since.
+   *
+   * @param visionPose the robot pose measured by vision
+   * @param timestampSeconds the FPGA time at which the camera frame was captured
+   * @param stdDevs the measurement standard deviations (x and y in meters, heading in radians)
+   */
+  public void addVisionMeasurement(Pose2d visionPose, double timestampSeconds, Matrix<N3, N1> stdDevs) {
+    m_poseEstimator.addVisionMeasurement(visionPose, timestampSeconds, stdDevs);
   }
 
   /**
@@ -147,15 +456,11 @@ public class DriveSubsystem extends SubsystemBase {
    * @param pose The pose to which to set the odometry.
    */
   public void resetOdometry(Pose2d pose) {
-    m_odometry.resetPosition(
-        Rotation2d.fromDegrees(getHeading()),
-        new SwerveModulePosition[] {
-            m_frontLeft.getPosition(),
-            m_frontRight.getPosition(),
-            m_rearLeft.getPosition(),
-            m_rearRight.getPosition()
-        },
-        pose);
+    // Samples taken before the reset would move the new pose, so throw them away
+    if (m_odometryThread != null) {
+      m_odometryThread.clear();
+    }
+    m_poseEstimator.resetPosition(getRotation2d(), updateModulePositions(), pose);
   }
 
   /**
@@ -173,69 +478,29 @@ public class DriveSubsystem extends SubsystemBase {
     double xSpeedCommanded;
     double ySpeedCommanded;
 
-    if (rateLimit) {
-      // Convert XY to polar for rate limiting
-      double inputTranslationDir = Math.atan2(ySpeed, xSpeed);
-      double inputTranslationMag = Math.sqrt(Math.pow(xSpeed, 2) + Math.pow(ySpeed, 2));
-
-      // Calculate the direction slew rate based on an estimate of the lateral acceleration
-      double directionSlewRate;
-      if (m_currentTranslationMag != 0.0) {
-        directionSlewRate = Math.abs(DriveConstants.kDirectionSlewRate / m_currentTranslationMag);
-      } else {
-        directionSlewRate = 500.0; //some high number that means the slew rate is effectively instantaneous
-      }
-
-
-      double currentTime = WPIUtilJNI.now() * 1e-6;
-      double elapsedTime = currentTime - m_prevTime;
-      double angleDif = SwerveUtils.AngleDifference(inputTranslationDir, m_currentTranslationDir);
-      if (angleDif < 0.45*Math.PI) {
-        m_currentTranslationDir = SwerveUtils.StepTowardsCircular(m_currentTranslationDir, inputTranslationDir, directionSlewRate * elapsedTime);
-        m_currentTranslationMag = m_magLimiter.calculate(inputTranslationMag);
-      }
-      else if (angleDif > 0.85*Math.PI) {
-        if (m_currentTranslationMag > 1e-4) { //some small number to avoid floating-point errors with equality checking
-          // keep currentTranslationDir unchanged
-          m_currentTranslationMag = m_magLimiter.calculate(0.0);
-        }
-        else {
-          m_currentTranslationDir = SwerveUtils.WrapAngle(m_currentTranslationDir + Math.PI);
-          m_currentTranslationMag = m_magLimiter.calculate(inputTranslationMag);
-        }
-      }
-      else {
-        m_currentTranslationDir = SwerveUtils.StepTowardsCircular(m_currentTranslationDir, inputTranslationDir, directionSlewRate * elapsedTime);
-        m_currentTranslationMag = m_magLimiter.calculate(0.0);
-      }
-      m_prevTime = currentTime;
-
-      xSpeedCommanded = m_currentTranslationMag * Math.cos(m_currentTranslationDir);
-      ySpeedCommanded = m_currentTranslationMag * Math.sin(m_currentTranslationDir);
-      m_currentRotation = m_rotLimiter.calculate(rot);
-
+    double rotCommanded;
 
+    if (rateLimit) {
+      m_inputLimiter.calculate(xSpeed, ySpeed, rot, WPIUtilJNI.now() * 1e-6);
+      xSpeedCommanded = m_inputLimiter.getX();
+      ySpeedCommanded = m_inputLimiter.getY();
+      rotCommanded = m_inputLimiter.getRotation();
     } else {
       xSpeedCommanded = xSpeed;
       ySpeedCommanded = ySpeed;
-      m_currentRotation = rot;
+      rotCommanded = rot;
     }
 
     // Convert the commanded speeds into the correct units for the drivetrain
     double xSpeedDelivered = xSpeedCommanded * getMaxDrivingSpeed();
     double ySpeedDelivered = ySpeedCommanded * getMaxDrivingSpeed();
-    double rotDelivered = m_currentRotation * DriveConstants.kMaxAngularSpeed;
+    double rotDelivered = rotCommanded * DriveConstants.kMaxAngularSpeed;
 
-    var swerveModuleStates = DriveConstants.kDriveKinematics.toSwerveModuleStates(
-        fieldRelative
-            ? ChassisSpeeds.fromFieldRelativeSpeeds(xSpeedDelivered, ySpeedDelivered, rotDelivered, Rotation2d.fromDegrees(getHeading()))
-            : new ChassisSpeeds(xSpeedDelivered, ySpeedDelivered, rotDelivered));
-    SwerveDriveKinematics.desaturateWheelSpeeds(
-        swerveModuleStates, getMaxDrivingSpeed());
-    m_frontLeft.setDesiredState(swerveModuleStates[0]);
-    m_frontRight.setDesiredState(swerveModuleStates[1]);
-    m_rearLeft.setDesiredState(swerveModuleStates[2]);
-    m_rearRight.setDesiredState(swerveModuleStates[3]);
+    if (fieldRelative) {
+      m_setpoints.fieldRelative(xSpeedDelivered, ySpeedDelivered, rotDelivered, Math.toRadians(getHeading()), getMaxDrivingSpeed());
+    } else {
+      m_setpoints.robotRelative(xSpeedDelivered, ySpeedDelivered, rotDelivered, getMaxDrivingSpeed());
+    }
   }
 
   /**
@@ -272,7 +537,8 @@ public class DriveSubsystem extends SubsystemBase {
 
   /** Zeroes the heading of the robot. */
   public void zeroHeading() {
-    m_gyro.reset();
+    m_gyroIO.reset();
+    m_gyroAngleDegrees = 0.0;
   }
 
   /**
@@ -281,8 +547,33 @@ public class DriveSubsystem extends SubsystemBase {
    * @return the robot's heading in degrees, from -180 to 180
    */
   public double getHeading() {
-    // the m_gyro.getAngle() is negative because we need to invert it
-    return Rotation2d.fromDegrees(-m_gyro.getAngle()).getDegrees();
+    // the gyro angle is negative because we need to invert it
+    return Math.toDegrees(MathUtil.angleModulus(Math.toRadians(-m_gyroAngleDegrees)));
+  }
+
+  /**
+   * Returns the heading of the robot as a Rotation2d. The object is cached and
+   * only reallocated when the heading changes.
+   *
+   * @return the robot's heading
+   */
+  public Rotation2d getRotation2d() {
+    double heading = getHeading();
+    if (heading != m_headingDegrees) {
+      m_headingDegrees = heading;
+      m_heading = Rotation2d.fromDegrees(heading);
+    }
+    return m_heading;
+  }
+
+  /**
+   * Returns the gyro heading of the robot at a past time, interpolated between samples.
+   *
+   * @param timestampSeconds the FPGA time to look up
+   * @return the heading at that time, or empty if there is no history yet
+   */
+  public Optional<Rotation2d> getHeadingAt(double timestampSeconds) {
+    return m_headingHistory.getSample(timestampSeconds);
   }
 
   /**
@@ -297,12 +588,13 @@ public class DriveSubsystem extends SubsystemBase {
 
   /**
    * Returns the max speed of the robot from Shuffleboard. This must be a function because
-   * the value changes in live time.
+   * the value changes in live time. The value is cached by {@link Tunables}, so this
+   * does not touch NetworkTables.
    * 
    * @return the max driving speed of the robot (m/s)
    */
   public double getMaxDrivingSpeed() {
-    return Dashboard.MainTab.maxSpeedEntry.getDouble(DriveConstants.kMaxSpeedMetersPerSecond);
+    return Tunables.MainTab.maxSpeed.get();
   }
 
   /**
@@ -311,7 +603,7 @@ public class DriveSubsystem extends SubsystemBase {
    * @return The turn rate of the robot, in degrees per second
    */
   public double getTurnRate() {
-    return m_gyro.getRate() * (DriveConstants.kGyroReversed ? -1.0 : 1.0);
+    return m_gyroRateDegreesPerSecond * (DriveConstants.kGyroReversed ? -1.0 : 1.0);
   }
 
   /**
@@ -321,15 +613,23 @@ public class DriveSubsystem extends SubsystemBase {
    * @throws IllegalArgumentException the values argument does not have exactly 3 elements
    */
   public void setDrivingPIDValues(double[] values) throws IllegalArgumentException {
-    // Set the PID values for all modules
-    try {
-      m_frontLeft.setDrivingPIDValues(values);
-      m_frontRight.setDrivingPIDValues(values);
-      m_rearLeft.setDrivingPIDValues(values);
-      m_rearRight.setDrivingPIDValues(values);
-    } catch (IllegalArgumentException e) {
-      throw e;
-    }
+    if (values.length != 3) throw new IllegalArgumentException("Argument does not have exactly 3 elements.");
+
+    setDrivingPIDValues(values[0], values[1], values[2]);
+  }
+
+  /**
+   * Sets the P, I, and D gains for the driving motors on the MAXSwerveModules
+   *
+   * @param p The proportional gain.
+   * @param i The integral gain.
+   * @param d The derivative gain.
+   */
+  public void setDrivingPIDValues(double p, double i, double d) {
+    m_frontLeft.setDrivingPIDValues(p, i, d);
+    m_frontRight.setDrivingPIDValues(p, i, d);
+    m_rearLeft.setDrivingPIDValues(p, i, d);
+    m_rearRight.setDrivingPIDValues(p, i, d);
   }
 
   /**
@@ -339,14 +639,22 @@ public class DriveSubsystem extends SubsystemBase {
    * @throws IllegalArgumentException the values argument does not have exactly 3 elements
    */
   public void setTurningPIDValues(double[] values) throws IllegalArgumentException {
-    // Set the PID values for all modules
-    try {
-      m_frontLeft.setTurningPIDValues(values);
-      m_frontRight.setTurningPIDValues(values);
-      m_rearLeft.setTurningPIDValues(values);
-      m_rearRight.setTurningPIDValues(values);
-    } catch (IllegalArgumentException e) {
-      throw e;
-    }
+    if (values.length != 3) throw new IllegalArgumentException("Argument does not have exactly 3 elements.");
+
+    setTurningPIDValues(values[0], values[1], values[2]);
+  }
+
+  /**
+   * Sets the P, I, and D gains for the turning motors on the MAXSwerveModules
+   *
+   * @param p The proportional gain.
+   * @param i The integral gain.
+   * @param d The derivative gain.
+   */
+  public void setTurningPIDValues(double p, double i, double d) {
+    m_frontLeft.setTurningPIDValues(p, i, d);
+    m_frontRight.setTurningPIDValues(p, i, d);
+    m_rearLeft.setTurningPIDValues(p, i, d);
+    m_rearRight.setTurningPIDValues(p, i, d);
   }
 }
\ No newline at end of file
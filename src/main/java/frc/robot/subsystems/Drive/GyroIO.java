@@ -0,0 +1,25 @@
+package frc.robot.subsystems.Drive;
+
+/**
+ * The robot's gyro. Angles follow the Pigeon2.getAngle() convention: clockwise positive.
+ */
+public interface GyroIO {
+
+  /**
+   * Sensor values of the gyro, updated in place every cycle.
+   */
+  class GyroIOInputs {
+    public double angleDegrees = 0.0; // clockwise positive
+    public double rateDegreesPerSecond = 0.0; // clockwise positive
+  }
+
+  /**
+   * Reads the gyro into the given inputs.
+   *
+   * @param inputs the inputs to update
+   */
+  void updateInputs(GyroIOInputs inputs);
+
+  /** Zeroes the gyro angle. */
+  void reset();
+}
@@ -0,0 +1,63 @@
+package frc.robot.subsystems.Drive;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.hardware.Pigeon2;
+
+import frc.robot.CanBandwidth;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * A CTRE Pigeon 2.0.
+ */
+public class GyroIOPigeon2 implements GyroIO {
+
+  private final Pigeon2 pigeon;
+  private final StatusSignal<Double> yaw;
+  private final StatusSignal<Double> yawRate;
+
+  /**
+   * @param canId the Pigeon2's CAN ID
+   */
+  public GyroIOPigeon2(int canId) {
+    pigeon = new Pigeon2(canId);
+    yaw = pigeon.getYaw();
+    yawRate = pigeon.getAngularVelocityZWorld();
+
+    // Sampled by the odometry thread
+    CanBandwidth.phoenix("Drive/Pigeon2", pigeon)
+        .uses(yaw, DriveConstants.kOdometryFrequencyHz)
+        .uses(yawRate, DriveConstants.kOdometryFrequencyHz);
+  }
+
+  /**
+   * Returns the yaw signal. It should be refreshed together with the other drive signals
+   * using {@link BaseStatusSignal#refreshAll(BaseStatusSignal...)} before
+   * {@link #updateInputs(GyroIOInputs)} is called.
+   *
+   * @return the yaw status signal (degrees, counterclockwise positive)
+   */
+  public StatusSignal<Double> getYawSignal() {
+    return yaw;
+  }
+
+  /**
+   * Returns the yaw rate signal, refreshed the same way as {@link #getYawSignal()}.
+   *
+   * @return the yaw rate status signal (degrees per second, counterclockwise positive)
+   */
+  public StatusSignal<Double> getYawRateSignal() {
+    return yawRate;
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    inputs.angleDegrees = -yaw.getValueAsDouble();
+    inputs.rateDegreesPerSecond = -yawRate.getValueAsDouble();
+  }
+
+  @Override
+  public void reset() {
+    pigeon.reset();
+  }
+}
@@ -0,0 +1,28 @@
+package frc.robot.subsystems.Drive;
+
+/**
+ * A simulated gyro that reads the true heading of a {@link SwerveDriveSim}.
+ */
+public class GyroIOSim implements GyroIO {
+
+  private final SwerveDriveSim drive;
+  private double offsetRadians = 0.0;
+
+  /**
+   * @param drive the simulated drivetrain the gyro is mounted on
+   */
+  public GyroIOSim(SwerveDriveSim drive) {
+    this.drive = drive;
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    inputs.angleDegrees = -Math.toDegrees(drive.getPose().getRotation().getRadians() - offsetRadians);
+    inputs.rateDegreesPerSecond = -Math.toDegrees(drive.getYawRateRadiansPerSecond());
+  }
+
+  @Override
+  public void reset() {
+    offsetRadians = drive.getPose().getRotation().getRadians();
+  }
+}
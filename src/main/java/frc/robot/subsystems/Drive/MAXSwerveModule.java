@@ -4,88 +4,171 @@
 
 package frc.robot.subsystems.Drive;
 
+import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.controller.PIDController;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
 
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.CANSparkLowLevel.MotorType;
-import com.ctre.phoenix6.hardware.CANcoder;
-import com.revrobotics.RelativeEncoder;
-
 import frc.robot.Constants.ModuleConstants;
+import frc.robot.subsystems.Drive.ModuleIO.ModuleIOInputs;
 
 public class MAXSwerveModule {
-  private final CANSparkMax m_drivingSparkMax;
-  private final CANSparkMax m_turningSparkMax;
+  private static final Rotation2d kHalfTurn = Rotation2d.fromRadians(Math.PI);
+
+  /** Where the module's driving and turning control loops run. */
+  public enum ControlMode {
+    /** WPILib PIDControllers on the roboRIO, sending duty cycle at the robot loop rate. */
+    kRoboRIO,
+    /** The SPARK MAX onboard closed loop, running at 1 kHz on the motor controller. */
+    kSparkMax
+  }
 
-  private final RelativeEncoder m_drivingEncoder;
-  private final CANcoder m_turningEncoder;
+  // The module hardware, real or simulated
+  private final ModuleIO m_io;
+  private final ModuleIOInputs m_inputs = new ModuleIOInputs();
 
   private final PIDController m_drivingPIDController;
   private final PIDController m_turningPIDController;
 
-  private double m_chassisAngularOffset = 0;
-  private SwerveModuleState m_desiredState = new SwerveModuleState(0.0, new Rotation2d());
+  // Onboard closed loop, used when the control mode is kSparkMax. The turning loop runs on
+  // the NEO's internal encoder, which is seeded from the CANcoder.
+  private final ControlMode m_controlMode;
+
+  // Last gains sent, so unchanged gains are never re-sent over CAN
+  private double m_drivingP = ModuleConstants.kDrivingP;
+  private double m_drivingI = ModuleConstants.kDrivingI;
+  private double m_drivingD = ModuleConstants.kDrivingD;
+  private double m_turningP = ModuleConstants.kTurningP;
+  private double m_turningI = ModuleConstants.kTurningI;
+  private double m_turningD = ModuleConstants.kTurningD;
+
+  // Mutable state holders. These are updated in place every cycle so that the
+  // drive loop does not produce garbage on the roboRIO's small heap.
+  private final SwerveModuleState m_desiredState = new SwerveModuleState(0.0, new Rotation2d());
+  private final SwerveModuleState m_state = new SwerveModuleState(0.0, new Rotation2d());
+  private final SwerveModulePosition m_position = new SwerveModulePosition(0.0, new Rotation2d());
+
+  // Per-cycle sensor snapshot, filled in by updateInputs(). Every reader in the
+  // same loop sees these values instead of going back to the hardware.
+  private double m_drivePositionMeters = 0.0;
+  private double m_driveVelocityMetersPerSecond = 0.0;
+  private double m_angleRadians = 0.0;
+
+  // How many cycles in a row the module has been parked with the same turning setpoint,
+  // and that setpoint. The turning encoder is only re-seeded after it has been at rest.
+  private int m_restCycles = 0;
+  private double m_restSetpointRadians = 0.0;
+
+  // Rotation2d is immutable, so the last angle is cached and only replaced when it changes
+  private Rotation2d m_angle = new Rotation2d();
+
+  // Setpoint handed to setDesiredState() by the flat-array overload, and its cached angle
+  private final SwerveModuleState m_setpoint = new SwerveModuleState(0.0, new Rotation2d());
+  private double m_setpointAngleRadians = 0.0;
+
+  // Cached flipped setpoint used by the optimization in setDesiredState(), and the angle
+  // it was flipped from. Keyed by value, since callers hand in a new Rotation2d each time.
+  private double m_flipSourceRadians = Double.NaN;
+  private Rotation2d m_flipped = null;
 
   /**
-   * Constructs a MAXSwerveModule and configures the driving and turning motor,
-   * encoder, and PID controller. This configuration is specific to the REV
-   * MAXSwerve Module built with NEOs, SPARKS MAX, and a Through Bore
-   * Encoder.
+   * Constructs a MAXSwerveModule on the given hardware, with the default control mode.
+   *
+   * @param io the module hardware
    */
-  public MAXSwerveModule(int drivingCANId, int turningCANId, int turningEncoderCANId, double chassisAngularOffset) {
-    m_drivingSparkMax = new CANSparkMax(drivingCANId, MotorType.kBrushless);
-    m_turningSparkMax = new CANSparkMax(turningCANId, MotorType.kBrushless);
-
-    // Factory reset, so we get the SPARKS MAX to a known state before configuring
-    // them. This is useful in case a SPARK MAX is swapped out.
-    m_drivingSparkMax.restoreFactoryDefaults();
-    m_turningSparkMax.restoreFactoryDefaults();
-
-    m_drivingSparkMax.setInverted(true);
-    m_turningSparkMax.setInverted(true);
+  public MAXSwerveModule(ModuleIO io) {
+    this(io, ModuleConstants.kControlMode);
+  }
 
-    // Setup encoders and PID controllers for the driving and turning SPARKS MAX.
-    m_drivingEncoder = m_drivingSparkMax.getEncoder(); // for some reason this works even though I don't think it should???
-    m_turningEncoder = new CANcoder(turningEncoderCANId);
+  /**
+   * Constructs a MAXSwerveModule with the given control mode.
+   *
+   * @param io the module hardware
+   * @param controlMode whether the control loops run on the roboRIO or on the SPARK MAX
+   */
+  public MAXSwerveModule(ModuleIO io, ControlMode controlMode) {
+    m_io = io;
+    m_controlMode = controlMode;
 
     m_drivingPIDController = new PIDController(ModuleConstants.kDrivingP, ModuleConstants.kDrivingI, ModuleConstants.kDrivingD);
     m_turningPIDController = new PIDController(ModuleConstants.kTurningP, ModuleConstants.kTurningI, ModuleConstants.kTurningD);
 
-    // Apply position and velocity conversion factors for the driving encoder. The
-    // native units for position and velocity are rotations and RPM, respectively,
-    // but we want meters and meters per second to use with WPILib's swerve APIs.
-    m_drivingEncoder.setPositionConversionFactor(ModuleConstants.kDrivingEncoderPositionFactor);
-    m_drivingEncoder.setVelocityConversionFactor(ModuleConstants.kDrivingEncoderVelocityFactor);
-
     // Enable PID wrap around for the turning motor. This will allow the PID
     // controller to go through 0 to get to the setpoint i.e. going from 350 degrees
     // to 10 degrees will go through 0 rather than the other direction which is a
     // longer route.
-
     m_turningPIDController.enableContinuousInput(ModuleConstants.kTurningEncoderPositionPIDMinInput, ModuleConstants.kTurningEncoderPositionPIDMaxInput);
 
-    // Set the PID gains for the driving motor. Note these are example gains, and you
-    // may need to tune them for your own robot!
-    m_drivingPIDController.setP(ModuleConstants.kDrivingP);
-    m_drivingPIDController.setI(ModuleConstants.kDrivingI);
-    m_drivingPIDController.setD(ModuleConstants.kDrivingD);
+    updateInputs();
+    m_desiredState.angle = getAngle();
+    seedTurningMotorEncoder();
+  }
 
-    m_drivingSparkMax.setIdleMode(ModuleConstants.kDrivingMotorIdleMode);
-    m_turningSparkMax.setIdleMode(ModuleConstants.kTurningMotorIdleMode);
-    m_drivingSparkMax.setSmartCurrentLimit(ModuleConstants.kDrivingMotorCurrentLimit);
-    m_turningSparkMax.setSmartCurrentLimit(ModuleConstants.kTurningMotorCurrentLimit);
+  /**
+   * Sets the turning NEO's internal encoder to the absolute angle from the CANcoder,
+   * so the onboard turning loop starts from the true module angle.
+   */
+  public void seedTurningMotorEncoder() {
+    m_io.setTurningMotorAngle(MathUtil.inputModulus(m_angleRadians, 0, 2 * Math.PI));
+  }
 
-    // Save the SPARK MAX configurations. If a SPARK MAX browns out during
-    // operation, it will maintain the above configurations.
-    m_drivingSparkMax.burnFlash();
-    m_turningSparkMax.burnFlash();
+  /**
+   * Copies the latest sensor values into this module's snapshot. On the robot, the
+   * CANcoder signal is expected to have been refreshed already (see
+   * {@link ModuleIOSparkMax#getTurningPositionSignal()}).
+   */
+  public void updateInputs() {
+    m_io.updateInputs(m_inputs);
+    setInputs(m_inputs.drivePositionMeters, m_inputs.driveVelocityMetersPerSecond, m_inputs.angleRadians);
+
+    // The internal encoder can slip relative to the CANcoder over a match. Once the
+    // module has been parked for a while, check it against the CANcoder and re-seed it if
+    // it drifted. A moving module would read stale NEO positions and re-seed for nothing.
+    if (m_controlMode == ControlMode.kSparkMax
+        && isAtRest()
+        && Math.abs(MathUtil.angleModulus(m_inputs.turningMotorAngleRadians - m_angleRadians)) > ModuleConstants.kTurningReseedTolerance) {
+      seedTurningMotorEncoder();
+      // Wait for a NEO position taken after the re-seed before checking again
+      m_restCycles = 0;
+    }
+  }
 
-    m_chassisAngularOffset = chassisAngularOffset;
-    m_desiredState.angle = getAngle();
-    m_drivingEncoder.setPosition(0);
+  /**
+   * Counts the cycles the module has been parked: not driving, not turning, and holding the
+   * same turning setpoint.
+   *
+   * @return whether the module has been parked for {@link ModuleConstants#kTurningReseedRestCycles}
+   */
+  private boolean isAtRest() {
+    double setpointRadians = m_desiredState.angle.getRadians();
+    boolean parked = m_desiredState.speedMetersPerSecond == 0.0
+        && Math.abs(m_driveVelocityMetersPerSecond) < ModuleConstants.kTurningReseedMaxSpeed
+        && Math.abs(m_inputs.turningMotorVelocityRadiansPerSecond) < ModuleConstants.kTurningReseedMaxTurnRate
+        && setpointRadians == m_restSetpointRadians;
+
+    m_restSetpointRadians = setpointRadians;
+    m_restCycles = parked ? m_restCycles + 1 : 0;
+    return m_restCycles >= ModuleConstants.kTurningReseedRestCycles;
+  }
+
+  /**
+   * Sets this module's snapshot directly, instead of reading it from the hardware.
+   * {@link #updateInputs()} goes through here, and log replay calls it with recorded values.
+   *
+   * @param drivePositionMeters the driving distance (m)
+   * @param driveVelocityMetersPerSecond the driving speed (m/s)
+   * @param angleRadians the module angle relative to the chassis (rad)
+   */
+  public void setInputs(double drivePositionMeters, double driveVelocityMetersPerSecond, double angleRadians) {
+    m_drivePositionMeters = drivePositionMeters;
+    m_driveVelocityMetersPerSecond = driveVelocityMetersPerSecond;
+
+    // Only allocate a new Rotation2d if the module has actually turned
+    if (angleRadians != m_angleRadians) {
+      m_angleRadians = angleRadians;
+      m_angle = new Rotation2d(angleRadians);
+    }
   }
 
   /**
@@ -94,32 +177,46 @@ public class MAXSwerveModule {
    * @return The current angle of the module.
    */
   public Rotation2d getAngle() {
-    // The encoder's getPosition() method returns total rotations, so we need to
-    // multiply by 2pi to get the angle in radians and then modulo to get the non-cumulative angle.
-    return new Rotation2d(((m_turningEncoder.getPosition().getValueAsDouble() * 2 * Math.PI) % (2 * Math.PI)) - m_chassisAngularOffset);
+    return m_angle;
   }
 
   /**
-   * Returns the current state of the module.
+   * Returns the current angle of the module in radians, without allocating.
+   *
+   * @return The current angle of the module (rad).
+   */
+  public double getAngleRadians() {
+    return m_angleRadians;
+  }
+
+  /**
+   * Returns the current state of the module. The returned object is owned by the
+   * module and is updated in place on every call, so callers should not hold on to it
+   * expecting a frozen copy.
    *
    * @return The current state of the module.
    */
   public SwerveModuleState getState() {
     // Apply chassis angular offset to the encoder position to get the position
     // relative to the chassis.
-    return new SwerveModuleState(m_drivingEncoder.getVelocity(), getAngle());
+    m_state.speedMetersPerSecond = m_driveVelocityMetersPerSecond;
+    m_state.angle = m_angle;
+    return m_state;
   }
 
   /**
-   * Returns the current position of the module.
+   * Returns the current position of the module. The returned object is owned by the
+   * module and is updated in place on every call, so callers should not hold on to it
+   * expecting a frozen copy.
    *
    * @return The current position of the module.
    */
   public SwerveModulePosition getPosition() {
     // Apply chassis angular offset to the encoder position to get the position
     // relative to the chassis.
-    return new SwerveModulePosition(
-        m_drivingEncoder.getPosition(), getAngle());
+    m_position.distanceMeters = m_drivePositionMeters;
+    m_position.angle = m_angle;
+    return m_position;
   }
 
   /**
@@ -132,9 +229,24 @@ public class MAXSwerveModule {
 
     if (values.length != 3) throw new IllegalArgumentException("Argument does not have exactly 3 elements.");
 
-    m_drivingPIDController.setP(values[0]);
-    m_drivingPIDController.setI(values[1]);
-    m_drivingPIDController.setD(values[2]);
+    setDrivingPIDValues(values[0], values[1], values[2]);
+  }
+
+  /**
+   * Sets the P, I, and D gains for the driving motor.
+   *
+   * @param p The proportional gain.
+   * @param i The integral gain.
+   * @param d The derivative gain.
+   */
+  public void setDrivingPIDValues(double p, double i, double d) {
+    if (p == m_drivingP && i == m_drivingI && d == m_drivingD) return;
+
+    m_drivingP = p;
+    m_drivingI = i;
+    m_drivingD = d;
+    m_drivingPIDController.setPID(p, i, d);
+    m_io.setDrivePID(p, i, d);
   }
 
   /**
@@ -147,9 +259,24 @@ public class MAXSwerveModule {
 
     if (values.length != 3) throw new IllegalArgumentException("Argument does not have exactly 3 elements.");
 
-    m_turningPIDController.setP(values[0]);
-    m_turningPIDController.setI(values[1]);
-    m_turningPIDController.setD(values[2]);
+    setTurningPIDValues(values[0], values[1], values[2]);
+  }
+
+  /**
+   * Sets the P, I, and D gains for the turning motor.
+   *
+   * @param p The proportional gain.
+   * @param i The integral gain.
+   * @param d The derivative gain.
+   */
+  public void setTurningPIDValues(double p, double i, double d) {
+    if (p == m_turningP && i == m_turningI && d == m_turningD) return;
+
+    m_turningP = p;
+    m_turningI = i;
+    m_turningD = d;
+    m_turningPIDController.setPID(p, i, d);
+    m_io.setTurnPID(p, i, d);
   }
 
   /**
@@ -158,18 +285,62 @@ public class MAXSwerveModule {
    * @param desiredState Desired state with speed and angle.
    */
   public void setDesiredState(SwerveModuleState desiredState) {
+    double currentAngle = m_angleRadians;
+    double speed = desiredState.speedMetersPerSecond;
+    Rotation2d angle = desiredState.angle;
 
     // Optimize the reference state to avoid spinning further than 90 degrees.
-    SwerveModuleState optimizedDesiredState = SwerveModuleState.optimize(desiredState, getAngle());
+    // This is the same math as SwerveModuleState.optimize(), done in place.
+    if (Math.abs(MathUtil.angleModulus(angle.getRadians() - currentAngle)) > Math.PI / 2) {
+      speed = -speed;
+      angle = flip(angle);
+    }
 
     // Command driving and turning SPARKS MAX towards their respective setpoints.
-    m_drivingSparkMax.set(m_drivingPIDController.calculate(getState().speedMetersPerSecond, optimizedDesiredState.speedMetersPerSecond));
-    m_turningSparkMax.set(m_turningPIDController.calculate(getAngle().getRadians(), optimizedDesiredState.angle.getRadians()));
-    m_desiredState = optimizedDesiredState;
+    if (m_controlMode == ControlMode.kSparkMax) {
+      m_io.setDriveVelocity(speed);
+      m_io.setTurnPosition(MathUtil.inputModulus(angle.getRadians(), 0, 2 * Math.PI));
+    } else {
+      m_io.setDriveDutyCycle(m_drivingPIDController.calculate(m_driveVelocityMetersPerSecond, speed));
+      m_io.setTurnDutyCycle(m_turningPIDController.calculate(currentAngle, angle.getRadians()));
+    }
+
+    m_desiredState.speedMetersPerSecond = speed;
+    m_desiredState.angle = angle;
+  }
+
+  /**
+   * Sets the desired state for the module from plain values. A new Rotation2d is only
+   * made when the angle changes.
+   *
+   * @param speedMetersPerSecond Desired speed (m/s).
+   * @param angleRadians Desired angle relative to the chassis (rad).
+   */
+  public void setDesiredState(double speedMetersPerSecond, double angleRadians) {
+    if (angleRadians != m_setpointAngleRadians) {
+      m_setpointAngleRadians = angleRadians;
+      m_setpoint.angle = new Rotation2d(angleRadians);
+    }
+    m_setpoint.speedMetersPerSecond = speedMetersPerSecond;
+    setDesiredState(m_setpoint);
+  }
+
+  /**
+   * Returns the given angle rotated by 180 degrees, reusing the previous
+   * result when the same setpoint angle is flipped on consecutive cycles.
+   */
+  private Rotation2d flip(Rotation2d angle) {
+    double radians = angle.getRadians();
+    if (radians != m_flipSourceRadians) {
+      m_flipSourceRadians = radians;
+      m_flipped = angle.rotateBy(kHalfTurn);
+    }
+    return m_flipped;
   }
 
   /**
-   * Gets the desired state for the module
+   * Gets the desired state for the module. The returned object is owned by the
+   * module and is updated in place by {@link #setDesiredState(SwerveModuleState)}.
    *
    * @return Desired state with speed and angle.
    */
@@ -179,6 +350,7 @@ public class MAXSwerveModule {
 
   /** Zeroes all the SwerveModule encoders. */
   public void resetEncoders() {
-    m_drivingEncoder.setPosition(0);
+    m_io.resetDrivePosition();
+    m_drivePositionMeters = 0.0;
   }
 }
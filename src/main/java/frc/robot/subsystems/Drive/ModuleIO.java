@@ -0,0 +1,87 @@
+package frc.robot.subsystems.Drive;
+
+/**
+ * The hardware of one swerve module: a driving motor, a turning motor and an absolute
+ * turning encoder. {@link MAXSwerveModule} holds the control logic and talks to the
+ * hardware only through this interface, so it runs the same on the robot
+ * ({@link ModuleIOSparkMax}) and in simulation ({@link ModuleIOSim}).
+ */
+public interface ModuleIO {
+
+  /**
+   * Sensor values of one module, updated in place every cycle.
+   */
+  class ModuleIOInputs {
+    public double drivePositionMeters = 0.0;
+    public double driveVelocityMetersPerSecond = 0.0;
+    /** Absolute module angle relative to the chassis (rad). */
+    public double angleRadians = 0.0;
+    /** Module angle measured by the turning motor's own encoder (rad). */
+    public double turningMotorAngleRadians = 0.0;
+    /** Module turning speed measured by the turning motor's own encoder (rad/s). */
+    public double turningMotorVelocityRadiansPerSecond = 0.0;
+  }
+
+  /**
+   * Reads the module's sensors into the given inputs.
+   *
+   * @param inputs the inputs to update
+   */
+  void updateInputs(ModuleIOInputs inputs);
+
+  /**
+   * Sets the driving motor's duty cycle.
+   *
+   * @param output the duty cycle (-1 to 1)
+   */
+  void setDriveDutyCycle(double output);
+
+  /**
+   * Sets the turning motor's duty cycle.
+   *
+   * @param output the duty cycle (-1 to 1)
+   */
+  void setTurnDutyCycle(double output);
+
+  /**
+   * Runs the driving motor controller's own velocity loop.
+   *
+   * @param velocityMetersPerSecond the wheel speed setpoint (m/s)
+   */
+  void setDriveVelocity(double velocityMetersPerSecond);
+
+  /**
+   * Runs the turning motor controller's own position loop.
+   *
+   * @param angleRadians the module angle setpoint, from 0 to 2pi (rad)
+   */
+  void setTurnPosition(double angleRadians);
+
+  /**
+   * Sets the gains of the driving motor controller's velocity loop.
+   *
+   * @param p The proportional gain.
+   * @param i The integral gain.
+   * @param d The derivative gain.
+   */
+  void setDrivePID(double p, double i, double d);
+
+  /**
+   * Sets the gains of the turning motor controller's position loop.
+   *
+   * @param p The proportional gain.
+   * @param i The integral gain.
+   * @param d The derivative gain.
+   */
+  void setTurnPID(double p, double i, double d);
+
+  /**
+   * Sets the turning motor's encoder to the given module angle.
+   *
+   * @param angleRadians the module angle, from 0 to 2pi (rad)
+   */
+  void setTurningMotorAngle(double angleRadians);
+
+  /** Zeroes the driving encoder. */
+  void resetDrivePosition();
+}
@@ -0,0 +1,147 @@
+package frc.robot.subsystems.Drive;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import frc.robot.Constants.ModuleConstants;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * A simulated MAXSwerve module. The driving NEO and turning NEO 550 are modeled as DC
+ * motors driving the wheel and the module through their reductions. The SPARK MAX
+ * onboard loops are emulated with the same gains, run once per simulation step.
+ *
+ * <p>The module only moves when {@link #update(double)} is called, which
+ * {@link SwerveDriveSim} does once per robot loop.
+ */
+public class ModuleIOSim implements ModuleIO {
+
+  private enum Mode { kDutyCycle, kClosedLoop }
+
+  private final DCMotorSim driveSim = new DCMotorSim(
+      DCMotor.getNEO(1), ModuleConstants.kDrivingMotorReduction, SimConstants.kDriveMoiKgMetersSquared);
+  private final DCMotorSim turnSim = new DCMotorSim(
+      DCMotor.getNeo550(1), ModuleConstants.kTurningMotorReduction, SimConstants.kTurnMoiKgMetersSquared);
+
+  private final PIDController drivePID =
+      new PIDController(ModuleConstants.kDrivingP, ModuleConstants.kDrivingI, ModuleConstants.kDrivingD);
+  private final PIDController turnPID =
+      new PIDController(ModuleConstants.kTurningP, ModuleConstants.kTurningI, ModuleConstants.kTurningD);
+
+  private Mode driveMode = Mode.kDutyCycle;
+  private Mode turnMode = Mode.kDutyCycle;
+  private double driveSetpoint = 0.0;
+  private double turnSetpoint = 0.0;
+
+  // The turning motor encoder can be re-seeded, so it is kept as an offset from the true angle
+  private double turningMotorOffset = 0.0;
+  private double drivePositionOffset = 0.0;
+
+  public ModuleIOSim() {
+    turnPID.enableContinuousInput(
+        ModuleConstants.kTurningEncoderPositionPIDMinInput, ModuleConstants.kTurningEncoderPositionPIDMaxInput);
+  }
+
+  /**
+   * Runs the motor controllers and steps the motors forward in time.
+   *
+   * @param dtSeconds the time step (s)
+   */
+  public void update(double dtSeconds) {
+    double driveOutput = driveSetpoint;
+    if (driveMode == Mode.kClosedLoop) {
+      driveOutput = ModuleConstants.kDrivingFF * driveSetpoint
+          + drivePID.calculate(getDriveVelocityMetersPerSecond(), driveSetpoint);
+    }
+
+    double turnOutput = turnSetpoint;
+    if (turnMode == Mode.kClosedLoop) {
+      turnOutput = turnPID.calculate(getTurningMotorAngle(), turnSetpoint);
+    }
+
+    driveSim.setInputVoltage(MathUtil.clamp(driveOutput, -1, 1) * SimConstants.kNominalVoltage);
+    turnSim.setInputVoltage(MathUtil.clamp(turnOutput, -1, 1) * SimConstants.kNominalVoltage);
+    driveSim.update(dtSeconds);
+    turnSim.update(dtSeconds);
+  }
+
+  /**
+   * Returns the true wheel distance, without any encoder reset.
+   *
+   * @return the distance (m)
+   */
+  public double getTrueDrivePositionMeters() {
+    return driveSim.getAngularPositionRad() * ModuleConstants.kWheelDiameterMeters / 2;
+  }
+
+  /**
+   * Returns the true module angle relative to the chassis.
+   *
+   * @return the angle (rad)
+   */
+  public double getTrueAngleRadians() {
+    return MathUtil.angleModulus(turnSim.getAngularPositionRad());
+  }
+
+  private double getDriveVelocityMetersPerSecond() {
+    return driveSim.getAngularVelocityRadPerSec() * ModuleConstants.kWheelDiameterMeters / 2;
+  }
+
+  private double getTurningMotorAngle() {
+    return MathUtil.inputModulus(turnSim.getAngularPositionRad() + turningMotorOffset, 0, 2 * Math.PI);
+  }
+
+  @Override
+  public void updateInputs(ModuleIOInputs inputs) {
+    inputs.drivePositionMeters = getTrueDrivePositionMeters() - drivePositionOffset;
+    inputs.driveVelocityMetersPerSecond = getDriveVelocityMetersPerSecond();
+    inputs.angleRadians = getTrueAngleRadians();
+    inputs.turningMotorAngleRadians = getTurningMotorAngle();
+    inputs.turningMotorVelocityRadiansPerSecond = turnSim.getAngularVelocityRadPerSec();
+  }
+
+  @Override
+  public void setDriveDutyCycle(double output) {
+    driveMode = Mode.kDutyCycle;
+    driveSetpoint = output;
+  }
+
+  @Override
+  public void setTurnDutyCycle(double output) {
+    turnMode = Mode.kDutyCycle;
+    turnSetpoint = output;
+  }
+
+  @Override
+  public void setDriveVelocity(double velocityMetersPerSecond) {
+    driveMode = Mode.kClosedLoop;
+    driveSetpoint = velocityMetersPerSecond;
+  }
+
+  @Override
+  public void setTurnPosition(double angleRadians) {
+    turnMode = Mode.kClosedLoop;
+    turnSetpoint = angleRadians;
+  }
+
+  @Override
+  public void setDrivePID(double p, double i, double d) {
+    drivePID.setPID(p, i, d);
+  }
+
+  @Override
+  public void setTurnPID(double p, double i, double d) {
+    turnPID.setPID(p, i, d);
+  }
+
+  @Override
+  public void setTurningMotorAngle(double angleRadians) {
+    turningMotorOffset = angleRadians - turnSim.getAngularPositionRad();
+  }
+
+  @Override
+  public void resetDrivePosition() {
+    drivePositionOffset = getTrueDrivePositionMeters();
+  }
+}
@@ -0,0 +1,190 @@
+package frc.robot.subsystems.Drive;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusSignal;
+import com.ctre.phoenix6.hardware.CANcoder;
+import com.revrobotics.CANSparkBase.ControlType;
+import com.revrobotics.CANSparkLowLevel.MotorType;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkPIDController;
+
+import frc.robot.CanBandwidth;
+import frc.robot.CanBandwidth.SparkSignal;
+import frc.robot.Constants.CanConstants;
+import frc.robot.Constants.DriveConstants;
+import frc.robot.Constants.ModuleConstants;
+import frc.robot.MotorConfigurator;
+import frc.robot.SparkMaxConfig;
+
+/**
+ * A REV MAXSwerve module built with NEOs, SPARKS MAX, and a CANcoder for the
+ * absolute turning angle.
+ */
+public class ModuleIOSparkMax implements ModuleIO {
+
+  private final CANSparkMax drivingSparkMax;
+  private final CANSparkMax turningSparkMax;
+
+  private final RelativeEncoder drivingEncoder;
+  private final RelativeEncoder turningMotorEncoder;
+  private final CANcoder turningEncoder;
+  private final StatusSignal<Double> turningPosition;
+
+  private final SparkPIDController drivingSparkPID;
+  private final SparkPIDController turningSparkPID;
+
+  private final double chassisAngularOffset;
+
+  // The driving loop uses the driving encoder (already in meters per second), and the
+  // turning loop uses the NEO's internal encoder scaled to radians of the module output
+  private static final SparkMaxConfig kDrivingConfig = new SparkMaxConfig()
+      .inverted(true)
+      .idleMode(ModuleConstants.kDrivingMotorIdleMode)
+      .smartCurrentLimit(ModuleConstants.kDrivingMotorCurrentLimit)
+      .encoderConversion(ModuleConstants.kDrivingEncoderPositionFactor, ModuleConstants.kDrivingEncoderVelocityFactor)
+      .pidf(ModuleConstants.kDrivingP, ModuleConstants.kDrivingI, ModuleConstants.kDrivingD, ModuleConstants.kDrivingFF)
+      .outputRange(ModuleConstants.kDrivingMinOutput, ModuleConstants.kDrivingMaxOutput);
+
+  private static final SparkMaxConfig kTurningConfig = new SparkMaxConfig()
+      .inverted(true)
+      .idleMode(ModuleConstants.kTurningMotorIdleMode)
+      .smartCurrentLimit(ModuleConstants.kTurningMotorCurrentLimit)
+      .encoderConversion(ModuleConstants.kTurningMotorEncoderPositionFactor, ModuleConstants.kTurningMotorEncoderVelocityFactor)
+      .pidf(ModuleConstants.kTurningP, ModuleConstants.kTurningI, ModuleConstants.kTurningD, ModuleConstants.kTurningFF)
+      .outputRange(ModuleConstants.kTurningMinOutput, ModuleConstants.kTurningMaxOutput)
+      .positionWrapping(ModuleConstants.kTurningEncoderPositionPIDMinInput, ModuleConstants.kTurningEncoderPositionPIDMaxInput);
+
+  /**
+   * Starts configuring the driving and turning motors, encoders, and onboard PID
+   * controllers. Call {@link MotorConfigurator#awaitAll()} before using the module.
+   *
+   * @param drivingCANId the driving SPARK MAX's CAN ID
+   * @param turningCANId the turning SPARK MAX's CAN ID
+   * @param turningEncoderCANId the CANcoder's CAN ID
+   * @param chassisAngularOffset the module's angle relative to the chassis (rad)
+   */
+  public ModuleIOSparkMax(int drivingCANId, int turningCANId, int turningEncoderCANId, double chassisAngularOffset) {
+    this.chassisAngularOffset = chassisAngularOffset;
+
+    drivingSparkMax = new CANSparkMax(drivingCANId, MotorType.kBrushless);
+    turningSparkMax = new CANSparkMax(turningCANId, MotorType.kBrushless);
+
+    // Setup encoders for the driving and turning SPARKS MAX.
+    drivingEncoder = drivingSparkMax.getEncoder(); // for some reason this works even though I don't think it should???
+    turningMotorEncoder = turningSparkMax.getEncoder();
+    turningEncoder = new CANcoder(turningEncoderCANId);
+    turningPosition = turningEncoder.getPosition();
+
+    drivingSparkPID = drivingSparkMax.getPIDController();
+    turningSparkPID = turningSparkMax.getPIDController();
+
+    // Configured in the background, and only if the SPARKS MAX don't already have these
+    // settings. The driving position is zeroed once its conversion factor is in place.
+    MotorConfigurator.configure("Drive/Driving" + drivingCANId, drivingSparkMax, kDrivingConfig)
+        .thenRun(() -> drivingEncoder.setPosition(0));
+    MotorConfigurator.configure("Drive/Turning" + turningCANId, turningSparkMax, kTurningConfig);
+
+    turningPosition.refresh();
+
+    // The odometry thread samples the driving position and the CANcoder faster than the
+    // robot loop. The turning NEO's position and velocity are only used to check it
+    // against the CANcoder while the module is at rest.
+    CanBandwidth.sparkMax("Drive/Driving" + drivingCANId, drivingSparkMax)
+        .uses(SparkSignal.kVelocity, CanConstants.kLoopRateHz)
+        .uses(SparkSignal.kPosition, DriveConstants.kOdometryFrequencyHz);
+    CanBandwidth.sparkMax("Drive/Turning" + turningCANId, turningSparkMax)
+        .uses(SparkSignal.kVelocity, CanConstants.kLoopRateHz)
+        .uses(SparkSignal.kPosition, CanConstants.kLoopRateHz);
+    CanBandwidth.phoenix("Drive/CANcoder" + turningEncoderCANId, turningEncoder)
+        .uses(turningPosition, DriveConstants.kOdometryFrequencyHz);
+  }
+
+  /**
+   * Returns the CANcoder position signal of this module. It should be refreshed
+   * together with the other drive signals using
+   * {@link BaseStatusSignal#refreshAll(BaseStatusSignal...)} before
+   * {@link #updateInputs(ModuleIOInputs)} is called.
+   *
+   * @return the CANcoder position status signal
+   */
+  public StatusSignal<Double> getTurningPositionSignal() {
+    return turningPosition;
+  }
+
+  /**
+   * Converts a CANcoder reading into the module angle relative to the chassis.
+   *
+   * @param turningRotations the CANcoder position (rotations)
+   * @return the module angle (rad)
+   */
+  public double toModuleAngle(double turningRotations) {
+    // The encoder's position signal is total rotations, so we need to multiply
+    // by 2pi to get the angle in radians and then modulo to get the non-cumulative angle.
+    return ((turningRotations * 2 * Math.PI) % (2 * Math.PI)) - chassisAngularOffset;
+  }
+
+  /**
+   * Reads the driving encoder position straight from the SPARK MAX. This is meant for
+   * the odometry thread only.
+   *
+   * @return the driving distance (m)
+   */
+  public double readDrivingPosition() {
+    return drivingEncoder.getPosition();
+  }
+
+  @Override
+  public void updateInputs(ModuleIOInputs inputs) {
+    // The CANcoder signal has already been refreshed; the SPARK MAX encoders are read once here
+    inputs.drivePositionMeters = drivingEncoder.getPosition();
+    inputs.driveVelocityMetersPerSecond = drivingEncoder.getVelocity();
+    inputs.angleRadians = toModuleAngle(turningPosition.getValueAsDouble());
+    inputs.turningMotorAngleRadians = turningMotorEncoder.getPosition();
+    inputs.turningMotorVelocityRadiansPerSecond = turningMotorEncoder.getVelocity();
+  }
+
+  @Override
+  public void setDriveDutyCycle(double output) {
+    drivingSparkMax.set(output);
+  }
+
+  @Override
+  public void setTurnDutyCycle(double output) {
+    turningSparkMax.set(output);
+  }
+
+  @Override
+  public void setDriveVelocity(double velocityMetersPerSecond) {
+    drivingSparkPID.setReference(velocityMetersPerSecond, ControlType.kVelocity);
+  }
+
+  @Override
+  public void setTurnPosition(double angleRadians) {
+    turningSparkPID.setReference(angleRadians, ControlType.kPosition);
+  }
+
+  @Override
+  public void setDrivePID(double p, double i, double d) {
+    drivingSparkPID.setP(p);
+    drivingSparkPID.setI(i);
+    drivingSparkPID.setD(d);
+  }
+
+  @Override
+  public void setTurnPID(double p, double i, double d) {
+    turningSparkPID.setP(p);
+    turningSparkPID.setI(i);
+    turningSparkPID.setD(d);
+  }
+
+  @Override
+  public void setTurningMotorAngle(double angleRadians) {
+    turningMotorEncoder.setPosition(angleRadians);
+  }
+
+  @Override
+  public void resetDrivePosition() {
+    drivingEncoder.setPosition(0);
+  }
+}
@@ -0,0 +1,81 @@
+package frc.robot.subsystems.Drive;
+
+import frc.robot.Constants.DriveConstants;
+import frc.utils.SwerveKernel;
+
+/**
+ * ModuleSetpoints turns a chassis speed into setpoints for the four swerve modules and
+ * sends them. It is the kinematics half of {@link DriveSubsystem#drive}, kept apart so the
+ * WarmUp can run exactly the same code on its own modules.
+ *
+ * <p>The math runs on flat arrays in {@link SwerveKernel}: inverse kinematics, then
+ * desaturation, then each module is optimized against its current angle and its speed is
+ * scaled by how far it still has to turn. Nothing is allocated.
+ */
+public final class ModuleSetpoints {
+
+  private final MAXSwerveModule[] m_modules;
+
+  private final SwerveKernel m_kernel = new SwerveKernel(DriveConstants.kWheelBase, DriveConstants.kTrackWidth);
+  private final double[] m_chassisSpeeds = new double[3];
+  private final double[] m_moduleStates = new double[SwerveKernel.kStateSize];
+  private final double[] m_moduleAngles = new double[SwerveKernel.kModules];
+
+  /**
+   * Creates a new ModuleSetpoints.
+   *
+   * @param modules the front left, front right, rear left and rear right modules
+   */
+  public ModuleSetpoints(MAXSwerveModule... modules) {
+    if (modules.length != SwerveKernel.kModules) {
+      throw new IllegalArgumentException("Expected " + SwerveKernel.kModules + " modules, got " + modules.length);
+    }
+    m_modules = modules;
+  }
+
+  /**
+   * Drives the modules at a speed relative to the robot.
+   *
+   * @param vx forward speed (m/s)
+   * @param vy leftward speed (m/s)
+   * @param omega counterclockwise angular rate (rad/s)
+   * @param maxSpeed the fastest any module may be driven (m/s)
+   */
+  public void robotRelative(double vx, double vy, double omega, double maxSpeed) {
+    m_chassisSpeeds[0] = vx;
+    m_chassisSpeeds[1] = vy;
+    m_chassisSpeeds[2] = omega;
+    apply(maxSpeed);
+  }
+
+  /**
+   * Drives the modules at a speed relative to the field.
+   *
+   * @param vx speed away from the blue alliance wall (m/s)
+   * @param vy speed toward the left of the blue alliance wall (m/s)
+   * @param omega counterclockwise angular rate (rad/s)
+   * @param headingRadians the robot's heading, counterclockwise positive
+   * @param maxSpeed the fastest any module may be driven (m/s)
+   */
+  public void fieldRelative(double vx, double vy, double omega, double headingRadians, double maxSpeed) {
+    SwerveKernel.fieldToRobot(vx, vy, omega, headingRadians, m_chassisSpeeds);
+    apply(maxSpeed);
+  }
+
+  private void apply(double maxSpeed) {
+    for (int i = 0; i < m_modules.length; i++) {
+      m_moduleAngles[i] = m_modules[i].getAngleRadians();
+    }
+
+    // The modules flip themselves too, but optimizing here first lets each speed be
+    // scaled by how far its module still has to turn.
+    m_kernel.toModuleStates(m_chassisSpeeds[0], m_chassisSpeeds[1], m_chassisSpeeds[2], m_moduleStates);
+    SwerveKernel.desaturate(m_moduleStates, maxSpeed);
+    SwerveKernel.optimize(m_moduleStates, m_moduleAngles);
+    SwerveKernel.cosineScale(m_moduleStates, m_moduleAngles);
+
+    for (int i = 0; i < m_modules.length; i++) {
+      m_modules[i].setDesiredState(m_moduleStates[2 * i], m_moduleStates[2 * i + 1]);
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package frc.robot.subsystems.Drive;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.ctre.phoenix6.BaseStatusSignal;
+import com.ctre.phoenix6.StatusCode;
+import com.ctre.phoenix6.StatusSignal;
+
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * The OdometryThread samples the four swerve modules and the Pigeon2 at a high rate,
+ * independent of the 50 Hz robot loop. It waits on the Phoenix 6 signals so every
+ * sample is taken right after the CANcoders and the gyro have reported together.
+ *
+ * <p>Samples are written into a bounded single-producer/single-consumer ring. The
+ * main loop drains it with {@link #poll(double[])}. Neither side ever takes a lock,
+ * and nothing is allocated once the thread is running. If the main loop falls behind
+ * and the ring fills up, new samples are dropped and counted.
+ */
+public class OdometryThread extends Thread {
+
+  // Layout of one sample in the ring
+  public static final int kTimestamp = 0;
+  public static final int kGyroAngle = 1; // degrees, clockwise positive like Pigeon2.getAngle()
+  public static final int kDrivePosition = 2; // four entries, meters
+  public static final int kTurnAngle = 6; // four entries, radians relative to the chassis
+  public static final int kSampleSize = 10;
+
+  private final ModuleIOSparkMax[] m_modules;
+
+  // This thread's own copies of the signals, so it never races the main loop's refresh
+  private final StatusSignal<Double>[] m_turningPositions;
+  private final StatusSignal<Double> m_yaw;
+  private final StatusSignal<Double> m_yawRate;
+  private final BaseStatusSignal[] m_signals;
+
+  private final double[][] m_ring;
+  private final int m_mask;
+  private final AtomicLong m_head = new AtomicLong(); // next slot to write, owned by this thread
+  private final AtomicLong m_tail = new AtomicLong(); // next slot to read, owned by the main loop
+  private final AtomicLong m_droppedSamples = new AtomicLong();
+
+  /**
+   * Creates a new OdometryThread. The thread must be started with {@link #start()}.
+   *
+   * @param gyro the robot's gyro
+   * @param modules the swerve module hardware, in kinematics order
+   */
+  @SuppressWarnings("unchecked")
+  public OdometryThread(GyroIOPigeon2 gyro, ModuleIOSparkMax... modules) {
+    super("OdometryThread");
+    setDaemon(true);
+
+    m_modules = modules;
+    m_turningPositions = new StatusSignal[modules.length];
+    m_signals = new BaseStatusSignal[modules.length + 2];
+
+    for (int i = 0; i < modules.length; i++) {
+      m_turningPositions[i] = modules[i].getTurningPositionSignal().clone();
+      m_signals[i] = m_turningPositions[i];
+    }
+    m_yaw = gyro.getYawSignal().clone();
+    m_yawRate = gyro.getYawRateSignal().clone();
+    m_signals[modules.length] = m_yaw;
+    m_signals[modules.length + 1] = m_yawRate;
+
+    // The devices are asked to report as fast as we sample by ModuleIOSparkMax and
+    // GyroIOPigeon2, through CanBandwidth
+
+    m_ring = new double[DriveConstants.kOdometryQueueCapacity][kSampleSize];
+    m_mask = DriveConstants.kOdometryQueueCapacity - 1;
+  }
+
+  @Override
+  public void run() {
+    final double period = 1.0 / DriveConstants.kOdometryFrequencyHz;
+
+    while (!isInterrupted()) {
+      // Block until every signal has a new value, or give up after two periods
+      StatusCode status = BaseStatusSignal.waitForAll(2.0 * period, m_signals);
+
+      if (!status.isOK()) {
+        // A device is missing or late. Back off instead of spinning on the CAN bus.
+        try {
+          Thread.sleep((long) (period * 1000));
+        } catch (InterruptedException e) {
+          return;
+        }
+        continue;
+      }
+
+      long head = m_head.get();
+      if (head - m_tail.get() > m_mask) {
+        m_droppedSamples.incrementAndGet();
+        continue;
+      }
+
+      double[] sample = m_ring[(int) (head & m_mask)];
+      sample[kTimestamp] = Timer.getFPGATimestamp() - m_yaw.getTimestamp().getLatency();
+      sample[kGyroAngle] = -BaseStatusSignal.getLatencyCompensatedValue(m_yaw, m_yawRate);
+      for (int i = 0; i < m_modules.length; i++) {
+        sample[kDrivePosition + i] = m_modules[i].readDrivingPosition();
+        sample[kTurnAngle + i] = m_modules[i].toModuleAngle(m_turningPositions[i].getValueAsDouble());
+      }
+
+      // Publish the slot only after it has been fully written
+      m_head.lazySet(head + 1);
+    }
+  }
+
+  /**
+   * Copies the oldest unread sample into the given array. Must only be called from
+   * the main robot loop.
+   *
+   * @param sample an array of at least {@link #kSampleSize} elements to copy into
+   * @return true if a sample was copied, false if the queue is empty
+   */
+  public boolean poll(double[] sample) {
+    long tail = m_tail.get();
+    if (tail >= m_head.get()) return false;
+
+    System.arraycopy(m_ring[(int) (tail & m_mask)], 0, sample, 0, kSampleSize);
+    m_tail.lazySet(tail + 1);
+    return true;
+  }
+
+  /** Discards every sample that has not been read yet. */
+  public void clear() {
+    m_tail.set(m_head.get());
+  }
+
+  /**
+   * Returns the number of samples dropped because the queue was full.
+   *
+   * @return the dropped sample count
+   */
+  public long getDroppedSamples() {
+    return m_droppedSamples.get();
+  }
+}
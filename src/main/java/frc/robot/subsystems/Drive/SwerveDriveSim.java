@@ -0,0 +1,95 @@
+package frc.robot.subsystems.Drive;
+
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * A physics model of the swerve drive. Each module's motors are simulated by a
+ * {@link ModuleIOSim}, and the robot's true field pose is integrated from how far and in
+ * which direction the wheels rolled each step. The wheels are assumed not to slip.
+ */
+public class SwerveDriveSim {
+
+  private final ModuleIOSim[] modules = new ModuleIOSim[] {
+    new ModuleIOSim(), new ModuleIOSim(), new ModuleIOSim(), new ModuleIOSim()
+  };
+  private final GyroIOSim gyro = new GyroIOSim(this);
+
+  private final double[] lastDistances = new double[modules.length];
+  private final SwerveModulePosition[] deltas = new SwerveModulePosition[] {
+    new SwerveModulePosition(), new SwerveModulePosition(),
+    new SwerveModulePosition(), new SwerveModulePosition()
+  };
+
+  private Pose2d pose = new Pose2d();
+  private double yawRateRadiansPerSecond = 0.0;
+
+  /**
+   * Returns the simulated module at the given index.
+   *
+   * @param index the module index, in kinematics order (FL, FR, RL, RR)
+   * @return the module
+   */
+  public ModuleIOSim getModule(int index) {
+    return modules[index];
+  }
+
+  /**
+   * Returns the simulated gyro.
+   *
+   * @return the gyro
+   */
+  public GyroIOSim getGyro() {
+    return gyro;
+  }
+
+  /**
+   * Steps every module forward in time and moves the robot by how far the wheels rolled.
+   *
+   * @param dtSeconds the time step (s)
+   */
+  public void update(double dtSeconds) {
+    for (int i = 0; i < modules.length; i++) {
+      modules[i].update(dtSeconds);
+
+      double distance = modules[i].getTrueDrivePositionMeters();
+      deltas[i].distanceMeters = distance - lastDistances[i];
+      deltas[i].angle = new Rotation2d(modules[i].getTrueAngleRadians());
+      lastDistances[i] = distance;
+    }
+
+    Twist2d twist = DriveConstants.kDriveKinematics.toTwist2d(deltas);
+    pose = pose.exp(twist);
+    yawRateRadiansPerSecond = twist.dtheta / dtSeconds;
+  }
+
+  /**
+   * Returns the robot's true field pose.
+   *
+   * @return the pose
+   */
+  public Pose2d getPose() {
+    return pose;
+  }
+
+  /**
+   * Places the robot at the given pose.
+   *
+   * @param newPose the new pose
+   */
+  public void setPose(Pose2d newPose) {
+    pose = newPose;
+  }
+
+  /**
+   * Returns the robot's true turn rate.
+   *
+   * @return the turn rate (rad/s, counterclockwise positive)
+   */
+  public double getYawRateRadiansPerSecond() {
+    return yawRateRadiansPerSecond;
+  }
+}
@@ -0,0 +1,21 @@
+package frc.robot.subsystems;
+
+/**
+ * The intake roller and loader motors.
+ */
+public interface IntakeIO {
+
+    /**
+     * Runs the intake roller.
+     *
+     * @param output the duty cycle [-1, 1]
+     */
+    void setIntake(double output);
+
+    /**
+     * Runs the loader that feeds the shooter.
+     *
+     * @param output the duty cycle [-1, 1]
+     */
+    void setLoader(double output);
+}
@@ -0,0 +1,23 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.wpilibj.motorcontrol.PWMSparkMax;
+import frc.robot.Constants.IntakeConstants;
+
+/**
+ * The intake and loader motors, on SPARK MAXes controlled over PWM.
+ */
+public class IntakeIOPWM implements IntakeIO {
+
+    private final PWMSparkMax m_intakeMotor = new PWMSparkMax(IntakeConstants.kIntakeMotorPWMPort);
+    private final PWMSparkMax m_loaderMotor = new PWMSparkMax(IntakeConstants.kLoaderMotorPWMPort);
+
+    @Override
+    public void setIntake(double output) {
+        m_intakeMotor.set(output);
+    }
+
+    @Override
+    public void setLoader(double output) {
+        m_loaderMotor.set(output);
+    }
+}
@@ -0,0 +1,28 @@
+package frc.robot.subsystems;
+
+/**
+ * A simulated intake. There is nothing to model, so it only remembers its outputs.
+ */
+public class IntakeIOSim implements IntakeIO {
+
+    private double intakeOutput = 0.0;
+    private double loaderOutput = 0.0;
+
+    @Override
+    public void setIntake(double output) {
+        intakeOutput = output;
+    }
+
+    @Override
+    public void setLoader(double output) {
+        loaderOutput = output;
+    }
+
+    public double getIntakeOutput() {
+        return intakeOutput;
+    }
+
+    public double getLoaderOutput() {
+        return loaderOutput;
+    }
+}
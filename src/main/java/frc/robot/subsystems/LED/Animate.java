@@ -1,19 +1,38 @@
 package frc.robot.subsystems.LED;
 
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.Command;
 
 /**
  * The Animate command animates a series of patterns onto the robot's LEDs.
- * The command does not self-terminate. It must be terminated by 
+ * The command does not self-terminate. It must be terminated by being interrupted.
+ *
+ * <p>If the CANdle can play an equivalent {@link OnboardAnimation}, either one given
+ * explicitly or one found by {@link OnboardAnimation#match(CANdlePattern...)}, the command
+ * starts that animation once and sends nothing else while it runs. Otherwise the patterns
+ * are played in software, timed from the FPGA clock, through the LED framebuffer.
  */
 public class Animate extends Command {
     
     private final CANdlePattern[] patterns;
     private final LedSubsystem robotLEDs;
+    private final OnboardAnimation onboardAnimation;
     private int index = 0;
     private double lastChange = 0.0;
 
     public Animate(LedSubsystem robotLEDs, CANdlePattern... patterns) throws IllegalArgumentException {
+        this(robotLEDs, null, patterns);
+    }
+
+    /**
+     * Creates an Animate command that plays the given onboard animation when the CANdle
+     * supports it, and the patterns otherwise.
+     *
+     * @param robotLEDs the LED subsystem
+     * @param onboardAnimation the onboard equivalent of the patterns, or null to look for one
+     * @param patterns the patterns to play in software
+     */
+    public Animate(LedSubsystem robotLEDs, OnboardAnimation onboardAnimation, CANdlePattern... patterns) throws IllegalArgumentException {
 
         if (patterns.length == 1) throw new IllegalArgumentException(
             "Vararg pattern must have at least 2 elements. Use LedSubsystem.setPattern() for a single element."
@@ -22,34 +41,54 @@ public class Animate extends Command {
         this.patterns = patterns;
         this.robotLEDs = robotLEDs;
 
+        OnboardAnimation animation = onboardAnimation != null ? onboardAnimation : OnboardAnimation.match(patterns);
+        this.onboardAnimation = robotLEDs.supportsOnboardAnimations() ? animation : null;
+
         addRequirements(robotLEDs);
     }
 
     @Override
     public void initialize() {
 
+        if (onboardAnimation != null) {
+            robotLEDs.playAnimation(onboardAnimation);
+            return;
+        }
+
         // Set the first pattern
+        index = 0;
         robotLEDs.setPattern(patterns[0]);
 
         // Timestamp the change
-        lastChange = System.currentTimeMillis();
+        lastChange = Timer.getFPGATimestamp();
     }
 
     @Override
     public void execute() {
 
+        if (onboardAnimation != null) return;
+
+        double now = Timer.getFPGATimestamp();
+
         // If the pattern has been displayed for its requested duration,
-        if (System.currentTimeMillis() - lastChange >= patterns[index].getFrameDelay() * 1000) {
+        if (now - lastChange >= patterns[index].getFrameDelay()) {
+
+            // Timestamp the change from when it was due, so frame timing doesn't drift
+            // with loop jitter. If the loop stalled for a whole frame or more, resync.
+            lastChange += patterns[index].getFrameDelay();
+            if (now - lastChange >= patterns[index].getFrameDelay()) lastChange = now;
 
             // Move to the next pattern index
             index = (index + 1) % patterns.length;
 
             // Set the pattern
             robotLEDs.setPattern(patterns[index]);
-
-            // Timestamp the change
-            lastChange = System.currentTimeMillis();
         }
     }
 
+    @Override
+    public void end(boolean interrupted) {
+        if (onboardAnimation != null) robotLEDs.stopAnimation();
+    }
+
 }
@@ -0,0 +1,36 @@
+package frc.robot.subsystems.LED;
+
+/**
+ * The LED strip hardware: a CANdle on the robot, or a pixel buffer in simulation.
+ */
+public interface LedIO {
+
+    /**
+     * Sets a run of LEDs to one color.
+     *
+     * @param r the red value [0, 255]
+     * @param g the green value [0, 255]
+     * @param b the blue value [0, 255]
+     * @param w the white value [0, 255]
+     * @param startIdx the index of the first LED
+     * @param count how many LEDs to set
+     */
+    void setLEDs(int r, int g, int b, int w, int startIdx, int count);
+
+    /**
+     * Returns whether this hardware can play {@link OnboardAnimation}s by itself.
+     *
+     * @return true if {@link #animate(OnboardAnimation)} is supported
+     */
+    boolean supportsAnimations();
+
+    /**
+     * Starts an animation on the LED controller, replacing whatever the strip shows.
+     *
+     * @param animation the animation to play
+     */
+    void animate(OnboardAnimation animation);
+
+    /** Stops the animation started by {@link #animate(OnboardAnimation)}. */
+    void clearAnimation();
+}
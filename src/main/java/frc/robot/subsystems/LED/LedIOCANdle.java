@@ -0,0 +1,65 @@
+package frc.robot.subsystems.LED;
+
+import com.ctre.phoenix.led.CANdle; // CANdle is not supported in Phoenix6, so we have to use the generic library
+import com.ctre.phoenix.led.Animation;
+import com.ctre.phoenix.led.CANdleConfiguration;
+import com.ctre.phoenix.led.ColorFlowAnimation;
+import com.ctre.phoenix.led.LarsonAnimation;
+import com.ctre.phoenix.led.StrobeAnimation;
+import com.ctre.phoenix.led.CANdle.LEDStripType;
+import com.ctre.phoenix.led.ColorFlowAnimation.Direction;
+import com.ctre.phoenix.led.LarsonAnimation.BounceMode;
+
+import frc.robot.CanBandwidth;
+import frc.robot.Constants;
+
+/**
+ * An LED strip driven by a CTRE CANdle.
+ */
+public class LedIOCANdle implements LedIO {
+
+    // Our LED strip
+    private final CANdle candle = new CANdle(Constants.LedConstants.kCANdleId);
+    private final CANdleConfiguration config;
+
+    public LedIOCANdle() {
+        // Set the default configuration
+        config = new CANdleConfiguration();
+        config.stripType = LEDStripType.RGB;
+        config.brightnessScalar = .5;
+        candle.configAllSettings(config);
+
+        // At most one full frame budget per loop goes to the CANdle
+        CanBandwidth.candle("LEDs", candle, Constants.LedConstants.kMaxFramesPerCycle * Constants.CanConstants.kLoopRateHz);
+    }
+
+    @Override
+    public void setLEDs(int r, int g, int b, int w, int startIdx, int count) {
+        candle.setLEDs(r, g, b, w, startIdx, count);
+    }
+
+    @Override
+    public boolean supportsAnimations() {
+        return true;
+    }
+
+    @Override
+    public void animate(OnboardAnimation animation) {
+        CANdleColor color = animation.getColor();
+        int r = color.getr(), g = color.getg(), b = color.getb(), w = color.getw();
+        int numLeds = Constants.LedConstants.kNumLeds;
+
+        Animation candleAnimation = switch (animation.getType()) {
+            case kLarson -> new LarsonAnimation(r, g, b, w, animation.getSpeed(), numLeds, BounceMode.Front, animation.getSize());
+            case kColorFlow -> new ColorFlowAnimation(r, g, b, w, animation.getSpeed(), numLeds,
+                animation.isForward() ? Direction.Forward : Direction.Backward);
+            case kStrobe -> new StrobeAnimation(r, g, b, w, animation.getSpeed(), numLeds);
+        };
+        candle.animate(candleAnimation);
+    }
+
+    @Override
+    public void clearAnimation() {
+        candle.clearAnimation(0);
+    }
+}
@@ -0,0 +1,46 @@
+package frc.robot.subsystems.LED;
+
+import java.util.Arrays;
+
+/**
+ * A simulated LED strip. It only remembers the color of each LED, packed as 0xRRGGBBWW,
+ * so a test or the simulator GUI can check what the strip would show.
+ */
+public class LedIOSim implements LedIO {
+
+    // The CANdle's own 8 LEDs come first, then the strip, up to 512 in all
+    private static final int kMaxLeds = 512;
+
+    private final int[] colors = new int[kMaxLeds];
+
+    @Override
+    public boolean supportsAnimations() {
+        // There's no way to show an onboard animation, so patterns are always played in software
+        return false;
+    }
+
+    @Override
+    public void animate(OnboardAnimation animation) {}
+
+    @Override
+    public void clearAnimation() {}
+
+    @Override
+    public void setLEDs(int r, int g, int b, int w, int startIdx, int count) {
+        int start = Math.max(startIdx, 0);
+        int end = Math.min(startIdx + count, kMaxLeds);
+        if (start >= end) return;
+
+        Arrays.fill(colors, start, end, (r & 0xFF) << 24 | (g & 0xFF) << 16 | (b & 0xFF) << 8 | (w & 0xFF));
+    }
+
+    /**
+     * Returns the color of one LED.
+     *
+     * @param index the LED index
+     * @return the color, packed as 0xRRGGBBWW
+     */
+    public int getColor(int index) {
+        return colors[index];
+    }
+}
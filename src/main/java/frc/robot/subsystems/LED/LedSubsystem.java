@@ -1,38 +1,167 @@
 package frc.robot.subsystems.LED;
 
-import com.ctre.phoenix.led.CANdle; // CANdle is not supported in Phoenix6, so we have to use the generic library
-import com.ctre.phoenix.led.CANdleConfiguration;
-import com.ctre.phoenix.led.CANdle.LEDStripType;
+import java.util.Arrays;
 
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.robot.Constants;
+import frc.robot.telemetry.LoopProfiler;
 
 /**
  * The LedSubsystem controls the LEDs on the robot.
+ *
+ * <p>Colors and patterns are drawn into a framebuffer, not sent straight to the CANdle.
+ * Once per loop, {@link #periodic()} compares the framebuffer with what the strip already
+ * shows and sends only the LEDs that changed, each run of one color as a single
+ * setLEDs() call (one CAN frame). At most {@link Constants.LedConstants#kMaxFramesPerCycle}
+ * frames go out per loop; anything left over is sent on the next loops, starting where
+ * the last one stopped. A pattern that doesn't change costs no CAN traffic at all.
+ *
+ * <p>While an {@link OnboardAnimation} is playing on the CANdle, the framebuffer is not
+ * flushed, so the two never fight over the strip.
  */
 public class LedSubsystem extends SubsystemBase {
 
-    // Our LED strip
-    private final CANdle candle = new CANdle(Constants.LedConstants.kCANdleId);
-    private final CANdleConfiguration config;
+    private static final int kNumLeds = Constants.LedConstants.kNumLeds;
 
-    public LedSubsystem() {
-        // Set the default configuration
-        config = new CANdleConfiguration();
-        config.stripType = LEDStripType.RGB;
-        config.brightnessScalar = .5;
-        candle.configAllSettings(config);   
+    // Our LED strip, real or simulated
+    private final LedIO io;
+
+    // What the strip should show, and what it was last sent, one packed 0xRRGGBBWW per LED
+    private final int[] frame = new int[kNumLeds];
+    private final int[] sent = new int[kNumLeds];
+
+    // Where the next flush starts looking for changes
+    private int flushCursor = 0;
+    private int framesThisCycle = 0;
+    private long framesSent = 0;
+
+    private final LoopProfiler.Section profilerSection;
+
+    // The animation the CANdle is playing by itself, or null
+    private OnboardAnimation animation = null;
+
+    /**
+     * Creates a new LedSubsystem, timed in the LoopProfiler as Subsystems/LED.
+     *
+     * @param io the LED hardware
+     */
+    public LedSubsystem(LedIO io) {
+        this(io, LoopProfiler.section("Subsystems/LED"));
+    }
+
+    /**
+     * Creates a new LedSubsystem.
+     *
+     * @param io the LED hardware
+     * @param profilerSection the LoopProfiler section to time periodic() in
+     */
+    public LedSubsystem(LedIO io, LoopProfiler.Section profilerSection) {
+        this.io = io;
+        this.profilerSection = profilerSection;
+
+        // The strip's state at boot is unknown, so make the first flush send everything
+        Arrays.fill(sent, ~0);
+    }
+
+    @Override
+    public void periodic() {
+        // Commands draw after this runs, so the strip shows the previous loop's frame.
+        // A one-loop delay isn't visible on LEDs.
+        framesThisCycle = 0;
+        if (animation != null) return;
+
+        profilerSection.start();
+        // flush() moves the cursor, so remember where this loop started
+        int start = flushCursor;
+        if (flush(start, kNumLeds)) flush(0, start);
+        profilerSection.stop();
+    }
+
+    /**
+     * Sends the changed LEDs in [from, to), one run of one color per frame, until the
+     * frame budget runs out.
+     *
+     * @return false if the budget ran out before the end of the range
+     */
+    private boolean flush(int from, int to) {
+        int i = from;
+        while (i < to) {
+            if (frame[i] == sent[i]) {
+                i++;
+                continue;
+            }
+
+            if (framesThisCycle == Constants.LedConstants.kMaxFramesPerCycle) {
+                flushCursor = i;
+                return false;
+            }
+
+            // Extend the run over every following LED of the same color, changed or not;
+            // re-sending an LED that already shows the color costs nothing extra
+            int color = frame[i];
+            int end = i + 1;
+            while (end < to && frame[end] == color) end++;
+
+            io.setLEDs(color >>> 24, (color >>> 16) & 0xFF, (color >>> 8) & 0xFF, color & 0xFF, i, end - i);
+            Arrays.fill(sent, i, end, color);
+            framesThisCycle++;
+            framesSent++;
+            i = end;
+        }
+        flushCursor = 0;
+        return true;
+    }
+
+    /**
+     * Returns whether the LED hardware can play {@link OnboardAnimation}s.
+     *
+     * @return true if {@link #playAnimation(OnboardAnimation)} is supported
+     */
+    public boolean supportsOnboardAnimations() {
+        return io.supportsAnimations();
+    }
+
+    /**
+     * Starts an animation on the CANdle. The framebuffer stops being sent until
+     * {@link #stopAnimation()} is called.
+     *
+     * @param animation the animation to play
+     */
+    public void playAnimation(OnboardAnimation animation) {
+        this.animation = animation;
+        io.animate(animation);
+    }
+
+    /**
+     * Stops the onboard animation and hands the strip back to the framebuffer. The whole
+     * frame is sent again, since the animation left the strip in an unknown state.
+     */
+    public void stopAnimation() {
+        if (animation == null) return;
+
+        animation = null;
+        io.clearAnimation();
+        Arrays.fill(sent, ~0);
+    }
+
+    /**
+     * Returns the number of setLEDs() frames sent since startup.
+     *
+     * @return the frame count
+     */
+    public long getFramesSent() {
+        return framesSent;
     }
 
     /**
      * Sets a portion of the LED strip to a colorblock. Although the CANdle class natively 
-     * supports setting LEDs, this method wraps the CANdle's native .setLEDs() method 
+     * supports setting LEDs, this method draws into the framebuffer instead
      * so that it works with this subsystem's unique colorblock schema.
      * @param colorBlock the desired colorblock
      * @param startIdx the start index for the LED
      */
     public void setColor(CANdleColorBlock colorBlock, int startIdx) {
-        candle.setLEDs(colorBlock.getr(), colorBlock.getg(), colorBlock.getb(), colorBlock.getw(), startIdx, colorBlock.getLength());
+        setColor(colorBlock, startIdx, colorBlock.getLength());
     }
 
     /**
@@ -44,8 +173,11 @@ public class LedSubsystem extends SubsystemBase {
      * @param length
      */
     public void setColor(CANdleColor color, int startIdx, int length) {
-        candle.setLEDs(color.getr(), color.getg(), color.getb(), color.getw(), startIdx, length);
+        int start = Math.max(startIdx, 0);
+        int end = Math.min(startIdx + length, kNumLeds);
+        if (start >= end) return;
 
+        Arrays.fill(frame, start, end, pack(color));
     }
 
     /**
@@ -54,7 +186,12 @@ public class LedSubsystem extends SubsystemBase {
      * @param color the CANdle color to set the LEDs to
      */
     public void setSolidColor(CANdleColor color) {
-        candle.setLEDs(color.getr(), color.getg(), color.getb());
+        // Like CANdle.setLEDs(r, g, b), this leaves the white channel off
+        Arrays.fill(frame, (color.getr() & 0xFF) << 24 | (color.getg() & 0xFF) << 16 | (color.getb() & 0xFF) << 8);
+    }
+
+    private static int pack(CANdleColor color) {
+        return (color.getr() & 0xFF) << 24 | (color.getg() & 0xFF) << 16 | (color.getb() & 0xFF) << 8 | (color.getw() & 0xFF);
     }
 
     /**
@@ -68,7 +205,7 @@ public class LedSubsystem extends SubsystemBase {
        for (CANdleColor color : colors) {
             int blockStartAddress = colorStartAddress;
 
-            while (blockStartAddress <= Constants.LedConstants.kNumLeds - 1) {
+            while (blockStartAddress <= kNumLeds - 1) {
                 setColor(color, blockStartAddress, colorBlockLength);
                 blockStartAddress += colorBlockLength * colors.length;
             }
@@ -85,7 +222,7 @@ public class LedSubsystem extends SubsystemBase {
     public void setPattern(CANdleColorBlock ... colorBlocks) {
         int blockStartAddress = 0;
 
-        while (blockStartAddress <= Constants.LedConstants.kNumLeds - 1) {
+        while (blockStartAddress <= kNumLeds - 1) {
             for (CANdleColorBlock colorBlock: colorBlocks) {
                 setColor(colorBlock, blockStartAddress);
                 blockStartAddress += colorBlock.getLength();
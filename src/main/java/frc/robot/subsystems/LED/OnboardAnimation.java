@@ -0,0 +1,122 @@
+package frc.robot.subsystems.LED;
+
+/**
+ * An animation the CANdle runs by itself, from a single command, with no CAN traffic
+ * while it plays. These stand in for software-animated {@link CANdlePattern}s that are
+ * simple periodic motions.
+ */
+public final class OnboardAnimation {
+
+    /** The CANdle's built-in animations that the robot uses. */
+    public enum Type {
+        /** A block of LEDs that sweeps back and forth. */
+        kLarson,
+        /** The strip fills with the color from one end, then starts over. */
+        kColorFlow,
+        /** The whole strip flashes the color on and off. */
+        kStrobe
+    }
+
+    private final Type type;
+    private final CANdleColor color;
+    private final double speed;
+    private final boolean forward;
+    private final int size;
+
+    private OnboardAnimation(Type type, CANdleColor color, double speed, boolean forward, int size) {
+        this.type = type;
+        this.color = color;
+        this.speed = speed;
+        this.forward = forward;
+        this.size = size;
+    }
+
+    /**
+     * @param color the color of the sweeping block
+     * @param speed how fast it sweeps [0, 1]
+     * @param size the block's length in LEDs
+     * @return a Larson animation
+     */
+    public static OnboardAnimation larson(CANdleColor color, double speed, int size) {
+        return new OnboardAnimation(Type.kLarson, color, speed, true, size);
+    }
+
+    /**
+     * @param color the fill color
+     * @param speed how fast the strip fills [0, 1]
+     * @param forward true to fill from the start of the strip, false from the end
+     * @return a color flow animation
+     */
+    public static OnboardAnimation colorFlow(CANdleColor color, double speed, boolean forward) {
+        return new OnboardAnimation(Type.kColorFlow, color, speed, forward, 0);
+    }
+
+    /**
+     * @param color the flash color
+     * @param speed how fast it flashes [0, 1]
+     * @return a strobe animation
+     */
+    public static OnboardAnimation strobe(CANdleColor color, double speed) {
+        return new OnboardAnimation(Type.kStrobe, color, speed, true, 0);
+    }
+
+    /**
+     * Finds the onboard animation that plays the same thing as a sequence of patterns.
+     * Only a solid color alternating with black is recognized, as a strobe.
+     *
+     * @param patterns the frames of a software animation
+     * @return the matching onboard animation, or null if there is none
+     */
+    public static OnboardAnimation match(CANdlePattern... patterns) {
+        if (patterns.length != 2) return null;
+
+        CANdleColor first = solidColor(patterns[0]);
+        CANdleColor second = solidColor(patterns[1]);
+        if (first == null || second == null) return null;
+
+        // Exactly one of the two frames must be dark
+        if (isBlack(first) == isBlack(second)) return null;
+        CANdleColor lit = isBlack(first) ? second : first;
+
+        // The CANdle's strobe speed is unitless; a 50 ms frame is about full speed
+        double speed = Math.min(1.0, 0.05 / Math.max(patterns[0].getFrameDelay(), 0.05));
+        return strobe(lit, speed);
+    }
+
+    /** Returns the one color every block of the pattern has, or null if there is more than one. */
+    private static CANdleColor solidColor(CANdlePattern pattern) {
+        CANdleColorBlock[] blocks = pattern.getPattern();
+        for (CANdleColorBlock block : blocks) {
+            if (!sameColor(block, blocks[0])) return null;
+        }
+        return blocks.length == 0 ? null : blocks[0];
+    }
+
+    private static boolean sameColor(CANdleColor a, CANdleColor b) {
+        return a.getr() == b.getr() && a.getg() == b.getg() && a.getb() == b.getb() && a.getw() == b.getw();
+    }
+
+    private static boolean isBlack(CANdleColor color) {
+        return color.getr() == 0 && color.getg() == 0 && color.getb() == 0 && color.getw() == 0;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public CANdleColor getColor() {
+        return color;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public boolean isForward() {
+        return forward;
+    }
+
+    public int getSize() {
+        return size;
+    }
+}
@@ -0,0 +1,30 @@
+package frc.robot.subsystems;
+
+/**
+ * The shooter's two flywheel motors.
+ */
+public interface ShooterIO {
+
+    /**
+     * Sensor values of the shooter, updated in place every cycle.
+     */
+    class ShooterIOInputs {
+        public double topVelocityRpm = 0.0;
+        public double bottomVelocityRpm = 0.0;
+    }
+
+    /**
+     * Reads the shooter sensors into the given inputs.
+     *
+     * @param inputs the inputs to update
+     */
+    void updateInputs(ShooterIOInputs inputs);
+
+    /**
+     * Runs the flywheels open loop.
+     *
+     * @param top the top motor duty cycle [-1, 1]
+     * @param bottom the bottom motor duty cycle [-1, 1]
+     */
+    void setDutyCycle(double top, double bottom);
+}
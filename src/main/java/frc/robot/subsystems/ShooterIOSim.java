@@ -0,0 +1,32 @@
+package frc.robot.subsystems;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * Simulated shooter flywheels. They are stepped forward one robot loop every time the
+ * inputs are read.
+ */
+public class ShooterIOSim implements ShooterIO {
+
+    private final FlywheelSim topSim = new FlywheelSim(DCMotor.getNEO(1), 1.0, SimConstants.kShooterMoiKgMetersSquared);
+    private final FlywheelSim bottomSim = new FlywheelSim(DCMotor.getNEO(1), 1.0, SimConstants.kShooterMoiKgMetersSquared);
+
+    @Override
+    public void updateInputs(ShooterIOInputs inputs) {
+        topSim.update(TimedRobot.kDefaultPeriod);
+        bottomSim.update(TimedRobot.kDefaultPeriod);
+
+        inputs.topVelocityRpm = topSim.getAngularVelocityRPM();
+        inputs.bottomVelocityRpm = bottomSim.getAngularVelocityRPM();
+    }
+
+    @Override
+    public void setDutyCycle(double top, double bottom) {
+        topSim.setInputVoltage(MathUtil.clamp(top, -1, 1) * SimConstants.kNominalVoltage);
+        bottomSim.setInputVoltage(MathUtil.clamp(bottom, -1, 1) * SimConstants.kNominalVoltage);
+    }
+}
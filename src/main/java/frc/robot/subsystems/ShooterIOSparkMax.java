@@ -0,0 +1,40 @@
+package frc.robot.subsystems;
+
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.CANSparkLowLevel.MotorType;
+
+import frc.robot.CanBandwidth;
+import frc.robot.CanBandwidth.SparkSignal;
+import frc.robot.Constants.CanConstants;
+import frc.robot.Constants.ShootingConstants;
+
+/**
+ * The shooter's flywheels, each driven by a NEO on a SPARK MAX.
+ */
+public class ShooterIOSparkMax implements ShooterIO {
+
+    private final CANSparkMax m_topShooterMotor = new CANSparkMax(ShootingConstants.kTopShooterMotorCanId, MotorType.kBrushless);
+    private final CANSparkMax m_bottomShooterMotor = new CANSparkMax(ShootingConstants.kBottomShooterMotorCanId, MotorType.kBrushless);
+
+    private final RelativeEncoder m_topEncoder = m_topShooterMotor.getEncoder();
+    private final RelativeEncoder m_bottomEncoder = m_bottomShooterMotor.getEncoder();
+
+    public ShooterIOSparkMax() {
+        // Only the flywheel speeds are read
+        CanBandwidth.sparkMax("Shooter/Top", m_topShooterMotor).uses(SparkSignal.kVelocity, CanConstants.kLoopRateHz);
+        CanBandwidth.sparkMax("Shooter/Bottom", m_bottomShooterMotor).uses(SparkSignal.kVelocity, CanConstants.kLoopRateHz);
+    }
+
+    @Override
+    public void updateInputs(ShooterIOInputs inputs) {
+        inputs.topVelocityRpm = m_topEncoder.getVelocity();
+        inputs.bottomVelocityRpm = m_bottomEncoder.getVelocity();
+    }
+
+    @Override
+    public void setDutyCycle(double top, double bottom) {
+        m_topShooterMotor.set(top);
+        m_bottomShooterMotor.set(bottom);
+    }
+}
@@ -1,34 +1,84 @@
 package frc.robot.subsystems;
 
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.CANSparkLowLevel.MotorType;
-
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
-import frc.robot.Constants;
-import frc.robot.Dashboard;
-import frc.robot.Constants.ShootingConstants;
+import frc.robot.Tunables;
+import frc.robot.subsystems.ShooterIO.ShooterIOInputs;
+import frc.robot.telemetry.LoopProfiler;
+import frc.robot.telemetry.MatchLogger;
 
 public class ShootingSubsystem extends SubsystemBase {
-    
-    private final CANSparkMax m_topShooterMotor = new CANSparkMax(ShootingConstants.kTopShooterMotorCanId, MotorType.kBrushless);
-    private final CANSparkMax m_bottomShooterMotor = new CANSparkMax(ShootingConstants.kBottomShooterMotorCanId, MotorType.kBrushless);
+
+    private final ShooterIO m_io;
+    private final ShooterIOInputs m_inputs = new ShooterIOInputs();
+
+    // Last outputs sent to the motors
+    private double m_topOutput = 0.0;
+    private double m_bottomOutput = 0.0;
+
+    private final LoopProfiler.Section profilerSection = LoopProfiler.section("Subsystems/Shooting");
+
+    private final MatchLogger.Channel outputLog = MatchLogger.channel("Shooter/Outputs", 2, "top, bottom duty cycle");
+
+    /**
+     * Creates a new ShootingSubsystem.
+     *
+     * @param io the shooter hardware, real or simulated
+     */
+    public ShootingSubsystem(ShooterIO io) {
+        m_io = io;
+    }
+
+    @Override
+    public void periodic() {
+        profilerSection.start();
+
+        m_io.updateInputs(m_inputs);
+
+        double[] values = outputLog.values();
+        values[0] = m_topOutput;
+        values[1] = m_bottomOutput;
+        outputLog.append();
+
+        profilerSection.stop();
+    }
 
     public void activateShooter() {
-        m_topShooterMotor.set(getShootingSpeed());
-        m_bottomShooterMotor.set(getShootingSpeed());
+        setOutputs(getShootingSpeed(), getShootingSpeed());
     }
 
     public void deactivateShooter() {
-        m_topShooterMotor.set(0);
-        m_bottomShooterMotor.set(0);
+        setOutputs(0, 0);
     }
 
     public void reverseShooter() {
-        m_topShooterMotor.set(-getShootingSpeed());
-        m_bottomShooterMotor.set(-getShootingSpeed());
+        setOutputs(-getShootingSpeed(), -getShootingSpeed());
+    }
+
+    /**
+     * Returns the top flywheel's speed.
+     *
+     * @return the speed (RPM)
+     */
+    public double getTopVelocityRpm() {
+        return m_inputs.topVelocityRpm;
+    }
+
+    /**
+     * Returns the bottom flywheel's speed.
+     *
+     * @return the speed (RPM)
+     */
+    public double getBottomVelocityRpm() {
+        return m_inputs.bottomVelocityRpm;
+    }
+
+    private void setOutputs(double top, double bottom) {
+        m_topOutput = top;
+        m_bottomOutput = bottom;
+        m_io.setDutyCycle(top, bottom);
     }
 
     private double getShootingSpeed() {
-        return Dashboard.MainTab.shootingSpeedEntry.getDouble(Constants.ShootingConstants.kDefaultShootSpeed);
+        return Tunables.MainTab.shootingSpeed.get();
     }
 }
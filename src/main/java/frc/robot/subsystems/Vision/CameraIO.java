@@ -0,0 +1,28 @@
+package frc.robot.subsystems.Vision;
+
+/**
+ * A source of camera frames: a real PhotonVision camera, or a simulated one.
+ */
+public interface CameraIO {
+
+    /**
+     * Removes and returns the oldest frame that has not been polled yet.
+     *
+     * @return the next unprocessed frame, or null if there is none
+     */
+    VisionFrame poll();
+
+    /**
+     * Returns where the camera is mounted.
+     *
+     * @return the camera's mount
+     */
+    CameraMount getMount();
+
+    /**
+     * Returns the number of frames dropped because the robot loop fell behind.
+     *
+     * @return the dropped frame count
+     */
+    long getDroppedFrames();
+}
@@ -0,0 +1,145 @@
+package frc.robot.subsystems.Vision;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.photonvision.common.dataflow.structures.Packet;
+import org.photonvision.targeting.PhotonPipelineResult;
+import org.photonvision.targeting.PhotonTrackedTarget;
+import org.photonvision.targeting.TargetCorner;
+
+import edu.wpi.first.apriltag.AprilTag;
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.geometry.Transform3d;
+import edu.wpi.first.wpilibj.Timer;
+import frc.robot.Constants.SimConstants;
+
+/**
+ * A simulated camera. Every frame period it looks at the field from the robot's true
+ * simulated pose and reports the AprilTags that are in front of it, inside its field of
+ * view, and close enough to detect.
+ *
+ * <p>This is purely geometric: each target's camera-to-tag transform is exact and its
+ * ambiguity is fixed and low, so the pose estimator solves the true pose. There is no
+ * image, no noise, and no latency, which keeps headless runs deterministic.
+ *
+ * <p>Each frame is also packed into a PhotonVision packet, the same bytes a real camera
+ * would send, so simulated matches are logged and replayed like real ones.
+ */
+public class CameraIOSim implements CameraIO {
+
+    // Ambiguity reported for every simulated target, well under VisionConstants.kMaxPoseAmbiguity
+    private static final double kAmbiguity = 0.05;
+
+    // Side length of a 2024 AprilTag, for the reported target area
+    private static final double kTagSizeMeters = 0.1651;
+
+    private static final List<TargetCorner> kCorners = List.of(
+        new TargetCorner(0, 0), new TargetCorner(0, 0), new TargetCorner(0, 0), new TargetCorner(0, 0));
+
+    private final CameraMount mount;
+    private final AprilTagFieldLayout fieldLayout;
+    private final Supplier<Pose2d> robotPose;
+
+    private double lastFrameTimestamp = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates a simulated camera.
+     *
+     * @param mount where the camera is on the robot
+     * @param robotPose supplies the robot's true pose on the field
+     */
+    public CameraIOSim(CameraMount mount, Supplier<Pose2d> robotPose) {
+        this.mount = mount;
+        this.fieldLayout = VisionSubsystem.loadFieldLayout();
+        this.robotPose = robotPose;
+    }
+
+    @Override
+    public VisionFrame poll() {
+        double now = Timer.getFPGATimestamp();
+        if (now - lastFrameTimestamp < SimConstants.kCameraFramePeriodSeconds) return null;
+        lastFrameTimestamp = now;
+
+        return capture(robotPose.get(), now);
+    }
+
+    @Override
+    public CameraMount getMount() {
+        return mount;
+    }
+
+    /**
+     * Returns the frame the camera would capture with the robot at the given pose.
+     *
+     * @param robotPose the robot's pose on the field
+     * @param timestampSeconds the capture timestamp to give the frame
+     * @return the frame
+     */
+    public VisionFrame capture(Pose2d robotPose, double timestampSeconds) {
+        Pose3d cameraPose = new Pose3d(robotPose).transformBy(mount.getRobotToCamera());
+
+        List<PhotonTrackedTarget> targets = new ArrayList<>();
+        for (AprilTag tag : fieldLayout.getTags()) {
+            PhotonTrackedTarget target = observe(cameraPose, tag);
+            if (target != null) targets.add(target);
+        }
+
+        PhotonPipelineResult result = new PhotonPipelineResult(0, targets);
+        result.setTimestampSeconds(timestampSeconds);
+
+        Packet packet = new Packet(result.getPacketSize());
+        PhotonPipelineResult.serde.pack(packet, result);
+        return new VisionFrame(result, timestampSeconds, packet.getWrittenDataCopy());
+    }
+
+    /**
+     * Returns the AprilTag layout the camera sees.
+     *
+     * @return the field layout
+     */
+    public AprilTagFieldLayout getFieldLayout() {
+        return fieldLayout;
+    }
+
+    @Override
+    public long getDroppedFrames() {
+        return 0;
+    }
+
+    /**
+     * Returns the target the camera would report for a tag, or null if it can't see it.
+     */
+    private static PhotonTrackedTarget observe(Pose3d cameraPose, AprilTag tag) {
+        // The tag's face points along its own +X, so it is only visible from that side
+        if (new Transform3d(tag.pose, cameraPose).getX() <= 0) return null;
+
+        Transform3d cameraToTag = new Transform3d(cameraPose, tag.pose);
+        double x = cameraToTag.getX();
+        double y = cameraToTag.getY();
+        double z = cameraToTag.getZ();
+        if (x <= 0) return null;
+
+        double distance = cameraToTag.getTranslation().getNorm();
+        if (distance > SimConstants.kCameraMaxRangeMeters) return null;
+
+        // PhotonVision's yaw is positive to the right, the opposite of WPILib's
+        double yaw = -Math.atan2(y, x);
+        double pitch = Math.atan2(z, Math.hypot(x, y));
+        if (Math.abs(yaw) > SimConstants.kCameraHorizontalFovRadians / 2) return null;
+        if (Math.abs(pitch) > SimConstants.kCameraVerticalFovRadians / 2) return null;
+
+        // Percent of the image the tag covers, ignoring its angle to the camera
+        double angularSize = kTagSizeMeters / distance;
+        double area = 100 * angularSize * angularSize
+            / (SimConstants.kCameraHorizontalFovRadians * SimConstants.kCameraVerticalFovRadians);
+
+        return new PhotonTrackedTarget(
+            Math.toDegrees(yaw), Math.toDegrees(pitch), area, 0,
+            tag.ID, cameraToTag, cameraToTag, kAmbiguity,
+            kCorners, kCorners);
+    }
+}
@@ -0,0 +1,130 @@
+package frc.robot.subsystems.Vision;
+
+import java.util.EnumSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.photonvision.common.dataflow.structures.Packet;
+import org.photonvision.targeting.PhotonPipelineResult;
+
+import edu.wpi.first.networktables.NetworkTableEvent;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.NetworkTableValue;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.RawSubscriber;
+import frc.robot.Constants.VisionConstants;
+
+/**
+ * CameraIngest receives PhotonVision results for one camera off the main thread.
+ *
+ * <p>A NetworkTables value listener is notified for every packet the coprocessor
+ * publishes. The packet is decoded on the listener thread, stamped with its capture time,
+ * and wrapped in an immutable {@link VisionFrame}. Frames that repeat an earlier timestamp
+ * are dropped. New frames go into a bounded queue so the robot loop sees every frame that
+ * arrived since it last looked, and the newest frame is also kept for callers that only
+ * want the latest one. A vision worker can also wait on the queue with {@link #take()}.
+ */
+public class CameraIngest implements ThreadedCameraIO, AutoCloseable {
+
+    private final CameraMount mount;
+    private final RawSubscriber subscriber;
+    private final int listenerHandle;
+
+    private final AtomicReference<VisionFrame> latestFrame = new AtomicReference<>(VisionFrame.kEmpty);
+    private final ArrayBlockingQueue<VisionFrame> frameQueue = new ArrayBlockingQueue<>(VisionConstants.kFrameQueueCapacity);
+    private final AtomicLong droppedFrames = new AtomicLong();
+
+    // Only touched by the listener thread
+    private double lastTimestamp = 0.0;
+
+    /**
+     * Starts listening for results from the given camera.
+     *
+     * @param mount the camera's name in PhotonVision and where it is on the robot
+     */
+    public CameraIngest(CameraMount mount) {
+        this.mount = mount;
+        NetworkTableInstance instance = NetworkTableInstance.getDefault();
+
+        // Same topic and options PhotonCamera uses; sendAll makes sure no packet is coalesced away
+        subscriber = instance.getTable("photonvision").getSubTable(mount.getName())
+            .getRawTopic("rawBytes")
+            .subscribe("rawBytes", new byte[] {}, PubSubOption.periodic(0.01), PubSubOption.sendAll(true));
+
+        listenerHandle = instance.addListener(subscriber, EnumSet.of(NetworkTableEvent.Kind.kValueAll), this::onPacket);
+    }
+
+    private void onPacket(NetworkTableEvent event) {
+        NetworkTableValue value = event.valueData.value;
+        byte[] bytes = value.getRaw();
+        if (bytes.length < 1) return;
+
+        PhotonPipelineResult result = PhotonPipelineResult.serde.unpack(new Packet(bytes));
+
+        // Same timestamping as PhotonCamera: arrival time minus the pipeline latency
+        double timestamp = value.getTime() / 1e6 - result.getLatencyMillis() / 1e3;
+        if (timestamp <= lastTimestamp) return;
+        lastTimestamp = timestamp;
+        result.setTimestampSeconds(timestamp);
+
+        VisionFrame frame = new VisionFrame(result, timestamp, bytes);
+        latestFrame.set(frame);
+
+        // If the robot loop hasn't kept up, make room by dropping the oldest frame
+        while (!frameQueue.offer(frame)) {
+            if (frameQueue.poll() != null) droppedFrames.incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the newest frame received, whether or not it has been polled.
+     *
+     * @return the newest frame
+     */
+    public VisionFrame getLatestFrame() {
+        return latestFrame.get();
+    }
+
+    /**
+     * Removes and returns the oldest frame that has not been polled yet.
+     *
+     * @return the next unprocessed frame, or null if there is none
+     */
+    @Override
+    public VisionFrame poll() {
+        return frameQueue.poll();
+    }
+
+    /**
+     * Waits for the oldest frame that has not been taken yet, and removes it.
+     *
+     * @return the next unprocessed frame
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    @Override
+    public VisionFrame take() throws InterruptedException {
+        return frameQueue.take();
+    }
+
+    @Override
+    public CameraMount getMount() {
+        return mount;
+    }
+
+    /**
+     * Returns the number of frames dropped because the queue was full.
+     *
+     * @return the dropped frame count
+     */
+    @Override
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
+
+    @Override
+    public void close() {
+        NetworkTableInstance.getDefault().removeListener(listenerHandle);
+        subscriber.close();
+    }
+}
@@ -0,0 +1,39 @@
+package frc.robot.subsystems.Vision;
+
+import edu.wpi.first.math.geometry.Transform3d;
+
+/**
+ * Where one camera is mounted: its name in PhotonVision, and its position on the robot.
+ */
+public final class CameraMount {
+
+    private final String name;
+    private final Transform3d robotToCamera;
+
+    /**
+     * @param name the camera's name in PhotonVision
+     * @param robotToCamera the camera's pose relative to the center of the robot at floor level
+     */
+    public CameraMount(String name, Transform3d robotToCamera) {
+        this.name = name;
+        this.robotToCamera = robotToCamera;
+    }
+
+    /**
+     * Returns the camera's name in PhotonVision.
+     *
+     * @return the camera name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the camera's pose relative to the center of the robot at floor level.
+     *
+     * @return the robot-to-camera transform
+     */
+    public Transform3d getRobotToCamera() {
+        return robotToCamera;
+    }
+}
@@ -0,0 +1,99 @@
+package frc.robot.subsystems.Vision;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.photonvision.EstimatedRobotPose;
+import org.photonvision.PhotonPoseEstimator;
+import org.photonvision.PhotonPoseEstimator.PoseStrategy;
+import org.photonvision.targeting.PhotonTrackedTarget;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Pose3d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import frc.robot.Constants.VisionConstants;
+
+/**
+ * Turns one camera's frames into {@link PoseObservation}s.
+ *
+ * <p>Each camera gets its own pipeline, with its own pose estimator, because the estimator
+ * keeps state between frames and isn't thread safe. A pipeline is only ever used by one
+ * thread at a time: its camera's worker, or the robot loop when there are no workers.
+ */
+final class CameraPipeline {
+
+    private final int index;
+    private final CameraIO camera;
+    private final AprilTagFieldLayout fieldLayout;
+    private final PhotonPoseEstimator poseEstimator;
+
+    /**
+     * @param index the camera's index, to tag its observations with
+     * @param camera the camera
+     * @param fieldLayout the AprilTag layout of the field, which is only read
+     */
+    CameraPipeline(int index, CameraIO camera, AprilTagFieldLayout fieldLayout) {
+        this.index = index;
+        this.camera = camera;
+        this.fieldLayout = fieldLayout;
+
+        poseEstimator = new PhotonPoseEstimator(
+            fieldLayout, PoseStrategy.MULTI_TAG_PNP_ON_COPROCESSOR, camera.getMount().getRobotToCamera());
+        poseEstimator.setMultiTagFallbackStrategy(PoseStrategy.LOWEST_AMBIGUITY);
+    }
+
+    CameraIO getCamera() {
+        return camera;
+    }
+
+    /**
+     * Solves the robot pose from a frame, and rates how much to trust it.
+     *
+     * @param frame the frame, from this pipeline's camera
+     * @return the observation
+     */
+    PoseObservation process(VisionFrame frame) {
+        Optional<EstimatedRobotPose> estimate = poseEstimator.update(frame.getResult());
+        if (estimate.isEmpty()) {
+            return new PoseObservation(index, frame, null, null);
+        }
+
+        Pose2d pose = estimate.get().estimatedPose.toPose2d();
+        return new PoseObservation(index, frame, pose, getEstimationStdDevs(pose, estimate.get().targetsUsed));
+    }
+
+    /**
+     * Scales the measurement standard deviations by the number of tags and their average
+     * distance from the estimated pose. Far-away or ambiguous single-tag estimates are rejected.
+     *
+     * @param estimatedPose the pose solved from the frame
+     * @param targets the targets used for the solve
+     * @return the standard deviations, or null if the measurement should be thrown out
+     */
+    private Matrix<N3, N1> getEstimationStdDevs(Pose2d estimatedPose, List<PhotonTrackedTarget> targets) {
+        int numTags = 0;
+        double totalDistance = 0;
+
+        for (PhotonTrackedTarget target : targets) {
+            Optional<Pose3d> tagPose = fieldLayout.getTagPose(target.getFiducialId());
+            if (tagPose.isEmpty()) continue;
+
+            numTags++;
+            totalDistance += tagPose.get().toPose2d().getTranslation().getDistance(estimatedPose.getTranslation());
+        }
+
+        if (numTags == 0) return null;
+        double averageDistance = totalDistance / numTags;
+
+        if (numTags == 1) {
+            if (averageDistance > VisionConstants.kMaxSingleTagDistanceMeters) return null;
+            if (targets.get(0).getPoseAmbiguity() > VisionConstants.kMaxPoseAmbiguity) return null;
+        }
+
+        Matrix<N3, N1> stdDevs = numTags > 1 ? VisionConstants.kMultiTagStdDevs : VisionConstants.kSingleTagStdDevs;
+        return stdDevs.times(1 + averageDistance * averageDistance * VisionConstants.kStdDevDistanceScale);
+    }
+}
@@ -0,0 +1,87 @@
+package frc.robot.subsystems.Vision;
+
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+
+/**
+ * What one camera frame says about where the robot is. Observations are built on the
+ * camera's worker thread and handed to the robot loop as-is, so nothing in here may change
+ * after construction.
+ */
+public final class PoseObservation {
+
+    private final int cameraIndex;
+    private final VisionFrame frame;
+    private final Pose2d pose;
+    private final Matrix<N3, N1> stdDevs;
+
+    /**
+     * @param cameraIndex the index of the camera that captured the frame
+     * @param frame the frame
+     * @param pose the robot pose solved from the frame, or null if there is none
+     * @param stdDevs the measurement standard deviations, or null if the pose was rejected
+     */
+    PoseObservation(int cameraIndex, VisionFrame frame, Pose2d pose, Matrix<N3, N1> stdDevs) {
+        this.cameraIndex = cameraIndex;
+        this.frame = frame;
+        this.pose = pose;
+        this.stdDevs = stdDevs;
+    }
+
+    /**
+     * Returns the index of the camera that captured the frame, in the order the cameras
+     * were given to the {@link VisionSubsystem}.
+     *
+     * @return the camera index
+     */
+    public int getCameraIndex() {
+        return cameraIndex;
+    }
+
+    /**
+     * Returns the frame this observation was made from.
+     *
+     * @return the frame
+     */
+    public VisionFrame getFrame() {
+        return frame;
+    }
+
+    /**
+     * Returns the FPGA time at which the frame was captured.
+     *
+     * @return the capture timestamp (s)
+     */
+    public double getTimestampSeconds() {
+        return frame.getTimestampSeconds();
+    }
+
+    /**
+     * Returns whether the frame gave a pose good enough to use as a measurement.
+     *
+     * @return true if there is a pose and standard deviations
+     */
+    public boolean hasMeasurement() {
+        return pose != null && stdDevs != null;
+    }
+
+    /**
+     * Returns the robot pose solved from the frame.
+     *
+     * @return the pose, or null if there is none
+     */
+    public Pose2d getPose() {
+        return pose;
+    }
+
+    /**
+     * Returns the measurement standard deviations (x meters, y meters, heading radians).
+     *
+     * @return the standard deviations, or null if the pose was rejected
+     */
+    public Matrix<N3, N1> getStdDevs() {
+        return stdDevs;
+    }
+}
@@ -0,0 +1,16 @@
+package frc.robot.subsystems.Vision;
+
+/**
+ * A camera that receives frames on its own, outside the robot loop, so a worker thread can
+ * wait for them instead of the loop polling.
+ */
+public interface ThreadedCameraIO extends CameraIO {
+
+    /**
+     * Waits for the next unprocessed frame, and removes it.
+     *
+     * @return the next unprocessed frame
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    VisionFrame take() throws InterruptedException;
+}
@@ -0,0 +1,157 @@
+package frc.robot.subsystems.Vision;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import org.photonvision.common.dataflow.structures.Packet;
+import org.photonvision.targeting.PhotonPipelineResult;
+import org.photonvision.targeting.PhotonTrackedTarget;
+
+import frc.robot.Constants.VisionConstants;
+
+/**
+ * An immutable snapshot of one camera frame. Frames are decoded on a background
+ * thread and handed to the robot loop as-is, so nothing in here may change after
+ * construction.
+ *
+ * <p>The targets are also indexed by fiducial ID when the frame is built (on the
+ * background thread), so looking up one tag is a single array access.
+ *
+ * <p>A frame decoded from a PhotonVision packet keeps the packet's bytes, so the match log
+ * can record exactly what the camera sent (see {@link #toLogRecord()}).
+ */
+public final class VisionFrame {
+
+    /** A frame with no targets, used before the first real frame arrives. */
+    public static final VisionFrame kEmpty = new VisionFrame(new PhotonPipelineResult(), 0.0);
+
+    // Bytes of the capture timestamp at the start of a log record
+    private static final int kTimestampBytes = Double.BYTES;
+
+    private final PhotonPipelineResult result;
+    private final double timestampSeconds;
+    private final byte[] packet;
+    private final List<PhotonTrackedTarget> targets;
+    private final PhotonTrackedTarget[] targetsById = new PhotonTrackedTarget[VisionConstants.kMaxFiducialId + 1];
+
+    /**
+     * Creates a new VisionFrame. The result must not be modified after it is wrapped.
+     *
+     * @param result the decoded pipeline result
+     * @param timestampSeconds the FPGA time at which the frame was captured
+     */
+    public VisionFrame(PhotonPipelineResult result, double timestampSeconds) {
+        this(result, timestampSeconds, null);
+    }
+
+    /**
+     * Creates a new VisionFrame from a PhotonVision packet. Neither the result nor the packet
+     * may be modified after they are wrapped.
+     *
+     * @param result the result decoded from the packet
+     * @param timestampSeconds the FPGA time at which the frame was captured
+     * @param packet the packet's bytes, as the camera sent them
+     */
+    public VisionFrame(PhotonPipelineResult result, double timestampSeconds, byte[] packet) {
+        this.result = result;
+        this.timestampSeconds = timestampSeconds;
+        this.packet = packet;
+        this.targets = Collections.unmodifiableList(result.getTargets());
+
+        for (PhotonTrackedTarget target : targets) {
+            int id = target.getFiducialId();
+            if (id >= 0 && id < targetsById.length) targetsById[id] = target;
+        }
+    }
+
+    /**
+     * Returns the pipeline result this frame was decoded into.
+     *
+     * @return the pipeline result
+     */
+    public PhotonPipelineResult getResult() {
+        return result;
+    }
+
+    /**
+     * Returns the PhotonVision packet this frame was decoded from.
+     *
+     * @return the packet's bytes, or null if the frame wasn't decoded from a packet
+     */
+    public byte[] getPacket() {
+        return packet;
+    }
+
+    /**
+     * Returns the frame as a match log record: the capture timestamp, as an 8-byte big-endian
+     * double, then the PhotonVision packet. The packet doesn't hold the capture time, since
+     * the robot works it out from when the packet arrived.
+     *
+     * @return the record, or null if the frame wasn't decoded from a packet
+     */
+    public byte[] toLogRecord() {
+        if (packet == null) return null;
+
+        return ByteBuffer.allocate(kTimestampBytes + packet.length)
+            .putDouble(timestampSeconds)
+            .put(packet)
+            .array();
+    }
+
+    /**
+     * Decodes a frame from a match log record written by {@link #toLogRecord()}, the same
+     * way the camera's packet was decoded on the robot.
+     *
+     * @param record the log record
+     * @return the frame
+     */
+    public static VisionFrame fromLogRecord(byte[] record) {
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        double timestampSeconds = buffer.getDouble();
+        byte[] packet = new byte[buffer.remaining()];
+        buffer.get(packet);
+
+        PhotonPipelineResult result = PhotonPipelineResult.serde.unpack(new Packet(packet));
+        result.setTimestampSeconds(timestampSeconds);
+        return new VisionFrame(result, timestampSeconds, packet);
+    }
+
+    /**
+     * Returns the FPGA time at which the frame was captured.
+     *
+     * @return the capture timestamp (s)
+     */
+    public double getTimestampSeconds() {
+        return timestampSeconds;
+    }
+
+    /**
+     * Returns whether any targets were seen in this frame.
+     *
+     * @return true if the frame has targets
+     */
+    public boolean hasTargets() {
+        return !targets.isEmpty();
+    }
+
+    /**
+     * Returns the targets seen in this frame.
+     *
+     * @return an unmodifiable list of targets
+     */
+    public List<PhotonTrackedTarget> getTargets() {
+        return targets;
+    }
+
+    /**
+     * Returns the target with the given fiducial ID, if it was seen in this frame.
+     *
+     * @param fiducialId the AprilTag ID to look up
+     * @return the target, or null if the tag was not seen
+     */
+    public PhotonTrackedTarget getTarget(int fiducialId) {
+        if (fiducialId < 0 || fiducialId >= targetsById.length) return null;
+        return targetsById[fiducialId];
+    }
+}
@@ -0,0 +1,304 @@
+package frc.robot.subsystems.Vision;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.photonvision.targeting.PhotonTrackedTarget;
+
+import edu.wpi.first.apriltag.AprilTagFieldLayout;
+import edu.wpi.first.apriltag.AprilTagFields;
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.VecBuilder;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.robot.Constants.VisionConstants;
+import frc.robot.replay.Replay;
+import frc.robot.telemetry.LoopProfiler;
+import frc.robot.telemetry.MatchLogger;
+
+/**
+ * The VisionSubsystem is one of the more complex robot subsystems, and unlike the others,
+ * exists without any commands.
+ *
+ * <p>Camera frames come from one {@link CameraIO} per camera: on the robot, a
+ * {@link CameraIngest} that receives and decodes PhotonVision results off the main thread,
+ * and in simulation, a {@link CameraIOSim}. Each camera has its own {@link CameraPipeline},
+ * which solves the robot's field pose from the AprilTags in each frame and scales the
+ * standard deviations by tag count and distance.
+ *
+ * <p>A camera that receives frames on its own (a {@link ThreadedCameraIO}, like
+ * CameraIngest) gets a worker thread that runs its pipeline as soon as each frame arrives,
+ * so adding cameras adds threads rather than time in the robot loop. Other cameras, like
+ * the simulated ones, are polled and processed in the loop, which keeps headless runs
+ * deterministic.
+ * Either way, each loop merges every observation made since the last loop into one stream
+ * ordered by capture time, and hands the good ones to a {@link VisionMeasurementConsumer}
+ * (the drive's pose estimator). Every frame is processed exactly once.
+ *
+ * <p>The first camera is the aiming camera: it faces forward, and its frames are the ones
+ * {@link #getLatestFrame()} returns and Vision/Frames records.
+ *
+ * <p>Every frame taken in is also logged as the raw packet the camera sent, under
+ * Vision/Packets/ and the camera's name. Log replay decodes those packets and runs them
+ * through the pipelines again, so a change to the pose solve or the standard deviations
+ * can be checked against a real match.
+ */
+public class VisionSubsystem extends SubsystemBase{
+
+    /**
+     * Receives robot pose measurements from vision.
+     */
+    @FunctionalInterface
+    public interface VisionMeasurementConsumer {
+        /**
+         * @param visionPose the measured robot pose
+         * @param timestampSeconds the FPGA time at which the frame was captured
+         * @param stdDevs the measurement standard deviations
+         */
+        void accept(Pose2d visionPose, double timestampSeconds, Matrix<N3, N1> stdDevs);
+    }
+
+    private static final Comparator<PoseObservation> kByCaptureTime =
+        Comparator.comparingDouble(PoseObservation::getTimestampSeconds);
+
+    private final List<CameraPipeline> pipelines = new ArrayList<>();
+    private final AprilTagFieldLayout fieldLayout;
+    private final VisionMeasurementConsumer measurementConsumer;
+    // The pipelines of cameras without a worker thread, run in the loop
+    private final List<CameraPipeline> polledPipelines = new ArrayList<>();
+
+    // Filled by the workers, drained by the robot loop
+    private final ConcurrentLinkedQueue<PoseObservation> observations = new ConcurrentLinkedQueue<>();
+    // This loop's observations, put in capture order
+    private final List<PoseObservation> merged = new ArrayList<>();
+
+    private VisionFrame latestFrame = VisionFrame.kEmpty;
+
+    private final LoopProfiler.Section profilerSection = LoopProfiler.section("Subsystems/Vision");
+
+    // Match log channels. Up to kLoggedTargets targets are logged per frame.
+    private static final int kLoggedTargets = 5;
+    private static final int kTargetFields = 6;
+    private final MatchLogger.Channel frameLog = MatchLogger.channel("Vision/Frames", 2 + kLoggedTargets * kTargetFields,
+        "capture timestamp s, target count; per target: fiducial id, yaw deg, pitch deg, area %, skew deg, pose ambiguity");
+    private final MatchLogger.Channel measurementLog = MatchLogger.channel("Vision/Measurements", 7,
+        "capture timestamp s, x m, y m, heading rad, std devs x m, y m, heading rad");
+    // One per camera, in camera order
+    private final List<MatchLogger.RawChannel> packetLogs = new ArrayList<>();
+
+    /**
+     * Creates a new VisionSubsystem.
+     *
+     * @param cameras the camera hardware, real or simulated. The first is the aiming camera.
+     * @param measurementConsumer where to send vision pose measurements
+     */
+    public VisionSubsystem(List<CameraIO> cameras, VisionMeasurementConsumer measurementConsumer) {
+        this.measurementConsumer = measurementConsumer;
+
+        fieldLayout = loadFieldLayout();
+        for (int i = 0; i < cameras.size(); i++) {
+            CameraPipeline pipeline = new CameraPipeline(i, cameras.get(i), fieldLayout);
+            pipelines.add(pipeline);
+            packetLogs.add(MatchLogger.rawChannel("Vision/Packets/" + cameras.get(i).getMount().getName(), "photonvision-frame",
+                "capture timestamp s (8-byte big-endian double), then the PhotonVision packet"));
+            if (cameras.get(i) instanceof ThreadedCameraIO threaded) {
+                startWorker(pipeline, threaded);
+            } else {
+                polledPipelines.add(pipeline);
+            }
+        }
+    }
+
+    /**
+     * Starts a thread that processes each of a camera's frames as soon as it arrives.
+     */
+    private void startWorker(CameraPipeline pipeline, ThreadedCameraIO camera) {
+        Thread worker = new Thread(() -> {
+            while (true) {
+                VisionFrame frame;
+                try {
+                    frame = camera.take();
+                } catch (InterruptedException e) {
+                    return;
+                }
+
+                try {
+                    observations.add(pipeline.process(frame));
+                } catch (RuntimeException e) {
+                    // One bad frame shouldn't take the camera down
+                    DriverStation.reportError("Vision failed on a frame from " + camera.getMount().getName(), e.getStackTrace());
+                }
+            }
+        }, "Vision " + camera.getMount().getName());
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void periodic() {
+        profilerSection.start();
+
+        if (Replay.isActive() && !Replay.hasVisionPackets()) {
+            replayMeasurements();
+            profilerSection.stop();
+            return;
+        }
+
+        // Gather every observation made since the last loop
+        if (Replay.isActive()) {
+            replayPackets();
+        } else {
+            PoseObservation observation;
+            while ((observation = observations.poll()) != null) {
+                merged.add(observation);
+            }
+            for (CameraPipeline pipeline : polledPipelines) {
+                VisionFrame frame;
+                while ((frame = pipeline.getCamera().poll()) != null) {
+                    merged.add(pipeline.process(frame));
+                }
+            }
+        }
+
+        // Cameras run at their own rates, so put them back in the order they were captured
+        merged.sort(kByCaptureTime);
+        for (PoseObservation observation : merged) {
+            byte[] record = observation.getFrame().toLogRecord();
+            if (record != null) packetLogs.get(observation.getCameraIndex()).append(record);
+
+            if (observation.getCameraIndex() == 0) {
+                latestFrame = observation.getFrame();
+                logFrame(latestFrame);
+            }
+            if (observation.hasMeasurement()) {
+                sendMeasurement(observation.getPose(), observation.getTimestampSeconds(), observation.getStdDevs());
+            }
+        }
+        merged.clear();
+
+        profilerSection.stop();
+    }
+
+    /**
+     * Decodes the camera packets the robot took in this cycle and processes them again, the
+     * same way they were processed on the robot.
+     */
+    private void replayPackets() {
+        for (CameraPipeline pipeline : pipelines) {
+            for (byte[] record : Replay.getVisionPackets(pipeline.getCamera().getMount().getName())) {
+                merged.add(pipeline.process(VisionFrame.fromLogRecord(record)));
+            }
+        }
+    }
+
+    /**
+     * Replays this cycle's logged frames and measurements, for logs written before the camera
+     * packets were recorded. Only the targets' angles were logged, not enough to solve a pose
+     * again, so the logged measurements are sent as-is.
+     */
+    private void replayMeasurements() {
+        for (double[] values : Replay.getVisionFrames()) {
+            latestFrame = Replay.toVisionFrame(values);
+            logFrame(latestFrame);
+        }
+        for (double[] values : Replay.getVisionMeasurements()) {
+            sendMeasurement(
+                new Pose2d(values[1], values[2], new Rotation2d(values[3])),
+                values[0],
+                VecBuilder.fill(values[4], values[5], values[6]));
+        }
+    }
+
+    private void sendMeasurement(Pose2d pose, double timestampSeconds, Matrix<N3, N1> stdDevs) {
+        measurementConsumer.accept(pose, timestampSeconds, stdDevs);
+
+        double[] values = measurementLog.values();
+        values[0] = timestampSeconds;
+        values[1] = pose.getX();
+        values[2] = pose.getY();
+        values[3] = pose.getRotation().getRadians();
+        values[4] = stdDevs.get(0, 0);
+        values[5] = stdDevs.get(1, 0);
+        values[6] = stdDevs.get(2, 0);
+        measurementLog.append();
+    }
+
+    private void logFrame(VisionFrame frame) {
+        List<PhotonTrackedTarget> targets = frame.getTargets();
+        int count = Math.min(targets.size(), kLoggedTargets);
+
+        double[] values = frameLog.values();
+        values[0] = frame.getTimestampSeconds();
+        values[1] = targets.size();
+        for (int i = 0; i < count; i++) {
+            PhotonTrackedTarget target = targets.get(i);
+            int offset = 2 + i * kTargetFields;
+            values[offset] = target.getFiducialId();
+            values[offset + 1] = target.getYaw();
+            values[offset + 2] = target.getPitch();
+            values[offset + 3] = target.getArea();
+            values[offset + 4] = target.getSkew();
+            values[offset + 5] = target.getPoseAmbiguity();
+        }
+        frameLog.append(2 + count * kTargetFields);
+    }
+
+    public boolean aprilTagsVisible() {
+        return latestFrame.hasTargets();
+    }
+
+    public List<PhotonTrackedTarget> getAprilTags() {
+        return latestFrame.getTargets();
+    }
+
+    /**
+     * Returns the newest frame processed from the aiming camera.
+     *
+     * @return the latest frame
+     */
+    public VisionFrame getLatestFrame() {
+        return latestFrame;
+    }
+
+    /**
+     * Returns the number of frames dropped, across every camera, because processing fell behind.
+     *
+     * @return the dropped frame count
+     */
+    public long getDroppedFrames() {
+        long dropped = 0;
+        for (CameraPipeline pipeline : pipelines) {
+            dropped += pipeline.getCamera().getDroppedFrames();
+        }
+        return dropped;
+    }
+
+    /**
+     * Returns the AprilTag layout of the field.
+     *
+     * @return the field layout
+     */
+    public AprilTagFieldLayout getFieldLayout() {
+        return fieldLayout;
+    }
+
+    /**
+     * Loads the field layout bundled in the deploy directory, falling back to the
+     * layout built into WPILib if the file can't be read.
+     */
+    static AprilTagFieldLayout loadFieldLayout() {
+        try {
+            return new AprilTagFieldLayout(VisionConstants.FIELD_LAYOUT_PATH);
+        } catch (IOException e) {
+            DriverStation.reportError("Could not load " + VisionConstants.FIELD_LAYOUT_PATH + ", using the built-in layout", e.getStackTrace());
+            return AprilTagFields.k2024Crescendo.loadAprilTagLayoutField();
+        }
+    }
+}
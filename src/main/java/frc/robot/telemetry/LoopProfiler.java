@@ -0,0 +1,279 @@
+package frc.robot.telemetry;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+
+import edu.wpi.first.networktables.DoubleArrayPublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.StringArrayPublisher;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.WrapperCommand;
+import frc.robot.replay.Replay;
+
+/**
+ * The LoopProfiler times every part of the robot loop and reports where the 20 ms went.
+ *
+ * <p>Each timed part (a subsystem's periodic(), a command's execute(), a trigger poll) is a
+ * {@link Section}. Every cycle, each section's time goes into a fixed-bucket histogram.
+ * Once per publish period the p50, p99 and max of each section are published to
+ * NetworkTables under /LoopProfiler, and the histograms start over. When a whole cycle
+ * overruns the loop period, the time of every section in that cycle is saved in a ring of
+ * the worst cycles, so you can see after the fact which part ate the budget.
+ *
+ * <p>Sections are registered once at startup. After that, timing allocates nothing, so
+ * the profiler can stay on during matches. The section times also go into the match log,
+ * except during replay.
+ */
+public final class LoopProfiler {
+
+    private static final double kLoopPeriodSeconds = 0.02;
+    private static final long kBucketWidthNanos = 50_000; // 50 us
+    private static final int kBucketCount = 1000; // 0 to 50 ms, plus an overflow bucket
+    private static final int kPublishPeriodCycles = 250; // 5 s
+    private static final int kMaxSections = 64;
+    private static final int kWorstCycleCount = 16;
+
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("LoopProfiler");
+
+    private static final Section[] sections = new Section[kMaxSections];
+    private static int sectionCount = 0;
+
+    private static final Section cycle = section("Cycle");
+
+    // Ring of the most recent overrunning cycles, formatted only when one happens
+    private static final String[] worstCycles = new String[kWorstCycleCount];
+    private static int worstCycleIndex = 0;
+    private static final StringArrayPublisher worstCyclesPublisher = table.getStringArrayTopic("Overruns").publish();
+
+    private static int cyclesSincePublish = 0;
+
+    // Every section's time in every cycle, in the match log. Created on the first cycle,
+    // once all sections have been registered.
+    private static MatchLogger.Channel sectionLog;
+
+    private LoopProfiler() {}
+
+    /**
+     * One timed part of the robot loop.
+     */
+    public static final class Section {
+        private final String name;
+        private final DoubleArrayPublisher publisher;
+        private final double[] published = new double[3];
+
+        private final int[] buckets = new int[kBucketCount + 1];
+        private int samples = 0;
+        private long maxNanos = 0;
+
+        private long startNanos = 0;
+        private long cycleNanos = 0;
+
+        private Section(String name) {
+            this.name = name;
+            this.publisher = name == null ? null : table.getDoubleArrayTopic(name).publish();
+        }
+
+        /** Marks the start of the timed code. */
+        public void start() {
+            startNanos = System.nanoTime();
+        }
+
+        /** Marks the end of the timed code. Time is added up if a section runs more than once in a cycle. */
+        public void stop() {
+            cycleNanos += System.nanoTime() - startNanos;
+        }
+
+        private void record() {
+            int bucket = (int) Math.min(cycleNanos / kBucketWidthNanos, kBucketCount);
+            buckets[bucket]++;
+            samples++;
+            if (cycleNanos > maxNanos) maxNanos = cycleNanos;
+        }
+
+        private double percentileMillis(double percentile) {
+            int target = (int) Math.ceil(samples * percentile);
+            int seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= target) return (i + 1) * kBucketWidthNanos / 1e6;
+            }
+            return maxNanos / 1e6;
+        }
+
+        private void publish() {
+            // [p50, p99, max], in milliseconds
+            published[0] = percentileMillis(0.50);
+            published[1] = percentileMillis(0.99);
+            published[2] = maxNanos / 1e6;
+            publisher.set(published);
+
+            Arrays.fill(buckets, 0);
+            samples = 0;
+            maxNanos = 0;
+        }
+    }
+
+    /**
+     * Registers a new timed section. This should only be called at startup.
+     *
+     * @param name the name to publish the section under, unique
+     * @return the section
+     * @throws IllegalArgumentException if a section with that name is already registered
+     */
+    public static Section section(String name) {
+        for (int i = 0; i < sectionCount; i++) {
+            if (sections[i].name.equals(name)) {
+                throw new IllegalArgumentException("LoopProfiler section " + name + " is already registered");
+            }
+        }
+        if (sectionCount == kMaxSections) {
+            throw new IllegalStateException("Too many LoopProfiler sections, raise kMaxSections");
+        }
+        Section section = new Section(name);
+        sections[sectionCount++] = section;
+        return section;
+    }
+
+    /**
+     * Returns a section that is never recorded or published, for copies of robot code
+     * that run outside the robot loop, like the WarmUp's.
+     *
+     * @return a new unregistered section
+     */
+    public static Section unregistered() {
+        return new Section(null);
+    }
+
+    /**
+     * Forgets every section but the whole cycle, so tests can build the robot's subsystems
+     * more than once in the same JVM.
+     */
+    public static void reset() {
+        for (int i = 1; i < sectionCount; i++) {
+            sections[i].publisher.close();
+            sections[i] = null;
+        }
+        sectionCount = 1;
+        sectionLog = null;
+        cyclesSincePublish = 0;
+        Arrays.fill(worstCycles, null);
+        worstCycleIndex = 0;
+    }
+
+    /**
+     * Wraps a trigger condition so each poll is timed.
+     *
+     * @param name the name to publish the trigger under
+     * @param condition the trigger condition
+     * @return the timed condition
+     */
+    public static BooleanSupplier timed(String name, BooleanSupplier condition) {
+        Section section = section("Triggers/" + name);
+        return () -> {
+            section.start();
+            boolean value = condition.getAsBoolean();
+            section.stop();
+            return value;
+        };
+    }
+
+    /**
+     * Wraps a command so each call to its execute() is timed.
+     *
+     * @param name the name to publish the command under
+     * @param command the command to time
+     * @return the timed command
+     */
+    public static Command timed(String name, Command command) {
+        Section section = section("Commands/" + name);
+        return new WrapperCommand(command) {
+            @Override
+            public void execute() {
+                section.start();
+                m_command.execute();
+                section.stop();
+            }
+        };
+    }
+
+    /** Starts timing a new cycle. Call this first thing in the robot's loopFunc(). */
+    public static void beginCycle() {
+        for (int i = 0; i < sectionCount; i++) {
+            sections[i].cycleNanos = 0;
+        }
+        cycle.start();
+    }
+
+    /** Finishes timing the cycle. Call this last thing in the robot's loopFunc(). */
+    public static void endCycle() {
+        cycle.stop();
+
+        for (int i = 0; i < sectionCount; i++) {
+            sections[i].record();
+        }
+
+        // Replay must write the same log every time, and these are wall-clock times
+        if (!Replay.isActive()) logSections();
+
+        if (cycle.cycleNanos > kLoopPeriodSeconds * 1e9) {
+            recordOverrun();
+        }
+
+        if (++cyclesSincePublish >= kPublishPeriodCycles) {
+            cyclesSincePublish = 0;
+            for (int i = 0; i < sectionCount; i++) {
+                sections[i].publish();
+            }
+        }
+    }
+
+    private static void logSections() {
+        if (sectionLog == null) {
+            String[] names = new String[sectionCount];
+            for (int i = 0; i < sectionCount; i++) {
+                names[i] = sections[i].name;
+            }
+            sectionLog = MatchLogger.channel("Loop/SectionMillis", sectionCount, String.join(",", names));
+        }
+
+        double[] values = sectionLog.values();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = sections[i].cycleNanos / 1e6;
+        }
+        sectionLog.append();
+    }
+
+    /**
+     * Saves the attribution of an overrunning cycle. This allocates, but only when
+     * the loop has already overrun.
+     */
+    private static void recordOverrun() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("t=%.2fs total=%.2fms", Timer.getFPGATimestamp(), cycle.cycleNanos / 1e6));
+
+        for (int i = 0; i < sectionCount; i++) {
+            Section section = sections[i];
+            if (section != cycle && section.cycleNanos >= kBucketWidthNanos) {
+                builder.append(String.format(" %s=%.2fms", section.name, section.cycleNanos / 1e6));
+            }
+        }
+
+        worstCycles[worstCycleIndex] = builder.toString();
+        worstCycleIndex = (worstCycleIndex + 1) % kWorstCycleCount;
+
+        // Publish the ring oldest first, skipping slots that haven't been filled yet
+        int filled = 0;
+        for (String entry : worstCycles) {
+            if (entry != null) filled++;
+        }
+        String[] ordered = new String[filled];
+        int next = 0;
+        for (int i = 0; i < kWorstCycleCount; i++) {
+            String entry = worstCycles[(worstCycleIndex + i) % kWorstCycleCount];
+            if (entry != null) ordered[next++] = entry;
+        }
+        worstCyclesPublisher.set(ordered);
+    }
+}
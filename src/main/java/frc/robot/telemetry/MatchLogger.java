@@ -0,0 +1,288 @@
+package frc.robot.telemetry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+import edu.wpi.first.util.datalog.IntegerLogEntry;
+import edu.wpi.first.util.datalog.RawLogEntry;
+import edu.wpi.first.wpilibj.DataLogManager;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.RobotController;
+import frc.robot.Constants.LoggingConstants;
+
+/**
+ * The MatchLogger records what the robot saw and did during a match to a WPILib DataLog
+ * (a .wpilog file, readable in AdvantageScope), without ever blocking the robot loop.
+ *
+ * <p>Each kind of record is a {@link Channel} of doubles, registered once at startup. The
+ * robot loop fills a channel's buffer and calls {@link Channel#append()}, which copies the
+ * values into a preallocated single-producer/single-consumer ring. A low-priority writer
+ * thread drains the ring into the DataLog, which does the file I/O on its own thread. If
+ * the writer falls behind and the ring fills up, records are dropped, counted, and the
+ * count is written to the log under MatchLogger/DroppedRecords.
+ *
+ * <p>Channels must only be appended to from the main robot loop.
+ *
+ * <p>Records that aren't doubles, like camera packets, go through a {@link RawChannel}
+ * instead, which skips the ring.
+ *
+ * <p>During log replay there is no writer thread. The replay calls {@link #flush()} after
+ * every cycle instead, so nothing is ever dropped and the output log is the same on
+ * every run.
+ */
+public final class MatchLogger {
+
+    // Layout of one record in the ring
+    private static final int kChannel = 0;
+    private static final int kTimestamp = 1; // microseconds, FPGA time
+    private static final int kLength = 2;
+    private static final int kValues = 3;
+
+    private static final double[][] ring =
+        new double[LoggingConstants.kQueueCapacity][kValues + LoggingConstants.kMaxChannelWidth];
+    private static final int mask = LoggingConstants.kQueueCapacity - 1;
+    private static final AtomicLong head = new AtomicLong(); // next slot to write, owned by the robot loop
+    private static final AtomicLong tail = new AtomicLong(); // next slot to read, owned by the writer
+    private static final AtomicLong droppedRecords = new AtomicLong();
+
+    private static final Channel[] channels = new Channel[LoggingConstants.kMaxChannels];
+    private static int channelCount = 0;
+
+    private static DataLog log;
+
+    private MatchLogger() {}
+
+    /**
+     * One kind of record, logged as a double array entry.
+     */
+    public static final class Channel {
+        private final int id;
+        private final String name;
+        private final String metadata;
+        private final double[] values;
+
+        // Owned by the writer thread
+        private DoubleArrayLogEntry entry;
+        private final double[][] scratchByLength;
+
+        private Channel(int id, String name, int width, String metadata) {
+            this.id = id;
+            this.name = name;
+            this.metadata = metadata;
+            this.values = new double[width];
+            this.scratchByLength = new double[width + 1][];
+        }
+
+        /**
+         * Returns the buffer to fill before calling {@link #append()}. The same array is
+         * returned every time.
+         *
+         * @return the channel's value buffer
+         */
+        public double[] values() {
+            return values;
+        }
+
+        /** Queues the whole value buffer, stamped with the current FPGA time. */
+        public void append() {
+            append(values.length);
+        }
+
+        /**
+         * Queues the first values of the buffer, stamped with the current FPGA time.
+         *
+         * @param length how many values to log, up to the channel width
+         */
+        public void append(int length) {
+            long slot = head.get();
+            if (slot - tail.get() > mask) {
+                droppedRecords.incrementAndGet();
+                return;
+            }
+
+            double[] record = ring[(int) (slot & mask)];
+            record[kChannel] = id;
+            record[kTimestamp] = RobotController.getFPGATime();
+            record[kLength] = length;
+            System.arraycopy(values, 0, record, kValues, length);
+
+            // Publish the slot only after it has been fully written
+            head.lazySet(slot + 1);
+        }
+
+        // Writer thread only. The DataLog needs an array of the exact length, so one is
+        // kept per length that has been seen.
+        private void write(DataLog log, double[] record) {
+            if (entry == null) {
+                entry = new DoubleArrayLogEntry(log, name, metadata);
+            }
+
+            int length = (int) record[kLength];
+            double[] scratch = scratchByLength[length];
+            if (scratch == null) {
+                scratch = scratchByLength[length] = new double[length];
+            }
+            System.arraycopy(record, kValues, scratch, 0, length);
+            entry.append(scratch, (long) record[kTimestamp]);
+        }
+    }
+
+    /**
+     * One kind of record that isn't an array of doubles, logged as a raw entry.
+     *
+     * <p>Records don't fit in the ring, so each one is handed to the DataLog right away, on
+     * the calling thread. The DataLog only copies the bytes into its buffer; the file I/O
+     * still happens on its own thread. Because the channels' records are written later by
+     * the writer thread, raw records are not in loop order with them in the log, and should
+     * be matched to loop cycles by timestamp.
+     */
+    public static final class RawChannel {
+        private final String name;
+        private final String type;
+        private final String metadata;
+
+        private RawLogEntry entry;
+
+        private RawChannel(String name, String type, String metadata) {
+            this.name = name;
+            this.type = type;
+            this.metadata = metadata;
+        }
+
+        /**
+         * Logs a record, stamped with the current FPGA time. Does nothing until the log
+         * has been started.
+         *
+         * @param data the record, which the log copies
+         */
+        public void append(byte[] data) {
+            if (log == null) return;
+
+            if (entry == null) {
+                entry = new RawLogEntry(log, name, metadata, type);
+            }
+            entry.append(data, RobotController.getFPGATime());
+        }
+    }
+
+    /**
+     * Registers a new raw channel. This should only be called at startup, from the main thread.
+     *
+     * @param name the log entry name
+     * @param type the log entry type, which tells readers how to decode it
+     * @param metadata the log entry metadata, e.g. the record layout
+     * @return the channel
+     */
+    public static RawChannel rawChannel(String name, String type, String metadata) {
+        return new RawChannel(name, type, metadata);
+    }
+
+    /**
+     * Registers a new channel. This should only be called at startup, from the main thread.
+     *
+     * @param name the log entry name
+     * @param width the largest number of values in one record
+     * @return the channel
+     */
+    public static Channel channel(String name, int width) {
+        return channel(name, width, "");
+    }
+
+    /**
+     * Registers a new channel. This should only be called at startup, from the main thread.
+     *
+     * @param name the log entry name
+     * @param width the largest number of values in one record
+     * @param metadata the log entry metadata, e.g. the meaning of each value
+     * @return the channel
+     */
+    public static Channel channel(String name, int width, String metadata) {
+        if (width > LoggingConstants.kMaxChannelWidth) {
+            throw new IllegalArgumentException("MatchLogger channel " + name + " is wider than kMaxChannelWidth");
+        }
+        if (channelCount == LoggingConstants.kMaxChannels) {
+            throw new IllegalStateException("Too many MatchLogger channels, raise kMaxChannels");
+        }
+        Channel channel = new Channel(channelCount, name, width, metadata);
+        channels[channelCount++] = channel;
+        return channel;
+    }
+
+    /**
+     * Starts the DataLog and the writer thread. Call this once, first thing in robotInit().
+     */
+    public static void start() {
+        if (log != null) return;
+
+        DataLogManager.start();
+        log = DataLogManager.getLog();
+
+        // Mode changes and FMS data come from the DS thread, which logs on its own
+        DriverStation.startDataLog(log, false);
+
+        Thread writer = new Thread(MatchLogger::run, "MatchLogger");
+        writer.setDaemon(true);
+        writer.setPriority(Thread.MIN_PRIORITY);
+        writer.start();
+    }
+
+    /**
+     * Starts logging to the given DataLog without a writer thread. Records are only
+     * written when {@link #flush()} is called. This is meant for log replay, and makes
+     * a later call to {@link #start()} do nothing.
+     *
+     * @param replayLog the log to write to
+     */
+    public static void startReplay(DataLog replayLog) {
+        log = replayLog;
+    }
+
+    /**
+     * Writes every queued record on the calling thread. Only for use with
+     * {@link #startReplay(DataLog)}.
+     */
+    public static void flush() {
+        drain();
+    }
+
+    /**
+     * Returns the number of records dropped because the writer fell behind.
+     *
+     * @return the dropped record count
+     */
+    public static long getDroppedRecords() {
+        return droppedRecords.get();
+    }
+
+    private static void drain() {
+        long slot;
+        while ((slot = tail.get()) < head.get()) {
+            double[] record = ring[(int) (slot & mask)];
+            channels[(int) record[kChannel]].write(log, record);
+            tail.lazySet(slot + 1);
+        }
+    }
+
+    private static void run() {
+        IntegerLogEntry droppedEntry = new IntegerLogEntry(log, "MatchLogger/DroppedRecords");
+        long loggedDrops = 0;
+        long sleepMillis = (long) (LoggingConstants.kWriterPeriodSeconds * 1000);
+
+        while (!Thread.currentThread().isInterrupted()) {
+            drain();
+
+            long drops = droppedRecords.get();
+            if (drops != loggedDrops) {
+                loggedDrops = drops;
+                droppedEntry.append(drops);
+            }
+
+            try {
+                Thread.sleep(sleepMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package frc.robot.telemetry;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.RawPublisher;
+import edu.wpi.first.networktables.StringPublisher;
+import edu.wpi.first.util.struct.Struct;
+import frc.robot.Constants.TelemetryConstants;
+
+/**
+ * Telemetry decides which signals go out to NetworkTables each cycle, and how often.
+ *
+ * <p>Each signal registers once, with a {@link Tier} and the fastest rate it is worth
+ * sending at. The active {@link Profile} caps each tier's rate on top of that, and can turn
+ * a tier off entirely. Once per cycle, {@link #periodic()} goes through the signals that
+ * are due, most important tier first. Each one is serialized, and sent only if it changed
+ * since it was last sent; new subscribers still get the last value from the server. The
+ * profile also sets a byte budget per cycle. A signal that doesn't fit waits for a later
+ * cycle, so the low tiers give way first when the radio link is busy.
+ *
+ * <p>The bytes sent per second by each tier are published under /Telemetry. They count
+ * the serialized values only, not the NetworkTables framing around them.
+ *
+ * <p>Signals are sampled when they are sent, not when they are registered, so a supplier
+ * should return the latest value without side effects. Everything runs on the main thread.
+ */
+public final class Telemetry {
+
+    private static final NetworkTable table = NetworkTableInstance.getDefault().getTable("Telemetry");
+    private static final StringPublisher profilePublisher = table.getStringTopic("Profile").publish();
+    private static final DoublePublisher deferredPublisher = table.getDoubleTopic("DeferredPerSecond").publish();
+
+    private static final List<Signal<?>> signals = new ArrayList<>();
+    private static Profile profile = Profile.kDisabled;
+
+    private static final long[] tierBytes = new long[Tier.values().length];
+    private static final DoublePublisher[] tierPublishers = new DoublePublisher[Tier.values().length];
+    private static int deferred = 0;
+    private static int cyclesSincePublish = 0;
+
+    static {
+        for (Tier tier : Tier.values()) {
+            tierPublishers[tier.ordinal()] = table.getDoubleTopic("BytesPerSecond/" + tier.name().substring(1)).publish();
+        }
+        profilePublisher.set(profile.name());
+    }
+
+    private Telemetry() {}
+
+    /** How much a signal matters. Tiers are sent in this order. */
+    public enum Tier {
+        /** What the drive team needs to see, even on a busy link. */
+        kCritical,
+        /** Robot state for watching a match in AdvantageScope. */
+        kNormal,
+        /** Detail for tuning and debugging, off in matches. */
+        kDebug
+    }
+
+    /** How much telemetry to send, for what the robot is doing. */
+    public enum Profile {
+        /** On the field: the radio link is shared and capped. */
+        kCompetition(TelemetryConstants.kCompetitionTierHz, TelemetryConstants.kCompetitionBytesPerCycle),
+        /** Tethered in the pit: everything, at full rate. */
+        kPitTuning(TelemetryConstants.kPitTuningTierHz, TelemetryConstants.kPitTuningBytesPerCycle),
+        /** Disabled: just enough to check the robot over. */
+        kDisabled(TelemetryConstants.kDisabledTierHz, TelemetryConstants.kDisabledBytesPerCycle);
+
+        private final double[] tierHz;
+        private final int bytesPerCycle;
+
+        Profile(double[] tierHz, int bytesPerCycle) {
+            this.tierHz = tierHz;
+            this.bytesPerCycle = bytesPerCycle;
+        }
+    }
+
+    /**
+     * One value sent through Telemetry.
+     *
+     * @param <T> the type of the value
+     */
+    private abstract static class Signal<T> {
+        private final Tier tier;
+        private final double maxHz;
+        private final Supplier<T> source;
+        private final RawPublisher publisher;
+
+        // The last bytes sent, and the bytes being built this cycle
+        private ByteBuffer sent = allocate(0);
+        private ByteBuffer scratch = allocate(0);
+        private boolean hasSent = false;
+
+        private int periodCycles;
+        private int cyclesSinceSent;
+
+        Signal(String topic, String typeString, Tier tier, double maxHz, Supplier<T> source) {
+            this.tier = tier;
+            this.maxHz = maxHz;
+            this.source = source;
+            this.publisher = NetworkTableInstance.getDefault().getRawTopic(topic).publish(typeString);
+            updatePeriod();
+        }
+
+        /** Recomputes how many cycles apart this signal is sent, under the active profile. */
+        private void updatePeriod() {
+            double hz = Math.min(maxHz, profile.tierHz[tier.ordinal()]);
+            periodCycles = hz > 0
+                ? Math.max(1, (int) Math.round(TelemetryConstants.kLoopRateHz / hz))
+                : Integer.MAX_VALUE;
+            // Send as soon as the signal is due under the new rate
+            cyclesSinceSent = periodCycles - 1;
+        }
+
+        /** Serializes a value into the buffer, which is exactly as long as its size. */
+        abstract void pack(ByteBuffer buffer, T value);
+
+        /** The serialized size of a value, in bytes. */
+        abstract int size(T value);
+
+        /**
+         * Sends the signal if it is due, changed, and fits in the budget.
+         *
+         * @param budget the bytes left to send this cycle
+         * @return the bytes sent
+         */
+        private int publish(int budget) {
+            if (periodCycles == Integer.MAX_VALUE || ++cyclesSinceSent < periodCycles) return 0;
+
+            T value = source.get();
+            int size = size(value);
+            if (scratch.capacity() != size) scratch = allocate(size);
+            scratch.clear();
+            pack(scratch, value);
+
+            if (hasSent && Arrays.equals(scratch.array(), sent.array())) {
+                cyclesSinceSent = 0;
+                return 0;
+            }
+            if (size > budget) {
+                // Stay due, and try again next cycle
+                deferred++;
+                return 0;
+            }
+
+            publisher.set(scratch.array());
+            cyclesSinceSent = 0;
+            hasSent = true;
+
+            // Keep what was sent, and reuse the old buffer next time
+            ByteBuffer swap = sent;
+            sent = scratch;
+            scratch = swap;
+            return size;
+        }
+    }
+
+    /** NetworkTables structs are little endian. */
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static final class StructArraySignal<T> extends Signal<T[]> {
+        private final Struct<T> struct;
+
+        StructArraySignal(String topic, Struct<T> struct, Tier tier, double maxHz, Supplier<T[]> source) {
+            super(topic, struct.getTypeString() + "[]", tier, maxHz, source);
+            this.struct = struct;
+        }
+
+        @Override
+        void pack(ByteBuffer buffer, T[] values) {
+            for (T value : values) struct.pack(buffer, value);
+        }
+
+        @Override
+        int size(T[] values) {
+            return values.length * struct.getSize();
+        }
+    }
+
+    /**
+     * Registers an array of structs, like a StructArrayPublisher. Call this once at startup.
+     *
+     * @param topic the NetworkTables topic
+     * @param struct the struct serializer of the elements
+     * @param tier how much the signal matters
+     * @param maxHz the fastest the signal is worth sending at
+     * @param source returns the current value when the signal is sent
+     */
+    public static <T> void structArray(String topic, Struct<T> struct, Tier tier, double maxHz, Supplier<T[]> source) {
+        // Lets AdvantageScope decode the topic
+        NetworkTableInstance.getDefault().addSchema(struct);
+        register(new StructArraySignal<>(topic, struct, tier, maxHz, source));
+    }
+
+    private static void register(Signal<?> signal) {
+        signals.add(signal);
+
+        // Highest tier first, then in registration order
+        signals.sort((a, b) -> a.tier.compareTo(b.tier));
+    }
+
+    /**
+     * Switches the telemetry profile. Every signal's rate changes right away.
+     *
+     * @param newProfile the profile to use
+     */
+    public static void setProfile(Profile newProfile) {
+        if (newProfile == profile) return;
+
+        profile = newProfile;
+        for (Signal<?> signal : signals) signal.updatePeriod();
+        profilePublisher.set(profile.name());
+    }
+
+    /**
+     * Returns the active telemetry profile.
+     *
+     * @return the profile
+     */
+    public static Profile getProfile() {
+        return profile;
+    }
+
+    /** Sends whatever is due this cycle. Call this once per robotPeriodic(), after the scheduler. */
+    public static void periodic() {
+        int budget = profile.bytesPerCycle;
+        for (int i = 0; i < signals.size(); i++) {
+            Signal<?> signal = signals.get(i);
+            int sent = signal.publish(budget);
+            budget -= sent;
+            tierBytes[signal.tier.ordinal()] += sent;
+        }
+
+        if (++cyclesSincePublish >= TelemetryConstants.kPublishPeriodCycles) {
+            double seconds = cyclesSincePublish / TelemetryConstants.kLoopRateHz;
+            for (int i = 0; i < tierBytes.length; i++) {
+                tierPublishers[i].set(tierBytes[i] / seconds);
+                tierBytes[i] = 0;
+            }
+            deferredPublisher.set(deferred / seconds);
+            deferred = 0;
+            cyclesSincePublish = 0;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package frc.utils;
+
+import edu.wpi.first.math.filter.SlewRateLimiter;
+
+/**
+ * Rate limits a joystick drive command to keep lateral acceleration down. The translation
+ * is limited in polar form: the direction is stepped towards the input at a rate that shrinks
+ * as the robot goes faster, and the magnitude and rotation each go through a slew rate limiter.
+ *
+ * <p>This is the rate limiting that used to live in DriveSubsystem.drive(). It has no
+ * hardware dependencies, so it can also be run and benchmarked on a desktop JVM.
+ */
+public class PolarSlewRateLimiter {
+
+    private final double m_directionSlewRate;
+    private final SlewRateLimiter m_magLimiter;
+    private final SlewRateLimiter m_rotLimiter;
+
+    private double m_currentRotation = 0.0;
+    private double m_currentTranslationDir = 0.0;
+    private double m_currentTranslationMag = 0.0;
+    private double m_prevTime;
+
+    /**
+     * Creates a new PolarSlewRateLimiter.
+     *
+     * @param directionSlewRate the direction slew rate at full speed (radians per second)
+     * @param magnitudeSlewRate the magnitude slew rate (percent per second, 1 = 100%)
+     * @param rotationalSlewRate the rotation slew rate (percent per second, 1 = 100%)
+     * @param initialTime the current time (s)
+     */
+    public PolarSlewRateLimiter(double directionSlewRate, double magnitudeSlewRate, double rotationalSlewRate, double initialTime) {
+        m_directionSlewRate = directionSlewRate;
+        m_magLimiter = new SlewRateLimiter(magnitudeSlewRate);
+        m_rotLimiter = new SlewRateLimiter(rotationalSlewRate);
+        m_prevTime = initialTime;
+    }
+
+    /**
+     * Steps the limited command towards the given input. Read the result with
+     * {@link #getX()}, {@link #getY()} and {@link #getRotation()}.
+     *
+     * @param xSpeed the requested x speed (-1 to 1)
+     * @param ySpeed the requested y speed (-1 to 1)
+     * @param rot the requested rotation (-1 to 1)
+     * @param currentTime the current time (s)
+     */
+    public void calculate(double xSpeed, double ySpeed, double rot, double currentTime) {
+        // Convert XY to polar for rate limiting
+        double inputTranslationDir = Math.atan2(ySpeed, xSpeed);
+        double inputTranslationMag = Math.sqrt(Math.pow(xSpeed, 2) + Math.pow(ySpeed, 2));
+
+        // Calculate the direction slew rate based on an estimate of the lateral acceleration
+        double directionSlewRate;
+        if (m_currentTranslationMag != 0.0) {
+            directionSlewRate = Math.abs(m_directionSlewRate / m_currentTranslationMag);
+        } else {
+            directionSlewRate = 500.0; //some high number that means the slew rate is effectively instantaneous
+        }
+
+        double elapsedTime = currentTime - m_prevTime;
+        double angleDif = SwerveUtils.AngleDifference(inputTranslationDir, m_currentTranslationDir);
+        if (angleDif < 0.45*Math.PI) {
+            m_currentTranslationDir = SwerveUtils.StepTowardsCircular(m_currentTranslationDir, inputTranslationDir, directionSlewRate * elapsedTime);
+            m_currentTranslationMag = m_magLimiter.calculate(inputTranslationMag);
+        }
+        else if (angleDif > 0.85*Math.PI) {
+            if (m_currentTranslationMag > 1e-4) { //some small number to avoid floating-point errors with equality checking
+                // keep currentTranslationDir unchanged
+                m_currentTranslationMag = m_magLimiter.calculate(0.0);
+            }
+            else {
+                m_currentTranslationDir = SwerveUtils.WrapAngle(m_currentTranslationDir + Math.PI);
+                m_currentTranslationMag = m_magLimiter.calculate(inputTranslationMag);
+            }
+        }
+        else {
+            m_currentTranslationDir = SwerveUtils.StepTowardsCircular(m_currentTranslationDir, inputTranslationDir, directionSlewRate * elapsedTime);
+            m_currentTranslationMag = m_magLimiter.calculate(0.0);
+        }
+        m_prevTime = currentTime;
+
+        m_currentRotation = m_rotLimiter.calculate(rot);
+    }
+
+    /**
+     * Returns the limited x speed.
+     *
+     * @return the x speed (-1 to 1)
+     */
+    public double getX() {
+        return m_currentTranslationMag * Math.cos(m_currentTranslationDir);
+    }
+
+    /**
+     * Returns the limited y speed.
+     *
+     * @return the y speed (-1 to 1)
+     */
+    public double getY() {
+        return m_currentTranslationMag * Math.sin(m_currentTranslationDir);
+    }
+
+    /**
+     * Returns the limited rotation.
+     *
+     * @return the rotation (-1 to 1)
+     */
+    public double getRotation() {
+        return m_currentRotation;
+    }
+}
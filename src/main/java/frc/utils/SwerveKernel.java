@@ -0,0 +1,166 @@
+package frc.utils;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Swerve kinematics for a rectangular four-module chassis, on flat double arrays.
+ *
+ * <p>This does the same math as WPILib's SwerveDriveKinematics and SwerveModuleState, for
+ * all four modules at once, without allocating. Module states are stored interleaved in a
+ * {@code double[8]}: speed (m/s) then angle (rad) for the front left, front right, rear
+ * left and rear right modules, the same order as {@code DriveConstants.kDriveKinematics}.
+ * Chassis speeds are a {@code double[3]}: vx, vy (m/s) and omega (rad/s).
+ *
+ * <p>The module layout is fixed, so inverse kinematics is four closed-form lines instead of
+ * a matrix product, and forward kinematics is a mean instead of a pseudo-inverse.
+ */
+public final class SwerveKernel {
+
+    // Interleaved module state layout
+    public static final int kModules = 4;
+    public static final int kStateSize = 2 * kModules;
+
+    // Half the distances between the module centers
+    private final double halfWheelBase;
+    private final double halfTrackWidth;
+
+    // 1 / (sum of the squared module distances from the center), for forward kinematics
+    private final double inverseRadiusSquaredSum;
+
+    /**
+     * @param wheelBase the distance between the front and back modules (m)
+     * @param trackWidth the distance between the left and right modules (m)
+     */
+    public SwerveKernel(double wheelBase, double trackWidth) {
+        halfWheelBase = wheelBase / 2;
+        halfTrackWidth = trackWidth / 2;
+        inverseRadiusSquaredSum = 1.0 / (kModules * (halfWheelBase * halfWheelBase + halfTrackWidth * halfTrackWidth));
+    }
+
+    /**
+     * Rotates field-relative speeds into the robot frame, the same as
+     * ChassisSpeeds.fromFieldRelativeSpeeds(). Omega is copied through.
+     *
+     * @param vx the field-relative x speed (m/s)
+     * @param vy the field-relative y speed (m/s)
+     * @param omega the angular speed (rad/s)
+     * @param headingRadians the robot heading, counterclockwise positive (rad)
+     * @param chassisSpeeds the robot-relative speeds, written in place
+     */
+    public static void fieldToRobot(double vx, double vy, double omega, double headingRadians, double[] chassisSpeeds) {
+        double cos = Math.cos(headingRadians);
+        double sin = Math.sin(headingRadians);
+        chassisSpeeds[0] = vx * cos + vy * sin;
+        chassisSpeeds[1] = -vx * sin + vy * cos;
+        chassisSpeeds[2] = omega;
+    }
+
+    /**
+     * Computes each module's speed and angle from robot-relative chassis speeds. When the
+     * chassis isn't moving at all, the module angles are left as they are and only the
+     * speeds are zeroed, like SwerveDriveKinematics does.
+     *
+     * @param vx the forward speed (m/s)
+     * @param vy the leftward speed (m/s)
+     * @param omega the counterclockwise angular speed (rad/s)
+     * @param states the module states, written in place
+     */
+    public void toModuleStates(double vx, double vy, double omega, double[] states) {
+        if (vx == 0 && vy == 0 && omega == 0) {
+            for (int i = 0; i < kStateSize; i += 2) states[i] = 0;
+            return;
+        }
+
+        // A module at (x, y) moves at (vx - omega * y, vy + omega * x)
+        double left = vx - omega * halfTrackWidth;
+        double right = vx + omega * halfTrackWidth;
+        double front = vy + omega * halfWheelBase;
+        double rear = vy - omega * halfWheelBase;
+
+        setState(states, 0, left, front);
+        setState(states, 1, right, front);
+        setState(states, 2, left, rear);
+        setState(states, 3, right, rear);
+    }
+
+    private static void setState(double[] states, int module, double x, double y) {
+        states[2 * module] = Math.sqrt(x * x + y * y);
+        states[2 * module + 1] = Math.atan2(y, x);
+    }
+
+    /**
+     * Scales every module speed down by the same factor if any of them is faster than the
+     * maximum, so the chassis keeps its direction of travel.
+     *
+     * @param states the module states, scaled in place
+     * @param maxSpeed the fastest a module can drive (m/s)
+     */
+    public static void desaturate(double[] states, double maxSpeed) {
+        double fastest = 0;
+        for (int i = 0; i < kStateSize; i += 2) fastest = Math.max(fastest, Math.abs(states[i]));
+        if (fastest <= maxSpeed) return;
+
+        double scale = maxSpeed / fastest;
+        for (int i = 0; i < kStateSize; i += 2) states[i] *= scale;
+    }
+
+    /**
+     * Flips any module that would have to turn more than 90 degrees: it drives backwards
+     * and turns the other way instead, like SwerveModuleState.optimize().
+     *
+     * @param states the module states, optimized in place
+     * @param currentAngles each module's current angle (rad)
+     */
+    public static void optimize(double[] states, double[] currentAngles) {
+        for (int module = 0; module < kModules; module++) {
+            int i = 2 * module;
+            if (Math.abs(MathUtil.angleModulus(states[i + 1] - currentAngles[module])) > Math.PI / 2) {
+                states[i] = -states[i];
+                states[i + 1] = MathUtil.angleModulus(states[i + 1] + Math.PI);
+            }
+        }
+    }
+
+    /**
+     * Scales each module's speed by the cosine of how far it still has to turn, so a module
+     * pointed the wrong way doesn't push the robot off course while it turns.
+     *
+     * @param states the module states, scaled in place
+     * @param currentAngles each module's current angle (rad)
+     */
+    public static void cosineScale(double[] states, double[] currentAngles) {
+        for (int module = 0; module < kModules; module++) {
+            states[2 * module] *= Math.cos(states[2 * module + 1] - currentAngles[module]);
+        }
+    }
+
+    /**
+     * Computes the chassis speeds that best fit the module states. With module position
+     * deltas (distance, angle) instead of states, this gives the odometry twist (dx, dy,
+     * dtheta), like SwerveDriveKinematics.toTwist2d().
+     *
+     * @param states the module states
+     * @param chassisSpeeds the robot-relative chassis speeds, written in place
+     */
+    public void toChassisSpeeds(double[] states, double[] chassisSpeeds) {
+        double vx = 0, vy = 0, rotation = 0;
+        for (int module = 0; module < kModules; module++) {
+            double speed = states[2 * module];
+            double angle = states[2 * module + 1];
+            double moduleVx = speed * Math.cos(angle);
+            double moduleVy = speed * Math.sin(angle);
+
+            // Module order is front left, front right, rear left, rear right
+            double x = module < 2 ? halfWheelBase : -halfWheelBase;
+            double y = (module & 1) == 0 ? halfTrackWidth : -halfTrackWidth;
+
+            vx += moduleVx;
+            vy += moduleVy;
+            rotation += x * moduleVy - y * moduleVx;
+        }
+
+        chassisSpeeds[0] = vx / kModules;
+        chassisSpeeds[1] = vy / kModules;
+        chassisSpeeds[2] = rotation * inverseRadiusSquaredSum;
+    }
+}
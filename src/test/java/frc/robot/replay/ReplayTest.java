@@ -0,0 +1,125 @@
+package frc.robot.replay;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import edu.wpi.first.util.datalog.BooleanLogEntry;
+import edu.wpi.first.util.datalog.DataLog;
+import edu.wpi.first.util.datalog.DataLogReader;
+import edu.wpi.first.util.datalog.DataLogRecord;
+import edu.wpi.first.util.datalog.DoubleArrayLogEntry;
+
+/**
+ * Replays a small recorded match twice and checks that both replays write exactly the same
+ * log.
+ *
+ * <p>Each replay runs {@link ReplayMain} in a JVM of its own, the way ./gradlew replay does,
+ * since the robot code registers itself in static registries and ReplayMain exits the JVM
+ * when it is done.
+ */
+class ReplayTest {
+
+    private static final int kCycles = 150; // 3 s
+    private static final long kCycleMicros = 20_000;
+    private static final long kReplaySeconds = 120;
+
+    @TempDir
+    Path directory;
+
+    /** Writes a log of the robot enabled in teleop, driven forward while turning slowly. */
+    private File recordMatch() {
+        DataLog log = new DataLog(directory.toString(), "match.wpilog");
+        BooleanLogEntry enabled = new BooleanLogEntry(log, "DS:enabled");
+        DoubleArrayLogEntry controller = new DoubleArrayLogEntry(log, "Driver/Controller");
+        DoubleArrayLogEntry inputs = new DoubleArrayLogEntry(log, "Drive/Inputs");
+
+        enabled.append(true, kCycleMicros);
+        double[] stick = new double[8];
+        double[] sensors = new double[15];
+        for (int i = 0; i < kCycles; i++) {
+            long t = (i + 1) * kCycleMicros;
+            double seconds = t / 1e6;
+
+            // Left stick forward, right stick a little to the side
+            stick[1] = -0.5;
+            stick[2] = 0.1;
+            stick[7] = -1; // POV not pressed
+            controller.append(stick, t);
+
+            // Per module: drive position, drive velocity, angle; then gyro angle, rate, timestamp
+            for (int module = 0; module < 4; module++) {
+                sensors[3 * module] = 1.5 * seconds;
+                sensors[3 * module + 1] = 1.5;
+                sensors[3 * module + 2] = 0.01 * module;
+            }
+            sensors[12] = -10 * seconds;
+            sensors[13] = -10;
+            sensors[14] = seconds;
+            inputs.append(sensors, t);
+        }
+        log.close();
+
+        return directory.resolve("match.wpilog").toFile();
+    }
+
+    /** Runs ReplayMain on the input in a new JVM and waits for it. */
+    private File replay(File input, String outputName) throws IOException, InterruptedException {
+        File output = directory.resolve(outputName).toFile();
+        String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+
+        // The child inherits the test task's environment, which has the WPILib natives on its path
+        Process process = new ProcessBuilder(
+            java,
+            "-cp", System.getProperty("java.class.path"),
+            "-Djava.library.path=" + System.getProperty("java.library.path"),
+            ReplayMain.class.getName(),
+            input.getPath(),
+            output.getPath())
+            .redirectErrorStream(true)
+            .redirectOutput(directory.resolve(outputName + ".out").toFile())
+            .start();
+
+        assertTrue(process.waitFor(kReplaySeconds, TimeUnit.SECONDS), "the replay of " + outputName + " didn't finish");
+        assertEquals(0, process.exitValue(), "the replay of " + outputName + " failed, see " + outputName + ".out");
+        return output;
+    }
+
+    @Test
+    void replayingTwiceWritesTheSameLog() throws IOException, InterruptedException {
+        File match = recordMatch();
+
+        byte[] first = Files.readAllBytes(replay(match, "first.wpilog").toPath());
+        byte[] second = Files.readAllBytes(replay(match, "second.wpilog").toPath());
+
+        assertTrue(first.length > 0);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void replayLeavesOutTheLoopTimings() throws IOException, InterruptedException {
+        File output = replay(recordMatch(), "replay.wpilog");
+
+        DataLogReader reader = new DataLogReader(output.getPath());
+        assertTrue(reader.isValid());
+        boolean hasDriveOutputs = false;
+        for (DataLogRecord record : reader) {
+            if (!record.isStart()) continue;
+            String name = record.getStartData().name;
+            assertFalse(name.startsWith("Loop/"), "the replay logged " + name);
+            if (name.equals("Drive/SetPoints")) hasDriveOutputs = true;
+        }
+        assertTrue(hasDriveOutputs, "the replay should log what the drive did");
+    }
+}
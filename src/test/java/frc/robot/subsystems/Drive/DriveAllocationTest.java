@@ -0,0 +1,119 @@
+package frc.robot.subsystems.Drive;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import com.sun.management.ThreadMXBean;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+
+/**
+ * Checks that the drive loop doesn't make garbage, by counting the bytes the test thread
+ * allocates while a {@link DriveSubsystem} runs on a {@link SwerveDriveSim}.
+ *
+ * <p>The physics model allocates on every step, so it runs outside the measured windows.
+ */
+class DriveAllocationTest {
+
+    private static final int kWarmupCycles = 500;
+    private static final int kMeasuredCycles = 300;
+
+    // drive() should allocate nothing once the modules hold their setpoints. The slack
+    // covers a one-off allocation if the JIT recompiles during the measurement.
+    private static final long kDriveBytesPerCycle = 16;
+
+    // The same for the sensor snapshot and the logging in periodic(). The pose estimator
+    // update between them allocates inside WPILib (it copies the module positions and
+    // stores a snapshot every update), so it isn't measured.
+    private static final long kSnapshotAndLoggingBytesPerCycle = 16;
+
+    // Driving and spinning at once, robot relative so the module setpoints stay the same
+    private static final double kForward = 0.5;
+    private static final double kStrafe = 0.2;
+    private static final double kTurn = 0.3;
+
+    private static final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static SwerveDriveSim simulation;
+    private static DriveSubsystem drive;
+
+    // Bytes allocated by the measurement itself, subtracted from every window
+    private static long overhead;
+
+    @BeforeAll
+    static void setup() {
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "The JVM can't count allocated bytes");
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        assertTrue(HAL.initialize(500, 0));
+        SimHooks.pauseTiming();
+
+        simulation = new SwerveDriveSim();
+        drive = new DriveSubsystem(simulation);
+
+        // Let the modules turn to their setpoints and the JIT compile the loop
+        for (int i = 0; i < kWarmupCycles; i++) {
+            drive.periodic();
+            drive.drive(kForward, kStrafe, kTurn, false, false);
+            step();
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        overhead = threads.getCurrentThreadAllocatedBytes() - before;
+    }
+
+    private static void step() {
+        simulation.update(TimedRobot.kDefaultPeriod);
+        SimHooks.stepTiming(TimedRobot.kDefaultPeriod);
+    }
+
+    @Test
+    void driveDoesNotAllocate() {
+        long bytes = 0;
+        for (int i = 0; i < kMeasuredCycles; i++) {
+            drive.periodic();
+
+            long before = threads.getCurrentThreadAllocatedBytes();
+            drive.drive(kForward, kStrafe, kTurn, false, false);
+            bytes += threads.getCurrentThreadAllocatedBytes() - before - overhead;
+
+            step();
+        }
+
+        long perCycle = bytes / kMeasuredCycles;
+        assertTrue(perCycle <= kDriveBytesPerCycle,
+            "drive() allocated " + perCycle + " bytes per cycle, budget " + kDriveBytesPerCycle);
+    }
+
+    @Test
+    void snapshotAndLoggingDoNotAllocate() {
+        long bytes = 0;
+        for (int i = 0; i < kMeasuredCycles; i++) {
+            // periodic(), one step at a time
+            long before = threads.getCurrentThreadAllocatedBytes();
+            drive.refreshInputs();
+            bytes += threads.getCurrentThreadAllocatedBytes() - before - overhead;
+
+            drive.updateOdometry();
+
+            before = threads.getCurrentThreadAllocatedBytes();
+            drive.logOutputs();
+            bytes += threads.getCurrentThreadAllocatedBytes() - before - overhead;
+
+            drive.drive(kForward, kStrafe, kTurn, false, false);
+            step();
+        }
+
+        long perCycle = bytes / kMeasuredCycles;
+        assertTrue(perCycle <= kSnapshotAndLoggingBytesPerCycle,
+            "the snapshot and logging in periodic() allocated " + perCycle + " bytes per cycle, budget "
+                + kSnapshotAndLoggingBytesPerCycle);
+    }
+}
@@ -0,0 +1,118 @@
+package frc.robot.subsystems.Drive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.wpilibj.TimedRobot;
+import edu.wpi.first.wpilibj.simulation.SimHooks;
+import frc.robot.Constants.VisionConstants;
+import frc.robot.subsystems.Vision.CameraIO;
+import frc.robot.subsystems.Vision.CameraIOSim;
+import frc.robot.subsystems.Vision.VisionSubsystem;
+import frc.robot.telemetry.LoopProfiler;
+
+/**
+ * Drives a {@link DriveSubsystem} on a {@link SwerveDriveSim}, with simulated vision
+ * feeding its pose estimator, and checks that the robot moves the way it was told to.
+ */
+class DriveSimulationTest {
+
+    // Looking at the blue speaker tags from 2 m away
+    private static final Pose2d kFacingSpeaker = new Pose2d(2.0, 5.5, Rotation2d.fromDegrees(180));
+
+    private SwerveDriveSim simulation;
+    private DriveSubsystem drive;
+    private VisionSubsystem vision;
+
+    @BeforeAll
+    static void initializeHal() {
+        assertTrue(HAL.initialize(500, 0));
+        SimHooks.pauseTiming();
+    }
+
+    @BeforeEach
+    void build() {
+        // Each test builds its own subsystems, and they register their profiler sections by name
+        LoopProfiler.reset();
+        simulation = new SwerveDriveSim();
+        drive = new DriveSubsystem(simulation);
+
+        List<CameraIO> cameras = List.of(new CameraIOSim(VisionConstants.kCameras.get(0), simulation::getPose));
+        vision = new VisionSubsystem(cameras, drive::addVisionMeasurement);
+    }
+
+    /** Runs the drive and vision loops for a while, with the same command every cycle. */
+    private void run(double seconds, double xSpeed, double ySpeed, double rot) {
+        for (int i = 0; i < Math.round(seconds / TimedRobot.kDefaultPeriod); i++) {
+            drive.periodic();
+            vision.periodic();
+            drive.drive(xSpeed, ySpeed, rot, false, false);
+            drive.simulationPeriodic();
+            SimHooks.stepTiming(TimedRobot.kDefaultPeriod);
+        }
+        drive.periodic();
+    }
+
+    /** Puts the simulated robot somewhere, and tells the odometry it is there. */
+    private void placeAt(Pose2d pose) {
+        simulation.setPose(pose);
+        drive.periodic();
+        drive.resetOdometry(pose);
+    }
+
+    @Test
+    void drivesForward() {
+        run(2.0, 0.5, 0, 0);
+
+        Pose2d pose = simulation.getPose();
+        assertTrue(pose.getX() > 1.0, "drove " + pose.getX() + " m forward");
+        assertEquals(0, pose.getY(), 0.1);
+        assertEquals(0, pose.getRotation().getRadians(), 0.05);
+
+        // Odometry should follow the true pose closely while the wheels don't slip
+        assertEquals(0, drive.getPose().getTranslation().getDistance(pose.getTranslation()), 0.05);
+    }
+
+    @Test
+    void strafesLeft() {
+        run(2.0, 0, 0.5, 0);
+
+        Pose2d pose = simulation.getPose();
+        assertTrue(pose.getY() > 1.0, "strafed " + pose.getY() + " m left");
+        assertEquals(0, pose.getX(), 0.1);
+        assertEquals(0, pose.getRotation().getRadians(), 0.05);
+    }
+
+    @Test
+    void turnsCounterclockwise() {
+        run(1.0, 0, 0, 0.25);
+
+        Pose2d pose = simulation.getPose();
+        assertTrue(pose.getRotation().getRadians() > 0.5, "turned " + pose.getRotation().getDegrees() + " degrees");
+        assertEquals(0, pose.getTranslation().getNorm(), 0.1);
+
+        // The heading comes from the gyro, counterclockwise positive
+        assertEquals(pose.getRotation().getDegrees(), drive.getHeading(), 1.0);
+    }
+
+    @Test
+    void visionPullsOdometryBackToTheTruePose() {
+        placeAt(kFacingSpeaker);
+        drive.resetOdometry(new Pose2d(2.5, 5.0, kFacingSpeaker.getRotation()));
+
+        run(8.0, 0, 0, 0);
+
+        assertTrue(vision.aprilTagsVisible(), "the camera should see the speaker tags");
+        double error = drive.getPose().getTranslation().getDistance(kFacingSpeaker.getTranslation());
+        assertTrue(error < 0.1, "odometry is still " + error + " m off");
+    }
+}
@@ -0,0 +1,217 @@
+package frc.robot.subsystems.LED;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.hal.HAL;
+import frc.robot.Constants.LedConstants;
+import frc.robot.telemetry.LoopProfiler;
+
+/**
+ * Checks what the LedSubsystem puts on the CAN bus: one setLEDs() frame per run of one
+ * color, nothing for a frame that didn't change, and never more than
+ * {@link LedConstants#kMaxFramesPerCycle} frames in one loop.
+ */
+class LedSubsystemTest {
+
+    /** A simulated strip that also records every setLEDs() frame sent to it. */
+    private static final class CountingLedIO extends LedIOSim {
+        // {start, count} of each frame, in the order they were sent
+        final List<int[]> frames = new ArrayList<>();
+
+        @Override
+        public void setLEDs(int r, int g, int b, int w, int startIdx, int count) {
+            frames.add(new int[] {startIdx, count});
+            super.setLEDs(r, g, b, w, startIdx, count);
+        }
+    }
+
+    private CountingLedIO io;
+    private LedSubsystem leds;
+
+    @BeforeAll
+    static void initializeHal() {
+        assertTrue(HAL.initialize(500, 0));
+    }
+
+    @BeforeEach
+    void build() {
+        io = new CountingLedIO();
+        leds = new LedSubsystem(io, LoopProfiler.unregistered());
+    }
+
+    /**
+     * Runs loops until the strip has caught up with the framebuffer, checking the frame
+     * budget of each loop.
+     *
+     * @return the frames sent
+     */
+    private int flushAll() {
+        int total = 0;
+        while (true) {
+            int before = io.frames.size();
+            leds.periodic();
+            int sent = io.frames.size() - before;
+            assertTrue(sent <= LedConstants.kMaxFramesPerCycle, "sent " + sent + " frames in one loop");
+
+            total += sent;
+            if (sent < LedConstants.kMaxFramesPerCycle) return total;
+        }
+    }
+
+    private static int pack(CANdleColor color) {
+        return (color.getr() & 0xFF) << 24 | (color.getg() & 0xFF) << 16 | (color.getb() & 0xFF) << 8 | (color.getw() & 0xFF);
+    }
+
+    /** What the strip should show for a pattern: its blocks, repeated until the strip is full. */
+    private static int[] render(CANdlePattern pattern) {
+        int[] strip = new int[LedConstants.kNumLeds];
+        int i = 0;
+        while (i < strip.length) {
+            for (CANdleColorBlock block : pattern.getPattern()) {
+                for (int n = 0; n < block.getLength() && i < strip.length; n++) {
+                    strip[i++] = pack(block);
+                }
+            }
+        }
+        return strip;
+    }
+
+    private static int countRuns(int[] strip) {
+        int runs = 1;
+        for (int i = 1; i < strip.length; i++) {
+            if (strip[i] != strip[i - 1]) runs++;
+        }
+        return runs;
+    }
+
+    private void assertStripShows(int[] expected) {
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], io.getColor(i), "LED " + i);
+        }
+    }
+
+    private static List<CANdlePattern> allPatterns() throws IllegalAccessException {
+        List<CANdlePattern> patterns = new ArrayList<>();
+        for (Field field : LedConstants.class.getFields()) {
+            if (Modifier.isStatic(field.getModifiers()) && field.getType() == CANdlePattern.class) {
+                patterns.add((CANdlePattern) field.get(null));
+            }
+        }
+        return patterns;
+    }
+
+    @Test
+    void everyPatternIsSentAsOneFramePerRun() throws IllegalAccessException {
+        List<CANdlePattern> patterns = allPatterns();
+        assertFalse(patterns.isEmpty());
+
+        for (CANdlePattern pattern : patterns) {
+            build();
+            int[] expected = render(pattern);
+
+            leds.setPattern(pattern);
+            int frames = flushAll();
+
+            assertStripShows(expected);
+            assertEquals(countRuns(expected), frames);
+        }
+    }
+
+    @Test
+    void unchangedFrameSendsNothing() {
+        leds.setPattern(LedConstants.kYellowDashed1);
+        flushAll();
+
+        // Drawing the same pattern again, or nothing at all, costs no frames
+        int before = io.frames.size();
+        leds.periodic();
+        leds.setPattern(LedConstants.kYellowDashed1);
+        leds.periodic();
+        assertEquals(before, io.frames.size());
+    }
+
+    @Test
+    void onlyChangedLedsAreSent() {
+        leds.setSolidColor(LedConstants.kRed);
+        flushAll();
+
+        io.frames.clear();
+        leds.setColor(LedConstants.kElectricBlue, 10, 5);
+        leds.periodic();
+
+        assertEquals(1, io.frames.size());
+        assertEquals(10, io.frames.get(0)[0]);
+        assertEquals(5, io.frames.get(0)[1]);
+    }
+
+    @Test
+    void budgetCarriesOverToTheNextLoop() {
+        int[] expected = render(LedConstants.kYellowDashed1);
+        assertTrue(countRuns(expected) > 2 * LedConstants.kMaxFramesPerCycle, "the pattern should need several loops");
+
+        leds.setPattern(LedConstants.kYellowDashed1);
+
+        leds.periodic();
+        assertEquals(LedConstants.kMaxFramesPerCycle, io.frames.size());
+        int[] last = io.frames.get(io.frames.size() - 1);
+
+        // The next loop starts right where this one stopped
+        leds.periodic();
+        assertEquals(2 * LedConstants.kMaxFramesPerCycle, io.frames.size());
+        assertEquals(last[0] + last[1], io.frames.get(LedConstants.kMaxFramesPerCycle)[0]);
+
+        flushAll();
+        assertStripShows(expected);
+
+        // Every LED was sent exactly once
+        int covered = 0;
+        for (int[] frame : io.frames) covered += frame[1];
+        assertEquals(LedConstants.kNumLeds, covered);
+    }
+
+    @Test
+    void leftoverBudgetWrapsAroundToTheStart() {
+        leds.setSolidColor(LedConstants.kRed);
+        flushAll();
+
+        // More single-LED runs than one loop's budget, so the cursor carries over
+        int runs = LedConstants.kMaxFramesPerCycle + 3;
+        for (int n = 0; n < runs; n++) {
+            leds.setColor(LedConstants.kElectricBlue, 20 + 2 * n, 1);
+        }
+        io.frames.clear();
+        leds.periodic();
+        assertEquals(LedConstants.kMaxFramesPerCycle, io.frames.size());
+        int[] last = io.frames.get(io.frames.size() - 1);
+        int cursor = last[0] + last[1];
+
+        // One change after the cursor and one before it
+        int after = LedConstants.kNumLeds - 10;
+        int before = 5;
+        assertTrue(before < cursor && cursor < after);
+        leds.setColor(LedConstants.kElectricBlue, after, 1);
+        leds.setColor(LedConstants.kElectricBlue, before, 1);
+
+        // The leftover runs and both changes fit in the next loop's budget, so all go out
+        io.frames.clear();
+        leds.periodic();
+        assertEquals(runs - LedConstants.kMaxFramesPerCycle + 2, io.frames.size());
+        assertEquals(after, io.frames.get(io.frames.size() - 2)[0]);
+        assertEquals(before, io.frames.get(io.frames.size() - 1)[0]);
+
+        io.frames.clear();
+        leds.periodic();
+        assertEquals(0, io.frames.size());
+    }
+}
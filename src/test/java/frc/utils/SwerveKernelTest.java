@@ -0,0 +1,188 @@
+package frc.utils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.robot.Constants.DriveConstants;
+
+/**
+ * Checks {@link SwerveKernel} against WPILib's SwerveDriveKinematics and SwerveModuleState,
+ * on random chassis speeds, headings and module angles.
+ *
+ * <p>The inputs come from a fixed seed, so a failure always reproduces. Speeds go past the
+ * maximum so that desaturation is exercised, and angles go past a full turn either way.
+ */
+class SwerveKernelTest {
+
+    private static final int kTrials = 2000;
+    private static final double kTolerance = 1e-9;
+
+    private final SwerveKernel kernel = new SwerveKernel(DriveConstants.kWheelBase, DriveConstants.kTrackWidth);
+    private final double[] chassis = new double[3];
+    private final double[] states = new double[SwerveKernel.kStateSize];
+    private final double[] angles = new double[SwerveKernel.kModules];
+
+    private SwerveDriveKinematics kinematics;
+    private Random random;
+
+    @BeforeEach
+    void setup() {
+        // A fresh WPILib kinematics each test, since it remembers the last module angles
+        kinematics = new SwerveDriveKinematics(
+            new Translation2d(DriveConstants.kWheelBase / 2, DriveConstants.kTrackWidth / 2),
+            new Translation2d(DriveConstants.kWheelBase / 2, -DriveConstants.kTrackWidth / 2),
+            new Translation2d(-DriveConstants.kWheelBase / 2, DriveConstants.kTrackWidth / 2),
+            new Translation2d(-DriveConstants.kWheelBase / 2, -DriveConstants.kTrackWidth / 2));
+        random = new Random(1308);
+    }
+
+    private ChassisSpeeds randomSpeeds() {
+        return new ChassisSpeeds(
+            (random.nextDouble() * 2 - 1) * 1.5 * DriveConstants.kMaxSpeedMetersPerSecond,
+            (random.nextDouble() * 2 - 1) * 1.5 * DriveConstants.kMaxSpeedMetersPerSecond,
+            (random.nextDouble() * 2 - 1) * DriveConstants.kMaxAngularSpeed);
+    }
+
+    private double randomAngle() {
+        return (random.nextDouble() - 0.5) * 8 * Math.PI;
+    }
+
+    private void randomModuleAngles() {
+        for (int module = 0; module < SwerveKernel.kModules; module++) angles[module] = randomAngle();
+    }
+
+    private static void assertStates(SwerveModuleState[] expected, double[] actual, String message) {
+        for (int module = 0; module < SwerveKernel.kModules; module++) {
+            assertEquals(expected[module].speedMetersPerSecond, actual[2 * module], kTolerance, message + ", module " + module + " speed");
+            // Angles may differ by a full turn at the wrap point
+            assertEquals(0, MathUtil.angleModulus(actual[2 * module + 1] - expected[module].angle.getRadians()), kTolerance,
+                message + ", module " + module + " angle");
+        }
+    }
+
+    @Test
+    void fieldToRobotMatchesChassisSpeeds() {
+        for (int trial = 0; trial < kTrials; trial++) {
+            ChassisSpeeds field = randomSpeeds();
+            double heading = randomAngle();
+
+            ChassisSpeeds expected = ChassisSpeeds.fromFieldRelativeSpeeds(field, new Rotation2d(heading));
+            SwerveKernel.fieldToRobot(field.vxMetersPerSecond, field.vyMetersPerSecond, field.omegaRadiansPerSecond, heading, chassis);
+
+            assertEquals(expected.vxMetersPerSecond, chassis[0], kTolerance, "trial " + trial);
+            assertEquals(expected.vyMetersPerSecond, chassis[1], kTolerance, "trial " + trial);
+            assertEquals(expected.omegaRadiansPerSecond, chassis[2], kTolerance, "trial " + trial);
+        }
+    }
+
+    @Test
+    void toModuleStatesMatchesKinematics() {
+        for (int trial = 0; trial < kTrials; trial++) {
+            ChassisSpeeds speeds = randomSpeeds();
+
+            kernel.toModuleStates(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond, states);
+            assertStates(kinematics.toSwerveModuleStates(speeds), states, "trial " + trial);
+        }
+    }
+
+    @Test
+    void toModuleStatesKeepsTheAnglesWhenStopped() {
+        ChassisSpeeds speeds = new ChassisSpeeds(1.0, 0.5, 0.3);
+        kernel.toModuleStates(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond, states);
+        kinematics.toSwerveModuleStates(speeds);
+
+        kernel.toModuleStates(0, 0, 0, states);
+        assertStates(kinematics.toSwerveModuleStates(new ChassisSpeeds()), states, "stopped");
+    }
+
+    @Test
+    void desaturateMatchesKinematics() {
+        for (int trial = 0; trial < kTrials; trial++) {
+            ChassisSpeeds speeds = randomSpeeds();
+
+            SwerveModuleState[] expected = kinematics.toSwerveModuleStates(speeds);
+            SwerveDriveKinematics.desaturateWheelSpeeds(expected, DriveConstants.kMaxSpeedMetersPerSecond);
+            kernel.toModuleStates(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond, states);
+            SwerveKernel.desaturate(states, DriveConstants.kMaxSpeedMetersPerSecond);
+
+            assertStates(expected, states, "trial " + trial);
+        }
+    }
+
+    @Test
+    void optimizeMatchesSwerveModuleState() {
+        for (int trial = 0; trial < kTrials; trial++) {
+            ChassisSpeeds speeds = randomSpeeds();
+            randomModuleAngles();
+
+            SwerveModuleState[] expected = kinematics.toSwerveModuleStates(speeds);
+            for (int module = 0; module < SwerveKernel.kModules; module++) {
+                expected[module] = SwerveModuleState.optimize(expected[module], new Rotation2d(angles[module]));
+            }
+            kernel.toModuleStates(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond, states);
+            SwerveKernel.optimize(states, angles);
+
+            assertStates(expected, states, "trial " + trial);
+        }
+    }
+
+    @Test
+    void cosineScaleScalesByHowFarEachModuleHasToTurn() {
+        for (int trial = 0; trial < kTrials; trial++) {
+            ChassisSpeeds speeds = randomSpeeds();
+            randomModuleAngles();
+
+            SwerveModuleState[] unoptimized = kinematics.toSwerveModuleStates(speeds);
+            kernel.toModuleStates(speeds.vxMetersPerSecond, speeds.vyMetersPerSecond, speeds.omegaRadiansPerSecond, states);
+            SwerveKernel.optimize(states, angles);
+            SwerveKernel.cosineScale(states, angles);
+
+            for (int module = 0; module < SwerveKernel.kModules; module++) {
+                Rotation2d current = new Rotation2d(angles[module]);
+                SwerveModuleState state = SwerveModuleState.optimize(unoptimized[module], current);
+                double expected = state.speedMetersPerSecond * state.angle.minus(current).getCos();
+                double scaled = states[2 * module];
+                String message = "trial " + trial + ", module " + module;
+
+                assertEquals(expected, scaled, kTolerance, message);
+                // After optimizing, a module is never more than 90 degrees off, so scaling
+                // never speeds it up or reverses it
+                assertTrue(Math.abs(scaled) <= Math.abs(state.speedMetersPerSecond) + kTolerance, message);
+                assertTrue(scaled * state.speedMetersPerSecond >= 0, message);
+            }
+        }
+    }
+
+    @Test
+    void toChassisSpeedsMatchesKinematics() {
+        for (int trial = 0; trial < kTrials; trial++) {
+            // Any module states, not only ones that came from a chassis speed
+            SwerveModuleState[] moduleStates = new SwerveModuleState[SwerveKernel.kModules];
+            for (int module = 0; module < SwerveKernel.kModules; module++) {
+                double speed = (random.nextDouble() * 2 - 1) * DriveConstants.kMaxSpeedMetersPerSecond;
+                double angle = randomAngle();
+                moduleStates[module] = new SwerveModuleState(speed, new Rotation2d(angle));
+                states[2 * module] = speed;
+                states[2 * module + 1] = angle;
+            }
+
+            ChassisSpeeds expected = kinematics.toChassisSpeeds(moduleStates);
+            kernel.toChassisSpeeds(states, chassis);
+
+            assertEquals(expected.vxMetersPerSecond, chassis[0], kTolerance, "trial " + trial);
+            assertEquals(expected.vyMetersPerSecond, chassis[1], kTolerance, "trial " + trial);
+            assertEquals(expected.omegaRadiansPerSecond, chassis[2], kTolerance, "trial " + trial);
+        }
+    }
+}